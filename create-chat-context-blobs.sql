@@ -0,0 +1,17 @@
+-- Content-addressed storage for chat context text, referenced from chats by hash
+-- This script should be run on the database before deploying with ddl-auto=validate
+
+CREATE TABLE IF NOT EXISTS chat_context_blobs (
+    hash VARCHAR(64) PRIMARY KEY,
+    content BYTEA NOT NULL,
+    compressed BOOLEAN NOT NULL,
+    original_length INTEGER NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- chats.context_data stays until ChatContextMigration has moved its values into blobs
+ALTER TABLE chats ADD COLUMN IF NOT EXISTS context_hash VARCHAR(64);
+
+-- Verify the table and column were created
+SELECT table_name FROM information_schema.tables WHERE table_name = 'chat_context_blobs';
+SELECT column_name FROM information_schema.columns WHERE table_name = 'chats' AND column_name = 'context_hash';
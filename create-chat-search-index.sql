@@ -0,0 +1,58 @@
+-- Full-text search column and GIN index over chats for PostgresChatSearchService
+-- This script should be run on the database before deploying with app.chat-search.engine=postgres
+-- Run it statement by statement (psql's default autocommit), not inside one transaction:
+-- the backfill commits in batches and CREATE INDEX CONCURRENTLY cannot run in a transaction.
+-- Nothing here rewrites the chats table or blocks chat writes while it runs.
+
+-- Without a default, adding the column only changes the catalog
+ALTER TABLE chats ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+-- Keeps the column current for new and edited chats (question weighted above answer)
+CREATE OR REPLACE FUNCTION chats_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('english', coalesce(NEW.user_message, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(NEW.ai_response, '')), 'B');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+-- Skipped where search_vector already exists as a generated column
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'chats'::regclass AND attname = 'search_vector' AND attgenerated = '') THEN
+        DROP TRIGGER IF EXISTS chats_search_vector_trigger ON chats;
+        CREATE TRIGGER chats_search_vector_trigger
+            BEFORE INSERT OR UPDATE OF user_message, ai_response ON chats
+            FOR EACH ROW EXECUTE FUNCTION chats_search_vector_update();
+    END IF;
+END
+$$;
+
+-- Backfill existing chats in short batches so no long-running lock is held
+DO $$
+DECLARE
+    updated INTEGER;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'chats'::regclass AND attname = 'search_vector' AND attgenerated = '') THEN
+        LOOP
+            UPDATE chats SET search_vector =
+                    setweight(to_tsvector('english', coalesce(user_message, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(ai_response, '')), 'B')
+            WHERE id IN (SELECT id FROM chats WHERE search_vector IS NULL LIMIT 5000);
+            GET DIAGNOSTICS updated = ROW_COUNT;
+            EXIT WHEN updated = 0;
+            COMMIT;
+        END LOOP;
+    END IF;
+END
+$$;
+
+-- Built without blocking writes to chats
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_chats_search_vector ON chats USING gin (search_vector);
+
+-- Verify the index was created and is valid
+SELECT c.relname, i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+WHERE c.relname = 'idx_chats_search_vector';
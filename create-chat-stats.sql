@@ -0,0 +1,15 @@
+-- Rollup of chat counts and ratings per farmer and message type, maintained by ChatStatsService
+-- This script should be run on the database before deploying with ddl-auto=validate
+-- The rollup is left empty here; the application builds it from the chats table on first start
+
+CREATE TABLE IF NOT EXISTS chat_stats (
+    farmer_id BIGINT NOT NULL,
+    message_type VARCHAR(32) NOT NULL,
+    chat_count BIGINT NOT NULL,
+    helpful_count BIGINT NOT NULL,
+    unhelpful_count BIGINT NOT NULL,
+    PRIMARY KEY (farmer_id, message_type)
+);
+
+-- Verify the table was created
+SELECT table_name FROM information_schema.tables WHERE table_name = 'chat_stats';
@@ -0,0 +1,15 @@
+-- Storage for the advice pre-generated for each farmer after the daily recommendation run
+-- This script should be run on the database before deploying with ddl-auto=validate
+
+CREATE TABLE IF NOT EXISTS daily_advice (
+    id BIGSERIAL PRIMARY KEY,
+    farmer_id BIGINT NOT NULL REFERENCES farmers(id) ON DELETE CASCADE,
+    advice_date DATE NOT NULL,
+    recommendation_id BIGINT,
+    advice TEXT NOT NULL,
+    generated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_daily_advice_farmer_date UNIQUE (farmer_id, advice_date)
+);
+
+-- Verify the table was created
+SELECT table_name FROM information_schema.tables WHERE table_name = 'daily_advice';
@@ -0,0 +1,18 @@
+-- Storage for cached Plant.id and Insect.id detection results
+-- This script should be run on the database before deploying with ddl-auto=validate
+
+CREATE TABLE IF NOT EXISTS detection_cache (
+    id BIGSERIAL PRIMARY KEY,
+    upstream VARCHAR(16) NOT NULL,
+    image_sha256 VARCHAR(64) NOT NULL,
+    perceptual_hash BIGINT,
+    result_json TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_detection_cache_image UNIQUE (upstream, image_sha256)
+);
+
+CREATE INDEX IF NOT EXISTS idx_detection_cache_expires_at ON detection_cache (expires_at);
+
+-- Verify the table was created
+SELECT table_name FROM information_schema.tables WHERE table_name = 'detection_cache';
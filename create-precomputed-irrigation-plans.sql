@@ -0,0 +1,13 @@
+-- Storage for the nightly precomputed default irrigation plans
+-- This script should be run on the database before deploying with ddl-auto=validate
+
+CREATE TABLE IF NOT EXISTS precomputed_irrigation_plans (
+    id BIGSERIAL PRIMARY KEY,
+    saved_plan_id BIGINT NOT NULL UNIQUE REFERENCES saved_irrigation_plans(id) ON DELETE CASCADE,
+    location_cell VARCHAR(32) NOT NULL,
+    plan_json TEXT NOT NULL,
+    generated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Verify the table was created
+SELECT table_name FROM information_schema.tables WHERE table_name = 'precomputed_irrigation_plans';
@@ -0,0 +1,75 @@
+package com.hackathon.agriculture_backend.config;
+
+import com.hackathon.agriculture_backend.service.ChatContextStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One-off move of the legacy {@code chats.context_data} text into content-addressed
+ * {@code chat_context_blobs}. Rows are processed in batches; each gets its
+ * {@code context_hash} and has {@code context_data} cleared, so an interrupted run resumes
+ * where it stopped and later startups find nothing to do. Skipped when the column does not
+ * exist (schemas created after the change).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatContextMigration implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatContextStore chatContextStore;
+
+    @Override
+    public void run(String... args) {
+        if (!hasLegacyColumn()) {
+            return;
+        }
+
+        int migrated = 0;
+        Set<String> distinct = new HashSet<>();
+        while (true) {
+            List<LegacyRow> rows = jdbcTemplate.query(
+                    "select id, context_data from chats where context_data is not null order by id limit " + BATCH_SIZE,
+                    (rs, rowNum) -> new LegacyRow(rs.getLong("id"), rs.getString("context_data")));
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (LegacyRow row : rows) {
+                String hash = chatContextStore.store(row.contextData());
+                distinct.add(hash);
+                updates.add(new Object[]{hash, row.id()});
+            }
+            jdbcTemplate.batchUpdate("update chats set context_hash = ?, context_data = null where id = ?", updates);
+            migrated += rows.size();
+        }
+
+        if (migrated > 0) {
+            log.info("Moved the context of {} chat(s) into {} distinct context blob(s); chats.context_data is now unused",
+                    migrated, distinct.size());
+        }
+    }
+
+    private boolean hasLegacyColumn() {
+        try {
+            jdbcTemplate.queryForList("select context_data from chats where 1 = 0");
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private record LegacyRow(long id, String contextData) {
+    }
+}
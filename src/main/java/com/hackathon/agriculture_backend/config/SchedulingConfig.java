@@ -1,13 +1,24 @@
 package com.hackathon.agriculture_backend.config;
 
+import com.hackathon.agriculture_backend.service.upstream.RequestPriority;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 @Configuration
 @EnableScheduling
 public class SchedulingConfig {
     // Configuration for scheduled tasks
+    
+    /**
+     * Scheduled jobs run in the batch lane so their upstream calls yield to interactive users.
+     */
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer batchPriorityTaskSchedulerCustomizer() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("scheduling-");
+        return scheduler -> scheduler.setThreadFactory(
+                worker -> threadFactory.newThread(() -> RequestPriority.runAsBatch(worker)));
+    }
 }
-
-
-
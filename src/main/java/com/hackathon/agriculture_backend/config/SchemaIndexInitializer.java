@@ -0,0 +1,46 @@
+package com.hackathon.agriculture_backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared in {@code @Table(indexes = ...)} when they are missing.
+ * Hibernate only creates them together with the tables, so a schema that is validated
+ * rather than generated (the prod profile) would otherwise never get them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaIndexInitializer {
+
+    // Depending on the EntityManagerFactory makes this run after schema generation
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void createMissingIndexes() {
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            Table table = entity.getJavaType().getAnnotation(Table.class);
+            if (table == null) {
+                continue;
+            }
+            for (Index index : table.indexes()) {
+                String sql = "create " + (index.unique() ? "unique " : "") + "index if not exists "
+                        + index.name() + " on " + table.name() + " (" + index.columnList() + ")";
+                try {
+                    jdbcTemplate.execute(sql);
+                } catch (DataAccessException e) {
+                    log.warn("Could not create index {}: {}", index.name(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.hackathon.agriculture_backend.controller;
 
 import com.hackathon.agriculture_backend.dto.ApiResponse;
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.model.AlertLog;
 import com.hackathon.agriculture_backend.service.AlertService;
 import com.hackathon.agriculture_backend.service.FarmerService;
@@ -74,6 +75,26 @@ public class AlertController {
         }
     }
     
+    @GetMapping("/farmers/{farmerId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<AlertLog>>> getFarmerAlertsPage(
+            @PathVariable Long farmerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Fetching alert page for farmer ID: {}", farmerId);
+        
+        try {
+            CursorPage<AlertLog> alerts = alertService.getAlertsByFarmer(farmerId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(alerts));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching farmer alerts", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to fetch alerts: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/status/{status}")
     public ResponseEntity<ApiResponse<List<AlertLog>>> getAlertsByStatus(@PathVariable String status) {
         log.info("Fetching alerts by status: {}", status);
@@ -1,8 +1,11 @@
 package com.hackathon.agriculture_backend.controller;
 
 import com.hackathon.agriculture_backend.dto.ApiResponse;
+import com.hackathon.agriculture_backend.dto.ChatSearchHit;
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.model.Chat;
 import com.hackathon.agriculture_backend.service.ChatService;
+import com.hackathon.agriculture_backend.service.ChatStatsService;
 import com.hackathon.agriculture_backend.service.SimpleChatService;
 import com.hackathon.agriculture_backend.service.GeminiService;
 import lombok.RequiredArgsConstructor;
@@ -10,11 +13,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +38,9 @@ public class ChatController {
     private final SimpleChatService simpleChatService;
     private final GeminiService geminiService;
     
+    @Value("${app.gemini.timeout:60000}")
+    private long streamTimeoutMs;
+    
     @PostMapping("/send")
     public CompletableFuture<ResponseEntity<ApiResponse<Chat>>> sendMessage(
             @RequestParam Long farmerId,
@@ -39,25 +50,55 @@ public class ChatController {
         
         System.out.println("Received chat message from farmer ID: " + farmerId);
         
-        // Try the main chat service first, fallback to simple chat service
+        // Try the main chat service first, fallback to simple chat service. Every stage is
+        // composed rather than joined, so the servlet thread is released for the whole wait
         return chatService.sendMessage(farmerId, message, messageType, userName)
-                .thenApply(chat -> ResponseEntity.ok(ApiResponse.success("Message processed successfully", chat)))
-                .exceptionally(throwable -> {
+                .exceptionallyCompose(throwable -> {
                     System.out.println("Main chat service failed, trying simple chat service: " + throwable.getMessage());
                     // Use simple chat service as fallback
-                    return simpleChatService.sendMessage(farmerId, message, messageType, userName)
-                            .thenApply(simpleChat -> ResponseEntity.ok(ApiResponse.success("Message processed successfully", simpleChat)))
-                            .exceptionally(simpleThrowable -> {
-                                System.out.println("Both chat services failed: " + simpleThrowable.getMessage());
-                                // Final fallback response
-                                Chat fallbackChat = new Chat();
-                                fallbackChat.setId(1L);
-                                fallbackChat.setUserMessage(message);
-                                fallbackChat.setAiResponse("Hello! I'm your AI farming assistant. I'm here to help you with agricultural questions. Please ask me about crops, irrigation, plant diseases, weather, or any farming-related topics.");
-                                fallbackChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-                                return ResponseEntity.ok(ApiResponse.success("Message processed successfully", fallbackChat));
-                            }).join();
-                });
+                    return simpleChatService.sendMessage(farmerId, message, messageType, userName);
+                })
+                .exceptionally(simpleThrowable -> {
+                    System.out.println("Both chat services failed: " + simpleThrowable.getMessage());
+                    // Final fallback response
+                    Chat fallbackChat = new Chat();
+                    fallbackChat.setId(1L);
+                    fallbackChat.setUserMessage(message);
+                    fallbackChat.setAiResponse("Hello! I'm your AI farming assistant. I'm here to help you with agricultural questions. Please ask me about crops, irrigation, plant diseases, weather, or any farming-related topics.");
+                    fallbackChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+                    return fallbackChat;
+                })
+                .thenApply(chat -> ResponseEntity.ok(ApiResponse.success("Message processed successfully", chat)));
+    }
+    
+    @PostMapping(value = "/send/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @RequestParam Long farmerId,
+            @RequestParam String message,
+            @RequestParam(defaultValue = "GENERAL") String messageType,
+            @RequestParam(required = false) String userName) {
+        
+        log.info("Received streaming chat message from farmer ID: {}", farmerId);
+        
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Disposable subscription = chatService.streamMessage(farmerId, message, messageType, userName)
+                .subscribe(
+                        event -> {
+                            try {
+                                emitter.send(SseEmitter.event().name(event.getType()).data(event));
+                            } catch (IOException e) {
+                                // Client went away; completing with error triggers the cleanup below
+                                emitter.completeWithError(e);
+                            }
+                        },
+                        emitter::completeWithError,
+                        emitter::complete);
+        
+        // Stop generating (and paying for) tokens nobody will read
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return emitter;
     }
     
     @GetMapping("/test-gemini")
@@ -104,6 +145,25 @@ public class ChatController {
         }
     }
     
+    @GetMapping("/history/{farmerId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<Chat>>> getChatHistoryPage(
+            @PathVariable Long farmerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.debug("Fetching chat history page for farmer ID: {}", farmerId);
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success(chatService.getChatHistory(farmerId, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching chat history page: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to fetch chat history: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/history/{farmerId}/type/{messageType}")
     public ResponseEntity<ApiResponse<List<Chat>>> getChatHistoryByType(
             @PathVariable Long farmerId,
@@ -139,6 +199,25 @@ public class ChatController {
         }
     }
     
+    @GetMapping("/search/{farmerId}/hits")
+    public ResponseEntity<ApiResponse<Page<ChatSearchHit>>> searchChatHits(
+            @PathVariable Long farmerId,
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.debug("Searching chat history for farmer ID: {} with query: {} (page {})", farmerId, query, page);
+        
+        try {
+            Page<ChatSearchHit> hits = chatService.searchChatHistory(farmerId, query, PageRequest.of(page, size));
+            return ResponseEntity.ok(ApiResponse.success(hits));
+        } catch (Exception e) {
+            log.error("Error searching chat history: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to search chat history: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/recent/{farmerId}")
     public ResponseEntity<ApiResponse<List<Chat>>> getRecentChats(
             @PathVariable Long farmerId,
@@ -174,20 +253,48 @@ public class ChatController {
         }
     }
     
+    @GetMapping("/context/{chatId}")
+    public ResponseEntity<ApiResponse<String>> getChatContext(@PathVariable Long chatId) {
+        log.debug("Fetching context for chat ID: {}", chatId);
+        
+        try {
+            return chatService.getChatContext(chatId)
+                    .map(context -> ResponseEntity.ok(ApiResponse.success(context)))
+                    .orElseGet(() -> ResponseEntity.status(404).body(ApiResponse.error("No context stored for this chat")));
+        } catch (Exception e) {
+            log.error("Error fetching chat context: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to fetch chat context: " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/daily-advice/{farmerId}")
+    public ResponseEntity<ApiResponse<String>> getDailyAdvice(@PathVariable Long farmerId) {
+        log.debug("Fetching today's advice for farmer ID: {}", farmerId);
+        
+        try {
+            return chatService.getDailyAdvice(farmerId)
+                    .map(advice -> ResponseEntity.ok(ApiResponse.success(advice)))
+                    .orElseGet(() -> ResponseEntity.status(404).body(ApiResponse.error("No advice generated for today yet")));
+        } catch (Exception e) {
+            log.error("Error fetching daily advice: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to fetch daily advice: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/stats/{farmerId}")
     public ResponseEntity<ApiResponse<Object>> getChatStats(@PathVariable Long farmerId) {
         System.out.println("Fetching chat statistics for farmer ID: " + farmerId);
         
         try {
-            List<Object[]> messageTypeStats = chatService.getMessageTypeStats(farmerId);
-            Double averageHelpfulness = chatService.getAverageHelpfulness(farmerId);
-            Long totalChats = chatService.getTotalChats(farmerId);
+            ChatStatsService.Stats chatStats = chatService.getChatStats(farmerId);
             
             // Create a proper response object
             Map<String, Object> stats = new HashMap<>();
-            stats.put("messageTypes", messageTypeStats);
-            stats.put("averageHelpfulness", averageHelpfulness);
-            stats.put("totalChats", totalChats);
+            stats.put("messageTypes", chatStats.messageTypes());
+            stats.put("averageHelpfulness", chatStats.averageHelpfulness());
+            stats.put("totalChats", chatStats.totalChats());
             
             return ResponseEntity.ok(ApiResponse.success("Chat statistics retrieved successfully", stats));
         } catch (Exception e) {
@@ -1,7 +1,7 @@
 package com.hackathon.agriculture_backend.controller;
 
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.dto.DiseaseDetectionResponse;
-import com.hackathon.agriculture_backend.dto.DetailedDiseaseDetectionResponse;
 import com.hackathon.agriculture_backend.model.DiseaseDetectionHistory;
 import com.hackathon.agriculture_backend.model.User;
 import com.hackathon.agriculture_backend.service.PlantDiseaseService;
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/disease")
@@ -30,14 +31,14 @@ public class PlantDiseaseController {
     private final UserService userService;
 
     @PostMapping("/detect")
-    public ResponseEntity<DiseaseDetectionResponse> detectDisease(
+    public CompletableFuture<ResponseEntity<DiseaseDetectionResponse>> detectDisease(
             @RequestParam("image") MultipartFile image,
             Authentication authentication) {
         try {
             log.info("Received disease detection request for image: {}", image.getOriginalFilename());
             
             if (image.isEmpty()) {
-                return ResponseEntity.badRequest().build();
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
             }
 
             // Get user ID from authentication - allow demo without auth
@@ -47,36 +48,41 @@ public class PlantDiseaseController {
                 log.info("Using demo user ID for disease detection");
             }
 
-            DetailedDiseaseDetectionResponse detailedResponse = plantDiseaseService.detectDisease(image, userId);
-            log.info("Disease detection completed: {}", detailedResponse.getPrimaryDisease());
-            
-            // Convert to simple response format for frontend
-            DiseaseDetectionResponse response = new DiseaseDetectionResponse(
-                detailedResponse.getPrimaryDisease(),
-                detailedResponse.getPrimaryConfidence(),
-                detailedResponse.getPrimarySuggestion(),
-                detailedResponse.getIsHealthy(),
-                detailedResponse.getHealthProbability(),
-                detailedResponse.getIsPlant(),
-                detailedResponse.getPlantProbability(),
-                detailedResponse.getHealthStatus()
-            );
-            
-            return ResponseEntity.ok(response);
+            return plantDiseaseService.detectDiseaseAsync(image, userId)
+                    .thenApply(detailedResponse -> {
+                        log.info("Disease detection completed: {}", detailedResponse.getPrimaryDisease());
+                        
+                        // Convert to simple response format for frontend
+                        DiseaseDetectionResponse response = new DiseaseDetectionResponse(
+                            detailedResponse.getPrimaryDisease(),
+                            detailedResponse.getPrimaryConfidence(),
+                            detailedResponse.getPrimarySuggestion(),
+                            detailedResponse.getIsHealthy(),
+                            detailedResponse.getHealthProbability(),
+                            detailedResponse.getIsPlant(),
+                            detailedResponse.getPlantProbability(),
+                            detailedResponse.getHealthStatus()
+                        );
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(throwable -> {
+                        log.error("Unexpected error during disease detection", throwable);
+                        return ResponseEntity.internalServerError().build();
+                    });
         } catch (IOException e) {
             log.error("Error processing image for disease detection", e);
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         } catch (IllegalArgumentException e) {
             log.error("Invalid request for disease detection", e);
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         } catch (IllegalStateException e) {
             log.error("API configuration error: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                 .body(new DiseaseDetectionResponse("Service Unavailable", 0.0, e.getMessage(), 
-                    false, 0.0, false, 0.0, "Service Unavailable"));
+                    false, 0.0, false, 0.0, "Service Unavailable")));
         } catch (Exception e) {
             log.error("Unexpected error during disease detection", e);
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         }
     }
     
@@ -96,6 +102,26 @@ public class PlantDiseaseController {
         }
     }
     
+    @GetMapping("/history/cursor")
+    public ResponseEntity<CursorPage<DiseaseDetectionHistory>> getDetectionHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        try {
+            Long userId = getUserIdFromAuthentication(authentication);
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            return ResponseEntity.ok(plantDiseaseService.getDetectionHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error retrieving detection history", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @DeleteMapping("/history/{historyId}")
     public ResponseEntity<Void> deleteDetectionHistory(
             @PathVariable Long historyId,
@@ -1,6 +1,7 @@
 package com.hackathon.agriculture_backend.controller;
 
 import com.hackathon.agriculture_backend.dto.ApiResponse;
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.dto.RecommendationRequestDto;
 import com.hackathon.agriculture_backend.dto.RecommendationResponseDto;
 import com.hackathon.agriculture_backend.dto.RecommendationDto;
@@ -165,6 +166,26 @@ public class RecommendationController {
         }
     }
     
+    @GetMapping("/farmer/{farmerId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<RecommendationResponseDto>>> getFarmerRecommendationsPage(
+            @PathVariable Long farmerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("Fetching recommendation page for farmer ID: {}", farmerId);
+        
+        try {
+            return ResponseEntity.ok(ApiResponse.success(
+                    recommendationService.getFarmerRecommendations(farmerId, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching farmer recommendations: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to fetch recommendations: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/zone/{zoneId}")
     public ResponseEntity<ApiResponse<List<RecommendationResponseDto>>> getZoneRecommendations(
             @PathVariable Long zoneId,
@@ -1,8 +1,10 @@
 package com.hackathon.agriculture_backend.controller;
 
 import com.hackathon.agriculture_backend.dto.ApiResponse;
+import com.hackathon.agriculture_backend.dto.DefaultIrrigationPlanDto;
 import com.hackathon.agriculture_backend.dto.IrrigationPlanDto;
 import com.hackathon.agriculture_backend.dto.SavedIrrigationPlanDto;
+import com.hackathon.agriculture_backend.service.IrrigationPlanPrecomputeService;
 import com.hackathon.agriculture_backend.service.SmartIrrigationService;
 import com.hackathon.agriculture_backend.service.SavedIrrigationPlanService;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,7 @@ public class SmartIrrigationController {
     
     private final SmartIrrigationService smartIrrigationService;
     private final SavedIrrigationPlanService savedIrrigationPlanService;
+    private final IrrigationPlanPrecomputeService irrigationPlanPrecomputeService;
     
     @PostMapping("/generate-plan")
     public ResponseEntity<ApiResponse<IrrigationPlanDto>> generateIrrigationPlan(
@@ -47,6 +50,22 @@ public class SmartIrrigationController {
         }
     }
     
+    @GetMapping("/default-plan/{farmerId}")
+    public ResponseEntity<ApiResponse<DefaultIrrigationPlanDto>> getDefaultPlan(@PathVariable Long farmerId) {
+        
+        log.info("Fetching default irrigation plan for farmer: {}", farmerId);
+        
+        try {
+            DefaultIrrigationPlanDto plan = irrigationPlanPrecomputeService.getDefaultPlan(farmerId);
+            return ResponseEntity.ok(ApiResponse.success("Default irrigation plan retrieved successfully", plan));
+            
+        } catch (Exception e) {
+            log.error("Error fetching default irrigation plan: {}", e.getMessage());
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to fetch default irrigation plan: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/heat-alerts/{latitude}/{longitude}")
     public ResponseEntity<ApiResponse<List<HeatAlertDto>>> getHeatAlerts(
             @PathVariable Double latitude,
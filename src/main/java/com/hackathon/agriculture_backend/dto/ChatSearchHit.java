@@ -0,0 +1,28 @@
+package com.hackathon.agriculture_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hackathon.agriculture_backend.model.Chat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One ranked chat history search result. The snippet is HTML-escaped text with the
+ * matched words wrapped in {@code <mark>} tags.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchHit {
+    
+    private Long chatId;
+    private Chat.MessageType messageType;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant createdAt;
+    
+    private double score;
+    private String snippet;
+}
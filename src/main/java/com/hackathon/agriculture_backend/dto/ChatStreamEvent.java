@@ -0,0 +1,35 @@
+package com.hackathon.agriculture_backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * One Server-Sent Event of a streamed chat answer: a text fragment, the final
+ * persisted chat id, or an error.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStreamEvent {
+    
+    public static final String DELTA = "delta";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+    
+    private String type;
+    private String text;
+    private Long chatId;
+    
+    public static ChatStreamEvent delta(String text) {
+        return new ChatStreamEvent(DELTA, text, null);
+    }
+    
+    public static ChatStreamEvent done(Long chatId) {
+        return new ChatStreamEvent(DONE, null, chatId);
+    }
+    
+    public static ChatStreamEvent error(String message) {
+        return new ChatStreamEvent(ERROR, message, null);
+    }
+}
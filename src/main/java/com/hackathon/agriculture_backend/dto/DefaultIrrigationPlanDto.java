@@ -0,0 +1,24 @@
+package com.hackathon.agriculture_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DefaultIrrigationPlanDto {
+
+    private Long savedPlanId;
+    private String planName;
+    private IrrigationPlanDto plan;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant generatedAt;
+
+    // true when served from the nightly precomputation, false when generated live
+    private Boolean precomputed;
+}
@@ -0,0 +1,24 @@
+package com.hackathon.agriculture_backend.dto.gemini;
+
+import java.util.List;
+
+/**
+ * Body of a Gemini generateContent / streamGenerateContent call.
+ */
+public record GeminiRequest(
+        List<Content> contents,
+        List<SafetySetting> safetySettings,
+        GenerationConfig generationConfig) {
+
+    public record Content(List<Part> parts) {
+    }
+
+    public record Part(String text) {
+    }
+
+    public record SafetySetting(String category, String threshold) {
+    }
+
+    public record GenerationConfig(Integer maxOutputTokens, Float temperature) {
+    }
+}
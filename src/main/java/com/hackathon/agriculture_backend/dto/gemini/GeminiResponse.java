@@ -0,0 +1,49 @@
+package com.hackathon.agriculture_backend.dto.gemini;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Response of a Gemini generateContent call, or one event of a streamed response.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GeminiResponse(List<Candidate> candidates, Error error) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Candidate(Content content, String finishReason) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Content(List<Part> parts) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Part(String text) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Error(Integer code, String message, String status) {
+    }
+
+    /**
+     * Concatenated text of the first candidate, or an empty string if there is none.
+     */
+    public String firstCandidateText() {
+        if (candidates == null || candidates.isEmpty() || candidates.get(0).content() == null
+                || candidates.get(0).content().parts() == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Part part : candidates.get(0).content().parts()) {
+            if (part.text() != null) {
+                text.append(part.text());
+            }
+        }
+        return text.toString();
+    }
+
+    public String firstFinishReason() {
+        return candidates == null || candidates.isEmpty() ? null : candidates.get(0).finishReason();
+    }
+}
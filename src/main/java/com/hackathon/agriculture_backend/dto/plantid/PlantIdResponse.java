@@ -0,0 +1,50 @@
+package com.hackathon.agriculture_backend.dto.plantid;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response of a Plant.id v3 health assessment, reduced to the fields the detection uses.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlantIdResponse(Result result) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Result(@JsonProperty("is_plant") Prediction isPlant,
+                         @JsonProperty("is_healthy") Prediction isHealthy,
+                         Disease disease) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Prediction(Boolean binary, Double probability) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Disease(List<Suggestion> suggestions) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Suggestion(String name, Double probability, Details details) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Details(String description,
+                          String cause,
+                          Treatment treatment,
+                          @JsonProperty("common_names") List<String> commonNames,
+                          List<String> classification) {
+    }
+
+    /**
+     * Treatment texts; Plant.id sends each kind as a list of sentences, older responses as
+     * a single string.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Treatment(@JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> biological,
+                            @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> chemical,
+                            @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> prevention) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.hackathon.agriculture_backend.exception;
+
+/**
+ * Thrown when an upstream's dedicated executor has no free thread or queue slot,
+ * so the call is refused instead of tying up shared request threads.
+ */
+public class BulkheadFullException extends RuntimeException {
+    
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+    
+    public BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
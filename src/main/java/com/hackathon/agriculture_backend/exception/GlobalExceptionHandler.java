@@ -43,6 +43,26 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("Invalid argument: " + ex.getMessage()));
     }
     
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ApiResponse<String>> handleQuotaExceededException(
+            QuotaExceededException ex, WebRequest request) {
+        
+        log.warn("Upstream quota exceeded: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(ApiResponse.error("Service is busy, please retry shortly: " + ex.getMessage()));
+    }
+    
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ApiResponse<String>> handleBulkheadFullException(
+            BulkheadFullException ex, WebRequest request) {
+        
+        log.warn("Upstream bulkhead full: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(ApiResponse.error("Service is busy, please retry shortly: " + ex.getMessage()));
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<String>> handleRuntimeException(
             RuntimeException ex, WebRequest request) {
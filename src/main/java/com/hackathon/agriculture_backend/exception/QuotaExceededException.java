@@ -0,0 +1,21 @@
+package com.hackathon.agriculture_backend.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an outbound call cannot get an upstream quota permit within its lane's
+ * wait limit. {@link #getRetryAfter()} is the estimated time until a permit frees up.
+ */
+public class QuotaExceededException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public QuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
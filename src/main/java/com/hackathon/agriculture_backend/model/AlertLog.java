@@ -1,5 +1,6 @@
 package com.hackathon.agriculture_backend.model;
 
+import com.hackathon.agriculture_backend.service.ChatContextInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -9,7 +10,8 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "alert_logs")
+@Table(name = "alert_logs", indexes = @Index(name = "idx_alert_logs_farmer_created_id", columnList = "farmer_id, created_at, id"))
+@EntityListeners(ChatContextInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,46 @@
+package com.hackathon.agriculture_backend.model;
+
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A Plant.id or Insect.id result for an uploaded image, kept by {@code DetectionCache} so
+ * the same or a near-identical photo does not cost another call. Found by the image's SHA-256
+ * or, within a Hamming distance, by its perceptual hash.
+ */
+@Entity
+@Table(name = "detection_cache",
+        uniqueConstraints = @UniqueConstraint(name = "uk_detection_cache_image", columnNames = {"upstream", "image_sha256"}),
+        indexes = @Index(name = "idx_detection_cache_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedDetection {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "upstream", nullable = false, length = 16)
+    private Upstream upstream;
+
+    @Column(name = "image_sha256", nullable = false, length = 64)
+    private String imageSha256;
+
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
+    @Column(name = "result_json", nullable = false, columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -10,12 +10,14 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "chats")
+@Table(name = "chats", indexes = @Index(name = "idx_chats_farmer_created_id", columnList = "farmer_id, created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Chat {
     
+    // New rows get their id from ChatWriteBehindQueue (chat_id_seq); the identity default
+    // only covers rows written before it
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -45,8 +47,14 @@ public class Chat {
     @Column(name = "ai_response", nullable = false, columnDefinition = "TEXT")
     private String aiResponse;
     
-    @Column(name = "context_data", columnDefinition = "TEXT")
-    private String contextData; // JSON string containing farmer's records for context
+    // Farmer's records the answer was based on. Stored once per distinct text in
+    // chat_context_blobs and referenced by hash; only loaded on request (ChatContextStore)
+    @Column(name = "context_hash", length = 64)
+    @JsonIgnore
+    private String contextHash;
+    
+    @Transient
+    private String contextData;
     
     @Column(name = "message_type")
     @Enumerated(EnumType.STRING)
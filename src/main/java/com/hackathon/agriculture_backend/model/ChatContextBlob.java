@@ -0,0 +1,36 @@
+package com.hackathon.agriculture_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Chat context text stored once per distinct content and referenced from {@link Chat} by
+ * its SHA-256 hash. Written and read by {@code ChatContextStore}; large payloads are
+ * deflate-compressed.
+ */
+@Entity
+@Table(name = "chat_context_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatContextBlob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "content", nullable = false, length = 1_048_576)
+    private byte[] content;
+
+    @Column(name = "compressed", nullable = false)
+    private Boolean compressed;
+
+    @Column(name = "original_length", nullable = false)
+    private Integer originalLength;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
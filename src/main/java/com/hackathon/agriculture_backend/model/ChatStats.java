@@ -0,0 +1,46 @@
+package com.hackathon.agriculture_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Running chat tallies for one farmer and message type, kept up to date by
+ * {@code ChatStatsService} as chats are written and rated.
+ */
+@Entity
+@Table(name = "chat_stats")
+@IdClass(ChatStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStats {
+
+    @Id
+    @Column(name = "farmer_id")
+    private Long farmerId;
+
+    @Id
+    @Column(name = "message_type", length = 32)
+    @Enumerated(EnumType.STRING)
+    private Chat.MessageType messageType;
+
+    @Column(name = "chat_count", nullable = false)
+    private Long chatCount;
+
+    @Column(name = "helpful_count", nullable = false)
+    private Long helpfulCount;
+
+    @Column(name = "unhelpful_count", nullable = false)
+    private Long unhelpfulCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long farmerId;
+        private Chat.MessageType messageType;
+    }
+}
@@ -0,0 +1,45 @@
+package com.hackathon.agriculture_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A farmer's advice for one day, generated overnight by {@code DailyAdviceService} from
+ * that day's irrigation recommendation and recent alerts, and served to the chat as is.
+ */
+@Entity
+@Table(name = "daily_advice",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_advice_farmer_date", columnNames = {"farmer_id", "advice_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyAdvice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Not in Farmer's cascaded collections, so the database removes it with the farmer
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "farmer_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Farmer farmer;
+
+    @Column(name = "advice_date", nullable = false)
+    private LocalDate adviceDate;
+
+    @Column(name = "recommendation_id")
+    private Long recommendationId;
+
+    @Column(name = "advice", nullable = false, columnDefinition = "TEXT")
+    private String advice;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "disease_detection_history")
+@Table(name = "disease_detection_history",
+        indexes = @Index(name = "idx_disease_history_user_detected_id", columnList = "user_id, detected_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,6 @@
 package com.hackathon.agriculture_backend.model;
 
+import com.hackathon.agriculture_backend.service.ChatContextInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -12,6 +13,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "farmers")
+@EntityListeners(ChatContextInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
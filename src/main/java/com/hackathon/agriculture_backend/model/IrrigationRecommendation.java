@@ -1,5 +1,6 @@
 package com.hackathon.agriculture_backend.model;
 
+import com.hackathon.agriculture_backend.service.ChatContextInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -12,7 +13,9 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Table(name = "irrigation_recommendations")
+@Table(name = "irrigation_recommendations",
+        indexes = @Index(name = "idx_irrigation_recommendations_farmer_date_id", columnList = "farmer_id, recommendation_date, id"))
+@EntityListeners(ChatContextInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
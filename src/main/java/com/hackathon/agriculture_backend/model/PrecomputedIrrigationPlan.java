@@ -0,0 +1,40 @@
+package com.hackathon.agriculture_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.Instant;
+
+/**
+ * Rendered 7-day plan for a default {@link SavedIrrigationPlan}, produced by the nightly
+ * precomputation job so that reads do not have to regenerate it.
+ */
+@Entity
+@Table(name = "precomputed_irrigation_plans")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrecomputedIrrigationPlan {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Removed with its plan, including when the farmer's cascade deletes the saved plans
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "saved_plan_id", nullable = false, unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private SavedIrrigationPlan savedPlan;
+
+    @Column(name = "location_cell", nullable = false, length = 32)
+    private String locationCell;
+
+    @Column(name = "plan_json", nullable = false, columnDefinition = "TEXT")
+    private String planJson;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
@@ -1,5 +1,6 @@
 package com.hackathon.agriculture_backend.model;
 
+import com.hackathon.agriculture_backend.service.ChatContextInvalidationListener;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "saved_irrigation_plans")
+@EntityListeners(ChatContextInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
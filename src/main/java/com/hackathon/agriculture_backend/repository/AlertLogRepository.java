@@ -1,6 +1,7 @@
 package com.hackathon.agriculture_backend.repository;
 
 import com.hackathon.agriculture_backend.model.AlertLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +15,8 @@ public interface AlertLogRepository extends JpaRepository<AlertLog, Long> {
     
     List<AlertLog> findByFarmerIdOrderByCreatedAtDesc(Long farmerId);
     
+    List<AlertSummary> findSummariesByFarmerIdOrderByCreatedAtDesc(Long farmerId, Limit limit);
+    
     List<AlertLog> findByStatus(String status);
     
     List<AlertLog> findByType(String type);
@@ -38,6 +41,26 @@ public interface AlertLogRepository extends JpaRepository<AlertLog, Long> {
     Long countSuccessfulAlertsByFarmerAndDateRange(@Param("farmerId") Long farmerId,
                                                   @Param("startTime") Instant startTime,
                                                   @Param("endTime") Instant endTime);
+    
+    @Query("SELECT al FROM AlertLog al WHERE al.farmer.id = :farmerId ORDER BY al.createdAt DESC, al.id DESC")
+    List<AlertLog> findFirstPage(@Param("farmerId") Long farmerId, Limit limit);
+    
+    // Keyset page after (createdAt, id); served by idx_alert_logs_farmer_created_id
+    @Query("SELECT al FROM AlertLog al WHERE al.farmer.id = :farmerId " +
+           "AND (al.createdAt, al.id) < (:createdAt, :id) " +
+           "ORDER BY al.createdAt DESC, al.id DESC")
+    List<AlertLog> findPageAfter(@Param("farmerId") Long farmerId,
+                                 @Param("createdAt") Instant createdAt,
+                                 @Param("id") Long id,
+                                 Limit limit);
+    
+    interface AlertSummary {
+        String getType();
+        String getStatus();
+        String getMessage();
+        Instant getCreatedAt();
+        Instant getSentAt();
+    }
 }
 
 
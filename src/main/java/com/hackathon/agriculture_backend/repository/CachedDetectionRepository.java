@@ -0,0 +1,28 @@
+package com.hackathon.agriculture_backend.repository;
+
+import com.hackathon.agriculture_backend.model.CachedDetection;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CachedDetectionRepository extends JpaRepository<CachedDetection, Long> {
+
+    Optional<CachedDetection> findByUpstreamAndImageSha256(Upstream upstream, String imageSha256);
+
+    List<CachedDetection> findByUpstreamAndExpiresAtAfterOrderByCreatedAtDesc(Upstream upstream, Instant now, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CachedDetection d WHERE d.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
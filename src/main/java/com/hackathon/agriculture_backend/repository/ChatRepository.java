@@ -1,6 +1,7 @@
 package com.hackathon.agriculture_backend.repository;
 
 import com.hackathon.agriculture_backend.model.Chat;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -28,21 +29,18 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
                                         @Param("startDate") Instant startDate, 
                                         @Param("endDate") Instant endDate);
     
-    @Query("SELECT c FROM Chat c WHERE c.farmer.id = :farmerId AND (LOWER(c.userMessage) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(c.aiResponse) LIKE LOWER(CONCAT('%', :query, '%'))) ORDER BY c.createdAt DESC")
-    List<Chat> findByFarmerIdAndSearchQuery(@Param("farmerId") Long farmerId, @Param("query") String query);
+    @Query("SELECT DISTINCT c.farmer.id FROM Chat c WHERE c.createdAt >= :since")
+    List<Long> findFarmerIdsActiveSince(@Param("since") Instant since);
     
-    @Query("SELECT c.messageType, COUNT(c) FROM Chat c WHERE c.farmer.id = :farmerId GROUP BY c.messageType")
-    List<Object[]> getMessageTypeStatsByFarmerId(@Param("farmerId") Long farmerId);
+    @Query("SELECT c FROM Chat c WHERE c.farmer.id = :farmerId ORDER BY c.createdAt DESC, c.id DESC")
+    List<Chat> findRecentChatsByFarmerId(@Param("farmerId") Long farmerId, Limit limit);
     
-    @Query("SELECT AVG(CASE WHEN c.isHelpful = true THEN 1.0 ELSE 0.0 END) FROM Chat c WHERE c.farmer.id = :farmerId AND c.isHelpful IS NOT NULL")
-    Double getAverageHelpfulnessByFarmerId(@Param("farmerId") Long farmerId);
-    
-    @Query("SELECT COUNT(c) FROM Chat c WHERE c.farmer.id = :farmerId")
-    Long countByFarmerId(@Param("farmerId") Long farmerId);
-    
-    @Query("SELECT COUNT(c) FROM Chat c WHERE c.farmer.id = :farmerId AND c.messageType = :messageType")
-    Long countByFarmerIdAndMessageType(@Param("farmerId") Long farmerId, @Param("messageType") Chat.MessageType messageType);
-    
-    @Query("SELECT c FROM Chat c WHERE c.farmer.id = :farmerId ORDER BY c.createdAt DESC LIMIT :limit")
-    List<Chat> findRecentChatsByFarmerId(@Param("farmerId") Long farmerId, @Param("limit") int limit);
+    // Keyset page after (createdAt, id); served by idx_chats_farmer_created_id
+    @Query("SELECT c FROM Chat c WHERE c.farmer.id = :farmerId " +
+           "AND (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Chat> findPageAfter(@Param("farmerId") Long farmerId,
+                             @Param("createdAt") Instant createdAt,
+                             @Param("id") Long id,
+                             Limit limit);
 }
@@ -0,0 +1,26 @@
+package com.hackathon.agriculture_backend.repository;
+
+import com.hackathon.agriculture_backend.model.DailyAdvice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailyAdviceRepository extends JpaRepository<DailyAdvice, Long> {
+
+    @Query("SELECT d.advice FROM DailyAdvice d WHERE d.farmer.id = :farmerId AND d.adviceDate = :date")
+    Optional<String> findAdvice(@Param("farmerId") Long farmerId, @Param("date") LocalDate date);
+
+    boolean existsByFarmerIdAndAdviceDate(Long farmerId, LocalDate adviceDate);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyAdvice d WHERE d.adviceDate < :date")
+    int deleteOlderThan(@Param("date") LocalDate date);
+}
@@ -1,11 +1,13 @@
 package com.hackathon.agriculture_backend.repository;
 
 import com.hackathon.agriculture_backend.model.DiseaseDetectionHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -18,4 +20,16 @@ public interface DiseaseDetectionHistoryRepository extends JpaRepository<Disease
     
     @Query("SELECT COUNT(d) FROM DiseaseDetectionHistory d WHERE d.userId = :userId")
     Long countByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT d FROM DiseaseDetectionHistory d WHERE d.userId = :userId ORDER BY d.detectedAt DESC, d.id DESC")
+    List<DiseaseDetectionHistory> findFirstPage(@Param("userId") Long userId, Limit limit);
+    
+    // Keyset page after (detectedAt, id); served by idx_disease_history_user_detected_id
+    @Query("SELECT d FROM DiseaseDetectionHistory d WHERE d.userId = :userId " +
+           "AND (d.detectedAt, d.id) < (:detectedAt, :id) " +
+           "ORDER BY d.detectedAt DESC, d.id DESC")
+    List<DiseaseDetectionHistory> findPageAfter(@Param("userId") Long userId,
+                                                @Param("detectedAt") LocalDateTime detectedAt,
+                                                @Param("id") Long id,
+                                                Limit limit);
 }
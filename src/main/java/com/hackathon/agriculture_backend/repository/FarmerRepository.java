@@ -14,6 +14,8 @@ public interface FarmerRepository extends JpaRepository<Farmer, Long> {
     
     Optional<Farmer> findByPhone(String phone);
     
+    Optional<FarmerProfile> findProfileById(Long id);
+    
     Optional<Farmer> findByEmail(String email);
     
     List<Farmer> findBySmsOptInTrue();
@@ -33,6 +35,18 @@ public interface FarmerRepository extends JpaRepository<Farmer, Long> {
     
     @Query("SELECT f.preferredCrop, COUNT(f) FROM Farmer f GROUP BY f.preferredCrop ORDER BY COUNT(f) DESC")
     List<Object[]> findCropDistribution();
+    
+    /**
+     * Profile columns only, for prompt building without loading the farmer's collections.
+     */
+    interface FarmerProfile {
+        Long getId();
+        String getName();
+        String getPhone();
+        String getLocationName();
+        String getPreferredCrop();
+        Boolean getSmsOptIn();
+    }
 }
 
 
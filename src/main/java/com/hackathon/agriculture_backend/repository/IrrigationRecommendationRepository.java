@@ -1,6 +1,7 @@
 package com.hackathon.agriculture_backend.repository;
 
 import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +15,8 @@ public interface IrrigationRecommendationRepository extends JpaRepository<Irriga
     
     List<IrrigationRecommendation> findByFarmerIdOrderByDateDesc(Long farmerId);
     
+    List<RecommendationSummary> findSummariesByFarmerIdOrderByDateDesc(Long farmerId, Limit limit);
+    
     List<IrrigationRecommendation> findByFarmerIdAndDateBetween(Long farmerId, LocalDate startDate, LocalDate endDate);
     
     List<IrrigationRecommendation> findByDate(LocalDate date);
@@ -46,6 +49,28 @@ public interface IrrigationRecommendationRepository extends JpaRepository<Irriga
     @Query("SELECT COUNT(DISTINCT ir.farmer.id) FROM IrrigationRecommendation ir WHERE ir.date BETWEEN :startDate AND :endDate")
     Long countActiveFarmersByDateRange(@Param("startDate") LocalDate startDate, 
                                       @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT ir FROM IrrigationRecommendation ir WHERE ir.farmer.id = :farmerId ORDER BY ir.date DESC, ir.id DESC")
+    List<IrrigationRecommendation> findFirstPage(@Param("farmerId") Long farmerId, Limit limit);
+    
+    // Keyset page after (date, id); served by idx_irrigation_recommendations_farmer_date_id
+    @Query("SELECT ir FROM IrrigationRecommendation ir WHERE ir.farmer.id = :farmerId " +
+           "AND (ir.date, ir.id) < (:date, :id) " +
+           "ORDER BY ir.date DESC, ir.id DESC")
+    List<IrrigationRecommendation> findPageAfter(@Param("farmerId") Long farmerId,
+                                                 @Param("date") LocalDate date,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+    
+    interface RecommendationSummary {
+        LocalDate getDate();
+        String getRecommendation();
+        Double getTempC();
+        Double getHumidity();
+        Double getRainfallMm();
+        Double getWaterSavedLiters();
+        String getExplanation();
+    }
 }
 
 
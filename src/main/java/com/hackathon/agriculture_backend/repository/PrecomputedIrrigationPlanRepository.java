@@ -0,0 +1,25 @@
+package com.hackathon.agriculture_backend.repository;
+
+import com.hackathon.agriculture_backend.model.PrecomputedIrrigationPlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface PrecomputedIrrigationPlanRepository extends JpaRepository<PrecomputedIrrigationPlan, Long> {
+
+    @Query("SELECT p FROM PrecomputedIrrigationPlan p JOIN FETCH p.savedPlan s WHERE s.farmer.id = :farmerId AND s.isDefault = true")
+    Optional<PrecomputedIrrigationPlan> findDefaultByFarmerId(@Param("farmerId") Long farmerId);
+
+    Optional<PrecomputedIrrigationPlan> findBySavedPlanId(Long savedPlanId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PrecomputedIrrigationPlan p WHERE p.savedPlan.id = :savedPlanId")
+    void deleteBySavedPlanId(@Param("savedPlanId") Long savedPlanId);
+}
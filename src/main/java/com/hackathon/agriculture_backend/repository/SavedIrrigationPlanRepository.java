@@ -1,11 +1,13 @@
 package com.hackathon.agriculture_backend.repository;
 
 import com.hackathon.agriculture_backend.model.SavedIrrigationPlan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +16,28 @@ public interface SavedIrrigationPlanRepository extends JpaRepository<SavedIrriga
     
     List<SavedIrrigationPlan> findByFarmerIdOrderByCreatedAtDesc(Long farmerId);
     
+    List<PlanSummary> findSummariesByFarmerIdOrderByCreatedAtDesc(Long farmerId, Limit limit);
+    
     Optional<SavedIrrigationPlan> findByFarmerIdAndId(Long farmerId, Long id);
     
     Optional<SavedIrrigationPlan> findByFarmerIdAndIsDefaultTrue(Long farmerId);
     
+    @Query("SELECT s FROM SavedIrrigationPlan s JOIN FETCH s.farmer WHERE s.isDefault = true")
+    List<SavedIrrigationPlan> findAllDefaultPlans();
+    
     @Query("SELECT s FROM SavedIrrigationPlan s WHERE s.farmer.id = :farmerId AND s.planName = :planName")
     Optional<SavedIrrigationPlan> findByFarmerIdAndPlanName(@Param("farmerId") Long farmerId, @Param("planName") String planName);
     
     void deleteByFarmerIdAndId(Long farmerId, Long id);
+    
+    interface PlanSummary {
+        String getPlanName();
+        String getCropType();
+        Double getArea();
+        String getIrrigationType();
+        String getSoilType();
+        String getWaterBudget();
+        Boolean getIsDefault();
+        LocalDateTime getCreatedAt();
+    }
 }
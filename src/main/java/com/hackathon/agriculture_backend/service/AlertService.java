@@ -1,9 +1,11 @@
 package com.hackathon.agriculture_backend.service;
 
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.model.AlertLog;
 import com.hackathon.agriculture_backend.model.Farmer;
 import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
 import com.hackathon.agriculture_backend.repository.AlertLogRepository;
+import com.hackathon.agriculture_backend.util.KeysetCursor;
 // Twilio imports commented out - will be added later
 // import com.twilio.Twilio;
 // import com.twilio.rest.api.v2010.account.Message;
@@ -11,6 +13,7 @@ import com.hackathon.agriculture_backend.repository.AlertLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -121,6 +124,16 @@ public class AlertService {
         return alertLogRepository.findByFarmerIdOrderByCreatedAtDesc(farmerId);
     }
     
+    public CursorPage<AlertLog> getAlertsByFarmer(Long farmerId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<AlertLog> rows = after == null
+                ? alertLogRepository.findFirstPage(farmerId, limit)
+                : alertLogRepository.findPageAfter(farmerId, after.at(), after.id(), limit);
+        return CursorPage.of(rows, pageSize, alert -> KeysetCursor.of(alert.getCreatedAt(), alert.getId()));
+    }
+    
     public List<AlertLog> getAlertsByStatus(String status) {
         return alertLogRepository.findByStatus(status);
     }
@@ -0,0 +1,152 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository.AlertSummary;
+import com.hackathon.agriculture_backend.repository.FarmerRepository;
+import com.hackathon.agriculture_backend.repository.FarmerRepository.FarmerProfile;
+import com.hackathon.agriculture_backend.repository.IrrigationRecommendationRepository;
+import com.hackathon.agriculture_backend.repository.IrrigationRecommendationRepository.RecommendationSummary;
+import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository;
+import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository.PlanSummary;
+import com.hackathon.agriculture_backend.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads what the chat prompt needs about a farmer: the profile plus the latest few
+ * recommendations, saved plans and alerts. Each part is a bounded top-N projection query,
+ * and the four run in parallel on the {@link DatabaseExecutor} without blocking the caller.
+ *
+ * <p>Snapshots are cached per farmer and dropped by {@link ChatContextInvalidationListener}
+ * whenever the farmer or one of their recommendations, plans or alerts is written.
+ */
+@Component
+@Slf4j
+public class ChatContextAssembler {
+
+    public record Snapshot(FarmerProfile farmer,
+                           List<IrrigationRecommendation> recommendations,
+                           List<PlanSummary> plans,
+                           List<AlertSummary> alerts) {
+    }
+
+    private final FarmerRepository farmerRepository;
+    private final IrrigationRecommendationRepository recommendationRepository;
+    private final SavedIrrigationPlanRepository savedIrrigationPlanRepository;
+    private final AlertLogRepository alertLogRepository;
+    private final DatabaseExecutor databaseExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final BoundedTtlCache<Long, Snapshot> snapshots;
+    // Bumped on every invalidation; a load that overlapped one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    private final int recommendationLimit;
+    private final int planLimit;
+    private final int alertLimit;
+
+    public ChatContextAssembler(FarmerRepository farmerRepository,
+                                IrrigationRecommendationRepository recommendationRepository,
+                                SavedIrrigationPlanRepository savedIrrigationPlanRepository,
+                                AlertLogRepository alertLogRepository,
+                                DatabaseExecutor databaseExecutor,
+                                MeterRegistry meterRegistry,
+                                Environment environment) {
+        this.farmerRepository = farmerRepository;
+        this.recommendationRepository = recommendationRepository;
+        this.savedIrrigationPlanRepository = savedIrrigationPlanRepository;
+        this.alertLogRepository = alertLogRepository;
+        this.databaseExecutor = databaseExecutor;
+        this.meterRegistry = meterRegistry;
+
+        this.snapshots = new BoundedTtlCache<>(
+                environment.getProperty("app.chat-context.cache.max-entries", Integer.class, 2000),
+                TimeUnit.MINUTES.toMillis(environment.getProperty("app.chat-context.cache.ttl-minutes", Long.class, 15L)));
+        this.recommendationLimit = environment.getProperty("app.chat-context.recommendations", Integer.class, 5);
+        this.planLimit = environment.getProperty("app.chat-context.plans", Integer.class, 5);
+        this.alertLimit = environment.getProperty("app.chat-context.alerts", Integer.class, 10);
+    }
+
+    /**
+     * The cached snapshot of the farmer, if any; never loads one.
+     */
+    public Optional<Snapshot> cachedSnapshot(Long farmerId) {
+        return snapshots.get(farmerId);
+    }
+
+    /**
+     * Context snapshot for the farmer, or empty when the farmer does not exist.
+     */
+    public CompletableFuture<Optional<Snapshot>> snapshot(Long farmerId) {
+        Optional<Snapshot> cached = snapshots.get(farmerId);
+        if (cached.isPresent()) {
+            meterRegistry.counter("chat.context.snapshot", "result", "hit").increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        meterRegistry.counter("chat.context.snapshot", "result", "miss").increment();
+
+        long version = invalidations.get();
+        CompletableFuture<Optional<FarmerProfile>> farmer = databaseExecutor.supplyAsync(
+                () -> farmerRepository.findProfileById(farmerId));
+        CompletableFuture<List<IrrigationRecommendation>> recommendations = databaseExecutor.supplyAsync(
+                () -> recommendationRepository.findSummariesByFarmerIdOrderByDateDesc(farmerId, Limit.of(recommendationLimit))
+                        .stream().map(ChatContextAssembler::toRecommendation).toList());
+        CompletableFuture<List<PlanSummary>> plans = databaseExecutor.supplyAsync(
+                () -> savedIrrigationPlanRepository.findSummariesByFarmerIdOrderByCreatedAtDesc(farmerId, Limit.of(planLimit)));
+        CompletableFuture<List<AlertSummary>> alerts = databaseExecutor.supplyAsync(
+                () -> alertLogRepository.findSummariesByFarmerIdOrderByCreatedAtDesc(farmerId, Limit.of(alertLimit)));
+
+        return CompletableFuture.allOf(farmer, recommendations, plans, alerts).thenApply(ignored -> {
+            if (farmer.join().isEmpty()) {
+                return Optional.empty();
+            }
+            Snapshot snapshot = new Snapshot(farmer.join().get(), recommendations.join(), plans.join(), alerts.join());
+            if (invalidations.get() == version) {
+                snapshots.put(farmerId, snapshot);
+            }
+            return Optional.of(snapshot);
+        });
+    }
+
+    /**
+     * Drops the farmer's snapshot now and, inside a transaction, again after commit so a
+     * concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void invalidate(Long farmerId) {
+        invalidations.incrementAndGet();
+        snapshots.remove(farmerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidations.incrementAndGet();
+                    snapshots.remove(farmerId);
+                }
+            });
+        }
+    }
+
+    // GeminiService builds prompts from recommendation entities; these are transient copies
+    private static IrrigationRecommendation toRecommendation(RecommendationSummary summary) {
+        IrrigationRecommendation recommendation = new IrrigationRecommendation();
+        recommendation.setDate(summary.getDate());
+        recommendation.setRecommendation(summary.getRecommendation());
+        recommendation.setTempC(summary.getTempC());
+        recommendation.setHumidity(summary.getHumidity());
+        recommendation.setRainfallMm(summary.getRainfallMm());
+        recommendation.setWaterSavedLiters(summary.getWaterSavedLiters());
+        recommendation.setExplanation(summary.getExplanation());
+        return recommendation;
+    }
+}
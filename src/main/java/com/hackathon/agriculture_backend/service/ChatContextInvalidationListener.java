@@ -0,0 +1,50 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.AlertLog;
+import com.hackathon.agriculture_backend.model.Farmer;
+import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import com.hackathon.agriculture_backend.model.SavedIrrigationPlan;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA listener on the entities that feed the chat context; any write drops the owning
+ * farmer's cached snapshot. Instantiated by Hibernate through Spring, so the assembler is
+ * looked up lazily to stay out of the entity manager factory's own startup.
+ */
+public class ChatContextInvalidationListener {
+
+    private final ObjectProvider<ChatContextAssembler> assembler;
+
+    public ChatContextInvalidationListener(ObjectProvider<ChatContextAssembler> assembler) {
+        this.assembler = assembler;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        Long farmerId = farmerIdOf(entity);
+        if (farmerId != null) {
+            assembler.ifAvailable(contextAssembler -> contextAssembler.invalidate(farmerId));
+        }
+    }
+
+    private static Long farmerIdOf(Object entity) {
+        Farmer farmer;
+        if (entity instanceof Farmer f) {
+            return f.getId();
+        } else if (entity instanceof IrrigationRecommendation recommendation) {
+            farmer = recommendation.getFarmer();
+        } else if (entity instanceof SavedIrrigationPlan plan) {
+            farmer = plan.getFarmer();
+        } else if (entity instanceof AlertLog alert) {
+            farmer = alert.getFarmer();
+        } else {
+            return null;
+        }
+        return farmer != null ? farmer.getId() : null;
+    }
+}
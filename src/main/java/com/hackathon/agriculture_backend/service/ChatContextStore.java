@@ -0,0 +1,168 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.ChatContextBlob;
+import com.hackathon.agriculture_backend.util.BoundedTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Content-addressed storage for chat context text ({@link ChatContextBlob}).
+ *
+ * <p>Consecutive chats of a farmer almost always carry the same context, so each distinct
+ * text is written once under its SHA-256 and chats keep only the hash. Texts of at least
+ * {@code app.chat-context.compress-min-bytes} are deflated when that makes them smaller.
+ * Recently stored hashes are remembered so repeats cost no round trip.
+ */
+@Component
+@Slf4j
+public class ChatContextStore {
+
+    private static final String INSERT = "insert into chat_context_blobs "
+            + "(hash, content, compressed, original_length, created_at) values (?, ?, ?, ?, ?)";
+    private static final String SELECT = "select content, compressed, original_length from chat_context_blobs where hash = ?";
+    // Blobs are immutable and never deleted, so cached entries do not need to expire
+    private static final long NO_EXPIRY = Long.MAX_VALUE / 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int compressMinBytes;
+    private final BoundedTtlCache<String, Boolean> storedHashes;
+    private final BoundedTtlCache<String, String> contents;
+
+    private final Counter stored;
+    private final Counter deduplicated;
+
+    public ChatContextStore(JdbcTemplate jdbcTemplate, Environment environment, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compressMinBytes = environment.getProperty("app.chat-context.compress-min-bytes", Integer.class, 512);
+        this.storedHashes = new BoundedTtlCache<>(
+                environment.getProperty("app.chat-context.known-hashes", Integer.class, 10_000), NO_EXPIRY);
+        this.contents = new BoundedTtlCache<>(
+                environment.getProperty("app.chat-context.read-cache", Integer.class, 256), NO_EXPIRY);
+
+        this.stored = Counter.builder("chat.context.blobs")
+                .tag("result", "stored")
+                .description("Chat context texts by whether they needed a new blob")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("chat.context.blobs")
+                .tag("result", "deduplicated")
+                .description("Chat context texts by whether they needed a new blob")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the text unless an identical one already is.
+     *
+     * @return the hash to reference it by, or {@code null} for a null text
+     */
+    public String store(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] plain = content.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(plain);
+        if (storedHashes.get(hash).isPresent()) {
+            deduplicated.increment();
+            return hash;
+        }
+
+        byte[] compressed = plain.length >= compressMinBytes ? deflate(plain) : null;
+        boolean useCompressed = compressed != null && compressed.length < plain.length;
+        try {
+            jdbcTemplate.update(INSERT, hash, useCompressed ? compressed : plain, useCompressed, plain.length,
+                    Timestamp.from(Instant.now()));
+            stored.increment();
+        } catch (DuplicateKeyException e) {
+            // Stored earlier, before this instance remembered it
+            deduplicated.increment();
+        }
+        storedHashes.put(hash, Boolean.TRUE);
+        return hash;
+    }
+
+    public Optional<String> load(String hash) {
+        if (hash == null) {
+            return Optional.empty();
+        }
+        Optional<String> cached = contents.get(hash);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        List<String> rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+            byte[] content = rs.getBytes("content");
+            byte[] plain = rs.getBoolean("compressed") ? inflate(content, rs.getInt("original_length")) : content;
+            return new String(plain, StandardCharsets.UTF_8);
+        }, hash);
+        if (rows.isEmpty()) {
+            log.warn("Chat context blob {} not found", hash);
+            return Optional.empty();
+        }
+        contents.put(hash, rows.get(0));
+        return Optional.of(rows.get(0));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(plain);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int originalLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] plain = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(plain, length, originalLength - length);
+                if (read == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != originalLength) {
+                throw new IllegalStateException("Chat context blob is truncated");
+            }
+            return plain;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Chat context blob is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.dto.ChatSearchHit;
+import com.hackathon.agriculture_backend.model.Chat;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text search over a farmer's chat history. Every query word must match, each as a
+ * prefix ("irrig" finds "irrigation"), and hits are ranked by relevance, newest first on ties.
+ *
+ * <p>{@code app.chat-search.engine=postgres} uses a tsvector column with a GIN index; the
+ * default is an in-process inverted index for H2 and tests.
+ */
+public interface ChatSearchService {
+    
+    Pattern WORD_BREAKS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    Page<ChatSearchHit> search(Long farmerId, String query, Pageable pageable);
+    
+    /**
+     * Called with chats once they are committed, for engines that maintain their own index.
+     */
+    default void indexed(List<Chat> chats) {
+    }
+    
+    /**
+     * Lower-cased query words; punctuation and operators are dropped.
+     */
+    static List<String> terms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        return Arrays.stream(WORD_BREAKS.split(query.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
@@ -1,27 +1,44 @@
 package com.hackathon.agriculture_backend.service;
 
-import com.hackathon.agriculture_backend.dto.FarmerDto;
+import com.hackathon.agriculture_backend.dto.ChatSearchHit;
+import com.hackathon.agriculture_backend.dto.ChatStreamEvent;
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.model.Chat;
 import com.hackathon.agriculture_backend.model.Farmer;
 import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
 import com.hackathon.agriculture_backend.repository.ChatRepository;
-import com.hackathon.agriculture_backend.repository.IrrigationRecommendationRepository;
-import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository;
-import com.hackathon.agriculture_backend.repository.AlertLogRepository;
-import com.hackathon.agriculture_backend.model.SavedIrrigationPlan;
-import com.hackathon.agriculture_backend.model.AlertLog;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository.AlertSummary;
+import com.hackathon.agriculture_backend.repository.FarmerRepository.FarmerProfile;
+import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository.PlanSummary;
+import com.hackathon.agriculture_backend.util.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,112 +49,239 @@ public class ChatService {
     
     private final ChatRepository chatRepository;
     private final GeminiService geminiService;
-    private final FarmerService farmerService;
     private final RecommendationService recommendationService;
     private final WeatherService weatherService;
-    private final IrrigationRecommendationRepository recommendationRepository;
-    private final SavedIrrigationPlanRepository savedIrrigationPlanRepository;
-    private final AlertLogRepository alertLogRepository;
+    private final ChatContextAssembler chatContextAssembler;
+    private final PromptBuilder promptBuilder;
+    private final ChatTopicClassifier topicClassifier;
+    private final ChatWriteBehindQueue chatWriter;
+    private final ChatSearchService chatSearchService;
+    private final ChatContextStore chatContextStore;
+    private final ChatStatsService chatStatsService;
+    private final DailyAdviceService dailyAdviceService;
+    private final DatabaseExecutor databaseExecutor;
     
+    @Value("${app.prompt.extra-context-token-budget:300}")
+    private int extraContextTokenBudget;
+    @Value("${app.chat-search.max-results:50}")
+    private int searchResultLimit;
+    private final MeterRegistry meterRegistry;
+    
+    // No surrounding transaction: every repository call runs on the database executor, so the
+    // calling (servlet) thread returns as soon as the pipeline is assembled
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CompletableFuture<Chat> sendMessage(Long farmerId, String userMessage, String messageType, String userName) {
         log.info("Processing chat message from farmer ID: {}", farmerId);
         
+        if (dailyAdviceService.isDailyAdviceQuestion(userMessage)) {
+            return findDailyAdvice(farmerId, userMessage, messageType)
+                    .thenCompose(advice -> advice
+                            .map(CompletableFuture::completedFuture)
+                            .orElseGet(() -> answer(farmerId, userMessage, messageType, userName)));
+        }
+        return answer(farmerId, userMessage, messageType, userName);
+    }
+    
+    private CompletableFuture<Chat> answer(Long farmerId, String userMessage, String messageType, String userName) {
         // Content filtering - check if message is plant/agriculture related
         if (!isAgricultureRelated(userMessage)) {
             log.info("Non-agriculture related message detected, returning filtered response");
-            return CompletableFuture.completedFuture(createFilteredResponse(farmerId, userMessage, messageType));
+            return createFilteredResponse(farmerId, userMessage, messageType);
         }
         
-        try {
-            // Get farmer information
-            Optional<FarmerDto> farmerDtoOpt = farmerService.getFarmerById(farmerId);
-            if (farmerDtoOpt.isEmpty()) {
-                log.error("Farmer not found with ID: {}, this should not happen if farmer exists", farmerId);
-                throw new RuntimeException("Farmer not found with ID: " + farmerId + ". Please ensure the farmer exists in the database.");
-            }
+        // A context failure is answered with an apology; a Gemini failure fails the future so
+        // the caller can fall back to another responder
+        return loadChatContext(farmerId, userName, userMessage)
+                .handle((context, error) -> error == null
+                        ? respond(context, userMessage, messageType)
+                        : CompletableFuture.completedFuture(createErrorResponse(farmerId, userMessage, messageType, unwrap(error))))
+                .thenCompose(Function.identity());
+    }
+    
+    private CompletableFuture<Chat> respond(ChatContext context, String userMessage, String messageType) {
+        Farmer farmer = context.farmer();
+        String contextData = context.contextData();
+        
+        // Generate AI response using Gemini
+        return geminiService.generatePersonalizedResponse(
+                farmer, 
+                userMessage, 
+                context.recentRecommendations(), 
+                context.weatherData(), 
+                contextData
+        ).thenApply(aiResponse -> {
+            Chat chat = new Chat();
+            chat.setFarmer(farmer);
+            chat.setUserMessage(userMessage);
+            chat.setAiResponse(aiResponse);
+            chat.setContextData(contextData);
+            chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
             
-            // Convert DTO to Entity for internal use
-            FarmerDto farmerDto = farmerDtoOpt.get();
+            try {
+                // Queue for the database; the id is assigned right away
+                return chatWriter.enqueue(chat);
+            } catch (Exception e) {
+                log.error("Error saving chat to database: {}", e.getMessage());
+                // Return chat object without saving to database
+                chat.setId(1L); // Mock ID
+                return chat;
+            }
+        });
+    }
+    
+    private Chat createErrorResponse(Long farmerId, String userMessage, String messageType, Throwable e) {
+        log.error("Error processing chat message: {}", e.getMessage());
+        // Return a proper error response instead of failing
+        Chat errorChat = new Chat();
+        errorChat.setId(1L);
+        errorChat.setUserMessage(userMessage);
+        errorChat.setAiResponse("I apologize, but I'm having trouble processing your request right now. Please try again later.");
+        errorChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+        errorChat.setContextData("Error response due to: " + e.getMessage());
+        
+        // Create a mock farmer for error response
+        Farmer mockFarmer = new Farmer();
+        mockFarmer.setId(farmerId);
+        mockFarmer.setName("Error Response");
+        mockFarmer.setLocationName("Unknown");
+        mockFarmer.setPreferredCrop("Unknown");
+        errorChat.setFarmer(mockFarmer);
+        
+        return errorChat;
+    }
+    
+    /**
+     * Streams the AI answer as it is generated and persists the complete chat once the
+     * stream finishes. Cancelling the subscription (client disconnect) cancels the upstream
+     * call and nothing is saved.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<ChatStreamEvent> streamMessage(Long farmerId, String userMessage, String messageType, String userName) {
+        log.info("Streaming chat message from farmer ID: {}", farmerId);
+        
+        if (dailyAdviceService.isDailyAdviceQuestion(userMessage)) {
+            return Mono.fromFuture(() -> findDailyAdvice(farmerId, userMessage, messageType))
+                    .flatMapMany(advice -> advice
+                            .map(chat -> Flux.just(ChatStreamEvent.delta(chat.getAiResponse()), ChatStreamEvent.done(chat.getId())))
+                            .orElseGet(() -> streamReply(farmerId, userMessage, messageType, userName)));
+        }
+        return streamReply(farmerId, userMessage, messageType, userName);
+    }
+    
+    private Flux<ChatStreamEvent> streamReply(Long farmerId, String userMessage, String messageType, String userName) {
+        if (!isAgricultureRelated(userMessage)) {
+            return Mono.fromFuture(() -> createFilteredResponse(farmerId, userMessage, messageType))
+                    .flatMapMany(filtered -> Flux.just(
+                            ChatStreamEvent.delta(filtered.getAiResponse()), ChatStreamEvent.done(filtered.getId())));
+        }
+        
+        return Mono.fromFuture(() -> loadChatContext(farmerId, userName, userMessage))
+                .flatMapMany(context -> streamAnswer(context, userMessage, messageType))
+                .onErrorResume(e -> {
+                    log.error("Error streaming chat message: {}", e.getMessage());
+                    return Flux.just(ChatStreamEvent.error("I apologize, but I'm having trouble processing your request right now. Please try again later."));
+                });
+    }
+    
+    private Flux<ChatStreamEvent> streamAnswer(ChatContext context, String userMessage, String messageType) {
+        StringBuilder answer = new StringBuilder();
+        Timer.Sample firstToken = Timer.start(meterRegistry);
+        AtomicBoolean firstTokenSeen = new AtomicBoolean(false);
+        
+        Flux<ChatStreamEvent> deltas = geminiService.streamPersonalizedResponse(
+                        context.farmer(),
+                        userMessage,
+                        context.recentRecommendations(),
+                        context.weatherData(),
+                        context.contextData())
+                .doOnNext(text -> {
+                    if (firstTokenSeen.compareAndSet(false, true)) {
+                        firstToken.stop(meterRegistry.timer("chat.stream.time.to.first.token"));
+                    }
+                    answer.append(text);
+                })
+                .map(ChatStreamEvent::delta);
+        
+        Mono<ChatStreamEvent> done = Mono.fromCallable(() -> {
+            Chat chat = new Chat();
+            chat.setFarmer(context.farmer());
+            chat.setUserMessage(userMessage);
+            chat.setAiResponse(answer.toString());
+            chat.setContextData(context.contextData());
+            chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+            return ChatStreamEvent.done(chatWriter.enqueue(chat).getId());
+        })
+                // Enqueueing may block (id block fetch, full buffer), so not on the event loop
+                .subscribeOn(Schedulers.boundedElastic());
+        
+        return deltas.concatWith(done);
+    }
+    
+    /**
+     * Answers from the advice pre-generated for today, if the farmer has one.
+     */
+    private CompletableFuture<Optional<Chat>> findDailyAdvice(Long farmerId, String userMessage, String messageType) {
+        return databaseExecutor.supplyAsync(() -> dailyAdviceService.todaysAdvice(farmerId)).thenApply(advice -> advice.map(text -> {
             Farmer farmer = new Farmer();
-            farmer.setId(farmerDto.getId());
-            farmer.setName(userName != null && !userName.trim().isEmpty() ? userName : farmerDto.getName());
-            farmer.setPhone(farmerDto.getPhone());
-            farmer.setLocationName(farmerDto.getLocationName());
-            farmer.setPreferredCrop(farmerDto.getPreferredCrop());
-            farmer.setSmsOptIn(farmerDto.getSmsOptIn());
+            farmer.setId(farmerId);
             
-            // Get recent recommendations for context
-            List<IrrigationRecommendation> allRecommendations = recommendationRepository.findByFarmerIdOrderByDateDesc(farmerId);
-            List<IrrigationRecommendation> recentRecommendations = allRecommendations.stream()
-                    .limit(5)
-                    .collect(java.util.stream.Collectors.toList());
-            
-            // Get saved irrigation plans
-            List<SavedIrrigationPlan> savedPlans = savedIrrigationPlanRepository.findByFarmerIdOrderByCreatedAtDesc(farmerId);
+            Chat chat = new Chat();
+            chat.setFarmer(farmer);
+            chat.setUserMessage(userMessage);
+            chat.setAiResponse(text);
+            chat.setContextData("Daily advice for " + LocalDate.now());
+            chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+            return chatWriter.enqueue(chat);
+        }));
+    }
+    
+    private CompletableFuture<ChatContext> loadChatContext(Long farmerId, String userName, String userMessage) {
+        return chatContextAssembler.snapshot(farmerId).thenCombine(findAdviceContext(farmerId, userMessage), (found, advice) -> {
+            ChatContextAssembler.Snapshot snapshot = found.orElseThrow(() -> {
+                log.error("Farmer not found with ID: {}, this should not happen if farmer exists", farmerId);
+                return new RuntimeException("Farmer not found with ID: " + farmerId + ". Please ensure the farmer exists in the database.");
+            });
             
-            // Get recent heat alerts
-            List<AlertLog> recentAlerts = alertLogRepository.findByFarmerIdOrderByCreatedAtDesc(farmerId).stream()
-                    .limit(10)
-                    .collect(java.util.stream.Collectors.toList());
+            // Detached farmer for prompt building and as the chat's owner reference
+            FarmerProfile profile = snapshot.farmer();
+            Farmer farmer = new Farmer();
+            farmer.setId(profile.getId());
+            farmer.setName(userName != null && !userName.trim().isEmpty() ? userName : profile.getName());
+            farmer.setPhone(profile.getPhone());
+            farmer.setLocationName(profile.getLocationName());
+            farmer.setPreferredCrop(profile.getPreferredCrop());
+            farmer.setSmsOptIn(profile.getSmsOptIn());
             
             // Get current weather data
             String weatherData = getCurrentWeatherData(farmer);
             
             // Build comprehensive context data
-            String contextData = buildComprehensiveContextData(farmer, recentRecommendations, savedPlans, recentAlerts);
+            String contextData = buildComprehensiveContextData(userMessage, snapshot.plans(), snapshot.alerts(), advice);
             
-            // Generate AI response using Gemini
-            return geminiService.generatePersonalizedResponse(
-                    farmer, 
-                    userMessage, 
-                    recentRecommendations, 
-                    weatherData, 
-                    contextData
-            ).thenApply(aiResponse -> {
-                try {
-                    // Save chat to database
-                    Chat chat = new Chat();
-                    chat.setFarmer(farmer);
-                    chat.setUserMessage(userMessage);
-                    chat.setAiResponse(aiResponse);
-                    chat.setContextData(contextData);
-                    chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-                    
-                    return chatRepository.save(chat);
-                } catch (Exception e) {
-                    log.error("Error saving chat to database: {}", e.getMessage());
-                    // Return chat object without saving to database
-                    Chat chat = new Chat();
-                    chat.setId(1L); // Mock ID
-                    chat.setFarmer(farmer);
-                    chat.setUserMessage(userMessage);
-                    chat.setAiResponse(aiResponse);
-                    chat.setContextData(contextData);
-                    chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-                    return chat;
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error processing chat message: {}", e.getMessage());
-            // Return a proper error response instead of failing
-            Chat errorChat = new Chat();
-            errorChat.setId(1L);
-            errorChat.setUserMessage(userMessage);
-            errorChat.setAiResponse("I apologize, but I'm having trouble processing your request right now. Please try again later.");
-            errorChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-            errorChat.setContextData("Error response due to: " + e.getMessage());
-            
-            // Create a mock farmer for error response
-            Farmer mockFarmer = new Farmer();
-            mockFarmer.setId(farmerId);
-            mockFarmer.setName("Error Response");
-            mockFarmer.setLocationName("Unknown");
-            mockFarmer.setPreferredCrop("Unknown");
-            errorChat.setFarmer(mockFarmer);
-            
-            return CompletableFuture.completedFuture(errorChat);
+            return new ChatContext(farmer, snapshot.recommendations(), weatherData, contextData);
+        });
+    }
+    
+    /**
+     * Today's pre-generated advice for questions about today that it does not answer outright.
+     */
+    private CompletableFuture<Optional<String>> findAdviceContext(Long farmerId, String userMessage) {
+        if (!dailyAdviceService.mentionsToday(userMessage)) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
+        return databaseExecutor.supplyAsync(() -> dailyAdviceService.findTodaysAdvice(farmerId))
+                .exceptionally(e -> {
+                    log.warn("Failed to load daily advice for farmer {}: {}", farmerId, e.getMessage());
+                    return Optional.empty();
+                });
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    private record ChatContext(Farmer farmer, List<IrrigationRecommendation> recentRecommendations,
+                               String weatherData, String contextData) {
     }
     
     public List<Chat> getChatHistory(Long farmerId) {
@@ -155,42 +299,85 @@ public class ChatService {
         return chatRepository.findByFarmerIdOrderByCreatedAtDesc(farmerId, pageable);
     }
     
+    /**
+     * Newest-first chat history after {@code cursor} (or from the start when it is null).
+     */
+    // Outside a transaction so no connection is held while pending chat writes are flushed
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<Chat> getChatHistory(Long farmerId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after == null) {
+            // The first page should include chats answered moments ago and still queued
+            chatWriter.flush();
+        }
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Chat> rows = after == null
+                ? chatRepository.findRecentChatsByFarmerId(farmerId, limit)
+                : chatRepository.findPageAfter(farmerId, after.at(), after.id(), limit);
+        return CursorPage.of(rows, pageSize, chat -> KeysetCursor.of(chat.getCreatedAt(), chat.getId()));
+    }
+    
     public List<Chat> getChatHistoryByType(Long farmerId, Chat.MessageType messageType) {
         return chatRepository.findByFarmerIdAndMessageTypeOrderByCreatedAtDesc(farmerId, messageType);
     }
     
     public List<Chat> searchChatHistory(Long farmerId, String query) {
-        return chatRepository.findByFarmerIdAndSearchQuery(farmerId, query);
+        List<Long> ids = chatSearchService.search(farmerId, query, PageRequest.of(0, searchResultLimit)).stream()
+                .map(ChatSearchHit::getChatId)
+                .toList();
+        // findAllById does not keep the ranking order
+        Map<Long, Chat> chats = chatRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Chat::getId, Function.identity()));
+        return ids.stream().map(chats::get).filter(Objects::nonNull).toList();
+    }
+    
+    public Page<ChatSearchHit> searchChatHistory(Long farmerId, String query, Pageable pageable) {
+        return chatSearchService.search(farmerId, query, pageable);
     }
     
     public List<Chat> getRecentChats(Long farmerId, int limit) {
-        return chatRepository.findRecentChatsByFarmerId(farmerId, limit);
+        return chatRepository.findRecentChatsByFarmerId(farmerId, Limit.of(limit));
     }
     
+    // Outside a transaction so no connection is held while pending chat writes are flushed
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Chat updateFeedback(Long chatId, Boolean isHelpful, String feedback) {
+        // The chat may have been answered moments ago and still be queued
+        chatWriter.flush();
+        
         Chat chat = chatRepository.findById(chatId)
                 .orElseThrow(() -> new RuntimeException("Chat not found"));
         
+        Boolean previous = chat.getIsHelpful();
         chat.setIsHelpful(isHelpful);
         chat.setUserFeedback(feedback);
         
-        return chatRepository.save(chat);
+        return chatStatsService.recordingFeedback(previous, () -> chatRepository.save(chat));
     }
     
-    public List<Object[]> getMessageTypeStats(Long farmerId) {
-        return chatRepository.getMessageTypeStatsByFarmerId(farmerId);
+    /**
+     * The context an answer was based on. Not part of history responses, which only carry
+     * the chats themselves.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<String> getChatContext(Long chatId) {
+        chatWriter.flush();
+        return chatRepository.findById(chatId)
+                .flatMap(chat -> chatContextStore.load(chat.getContextHash()));
     }
     
-    public Double getAverageHelpfulness(Long farmerId) {
-        return chatRepository.getAverageHelpfulnessByFarmerId(farmerId);
+    @Transactional(readOnly = true)
+    public Optional<String> getDailyAdvice(Long farmerId) {
+        return dailyAdviceService.todaysAdvice(farmerId);
     }
     
-    public Long getTotalChats(Long farmerId) {
-        return chatRepository.countByFarmerId(farmerId);
+    public ChatStatsService.Stats getChatStats(Long farmerId) {
+        return chatStatsService.getStats(farmerId);
     }
     
     public Long getChatsByType(Long farmerId, Chat.MessageType messageType) {
-        return chatRepository.countByFarmerIdAndMessageType(farmerId, messageType);
+        return chatStatsService.countByType(farmerId, messageType);
     }
     
     private String getCurrentWeatherData(Farmer farmer) {
@@ -206,61 +393,26 @@ public class ChatService {
         }
     }
     
-    private String buildComprehensiveContextData(Farmer farmer, List<IrrigationRecommendation> recommendations, 
-                                                 List<SavedIrrigationPlan> savedPlans, List<AlertLog> recentAlerts) {
-        StringBuilder context = new StringBuilder();
-        
-        // Farmer Profile
-        context.append("FARMER PROFILE:\n");
-        context.append("- Name: ").append(farmer.getName()).append("\n");
-        context.append("- Location: ").append(farmer.getLocationName()).append("\n");
-        context.append("- Crop: ").append(farmer.getPreferredCrop()).append("\n");
-        context.append("- SMS Enabled: ").append(farmer.getSmsOptIn() ? "Yes" : "No").append("\n\n");
-        
-        // Recent Irrigation Recommendations
-        if (recommendations != null && !recommendations.isEmpty()) {
-            context.append("RECENT IRRIGATION RECOMMENDATIONS:\n");
-            for (IrrigationRecommendation rec : recommendations) {
-                context.append("- Date: ").append(rec.getDate()).append("\n");
-                context.append("  Recommendation: ").append(rec.getRecommendation()).append("\n");
-                context.append("  Temperature: ").append(rec.getTempC()).append("°C\n");
-                context.append("  Humidity: ").append(rec.getHumidity()).append("%\n");
-                context.append("  Water Saved: ").append(rec.getWaterSavedLiters()).append(" liters\n");
-                context.append("  Explanation: ").append(rec.getExplanation()).append("\n\n");
-            }
-        }
-        
-        // Saved Irrigation Plans
-        if (savedPlans != null && !savedPlans.isEmpty()) {
-            context.append("SAVED IRRIGATION PLANS:\n");
-            for (SavedIrrigationPlan plan : savedPlans) {
-                context.append("- Plan Name: ").append(plan.getPlanName()).append("\n");
-                context.append("  Crop Type: ").append(plan.getCropType()).append("\n");
-                context.append("  Area: ").append(plan.getArea()).append(" hectares\n");
-                context.append("  Irrigation Type: ").append(plan.getIrrigationType()).append("\n");
-                context.append("  Soil Type: ").append(plan.getSoilType()).append("\n");
-                context.append("  Water Budget: ").append(plan.getWaterBudget()).append("\n");
-                context.append("  Is Default: ").append(plan.getIsDefault() ? "Yes" : "No").append("\n");
-                context.append("  Created: ").append(plan.getCreatedAt()).append("\n\n");
-            }
-        }
-        
-        // Recent Heat Alerts
-        if (recentAlerts != null && !recentAlerts.isEmpty()) {
-            context.append("RECENT HEAT ALERTS:\n");
-            for (AlertLog alert : recentAlerts) {
-                context.append("- Type: ").append(alert.getType()).append("\n");
-                context.append("  Status: ").append(alert.getStatus()).append("\n");
-                context.append("  Message: ").append(alert.getMessage()).append("\n");
-                context.append("  Created: ").append(alert.getCreatedAt()).append("\n");
-                if (alert.getSentAt() != null) {
-                    context.append("  Sent At: ").append(alert.getSentAt()).append("\n");
-                }
-                context.append("\n");
-            }
-        }
+    /**
+     * Plans and alerts for the prompt. The farmer profile and recommendations travel
+     * separately, so they are not repeated here.
+     */
+    private String buildComprehensiveContextData(String userMessage, List<PlanSummary> savedPlans,
+                                                 List<AlertSummary> recentAlerts, Optional<String> dailyAdvice) {
+        List<Object[]> planRows = savedPlans.stream()
+                .map(plan -> new Object[]{plan.getPlanName(), plan.getCropType(), plan.getArea(), plan.getIrrigationType(),
+                        plan.getSoilType(), plan.getWaterBudget(), plan.getIsDefault(), plan.getCreatedAt().toLocalDate()})
+                .toList();
+        List<Object[]> alertRows = recentAlerts.stream()
+                .map(alert -> new Object[]{alert.getCreatedAt().truncatedTo(ChronoUnit.MINUTES), alert.getType(),
+                        alert.getStatus(), alert.getMessage()})
+                .toList();
         
-        return context.toString();
+        return promptBuilder.draft(userMessage, extraContextTokenBudget)
+                .pinnedText("TODAY'S ADVICE", dailyAdvice.orElse(null))
+                .table("SAVED IRRIGATION PLANS", "name|crop|ha|irrigation|soil|waterBudget|default|created", planRows)
+                .table("RECENT HEAT ALERTS", "created|type|status|message", alertRows)
+                .render();
     }
     
     private String buildContextData(Farmer farmer, List<IrrigationRecommendation> recommendations) {
@@ -289,39 +441,7 @@ public class ChatService {
         if (message == null || message.trim().isEmpty()) {
             return false;
         }
-        
-        String lowerMessage = message.toLowerCase();
-        
-        // Agriculture-related keywords
-        String[] agricultureKeywords = {
-            "plant", "crop", "farm", "agriculture", "irrigation", "water", "soil", "fertilizer",
-            "harvest", "seed", "grow", "cultivate", "yield", "pest", "disease", "weather",
-            "temperature", "humidity", "rain", "drought", "flood", "disease", "insect",
-            "weed", "nutrient", "nitrogen", "phosphorus", "potassium", "organic", "sustainable",
-            "greenhouse", "field", "land", "tractor", "equipment", "machinery", "livestock",
-            "cattle", "sheep", "goat", "chicken", "poultry", "dairy", "milk", "egg",
-            "vegetable", "fruit", "grain", "wheat", "rice", "corn", "tomato", "potato",
-            "onion", "carrot", "lettuce", "cabbage", "spinach", "broccoli", "cauliflower",
-            "pepper", "cucumber", "squash", "pumpkin", "bean", "pea", "lentil", "soybean",
-            "cotton", "sugarcane", "coffee", "tea", "spice", "herb", "flower", "tree",
-            "orchard", "vineyard", "garden", "plot", "acre", "hectare", "yield", "production",
-            "market", "price", "profit", "loss", "cost", "investment", "loan", "credit",
-            "insurance", "government", "subsidy", "policy", "regulation", "certification",
-            "organic", "gmo", "hybrid", "variety", "breed", "strain", "genetics", "breeding",
-            "research", "development", "innovation", "technology", "precision", "automation",
-            "sensor", "drone", "satellite", "gps", "mapping", "monitoring", "tracking",
-            "data", "analytics", "prediction", "forecast", "model", "algorithm", "ai",
-            "machine learning", "iot", "smart farming", "digital agriculture", "agtech"
-        };
-        
-        // Check if message contains agriculture-related keywords
-        for (String keyword : agricultureKeywords) {
-            if (lowerMessage.contains(keyword)) {
-                return true;
-            }
-        }
-        
-        return false;
+        return topicClassifier.classify(message).isAgricultureRelated();
     }
     
     /**
@@ -330,32 +450,30 @@ public class ChatService {
     public CompletableFuture<Chat> generateDiseaseTreatment(String diseaseName, Double confidence, Boolean isHealthy, String healthStatus) {
         log.info("Generating disease treatment for: {} with confidence: {}", diseaseName, confidence);
         
-        try {
-            // Create a simple prompt focused only on the disease
-            String prompt = String.format(
-                "You are a plant disease specialist. Provide treatment recommendations for: %s (%.1f%% confidence, %s health status: %s). " +
-                "Focus ONLY on treating this specific disease. Do NOT mention any farmer names, locations, or crop types. " +
-                "Provide: 1) Treatment steps, 2) Prevention measures, 3) Recovery timeline, 4) When to seek help. " +
-                "Keep response focused on %s only.",
-                diseaseName, confidence * 100, isHealthy ? "Healthy" : "Unhealthy", healthStatus, diseaseName
-            );
-            
-            // Create a mock farmer for disease treatment
-            Farmer mockFarmer = new Farmer();
-            mockFarmer.setId(1L);
-            mockFarmer.setName("Disease Treatment Specialist");
-            mockFarmer.setLocationName("Unknown");
-            mockFarmer.setPreferredCrop("Unknown");
-            
-            // Call Gemini API with mock farmer context
-            String aiResponse = geminiService.generatePersonalizedResponse(
-                    mockFarmer, 
-                    prompt, 
-                    new ArrayList<>(), 
-                    "Weather data unavailable", 
-                    "Disease treatment context"
-            ).join();
-            
+        // Create a simple prompt focused only on the disease
+        String prompt = String.format(
+            "You are a plant disease specialist. Provide treatment recommendations for: %s (%.1f%% confidence, %s health status: %s). " +
+            "Focus ONLY on treating this specific disease. Do NOT mention any farmer names, locations, or crop types. " +
+            "Provide: 1) Treatment steps, 2) Prevention measures, 3) Recovery timeline, 4) When to seek help. " +
+            "Keep response focused on %s only.",
+            diseaseName, confidence * 100, isHealthy ? "Healthy" : "Unhealthy", healthStatus, diseaseName
+        );
+        
+        // Create a mock farmer for disease treatment
+        Farmer mockFarmer = new Farmer();
+        mockFarmer.setId(1L);
+        mockFarmer.setName("Disease Treatment Specialist");
+        mockFarmer.setLocationName("Unknown");
+        mockFarmer.setPreferredCrop("Unknown");
+        
+        // Call Gemini API with mock farmer context
+        return geminiService.generatePersonalizedResponse(
+                mockFarmer, 
+                prompt, 
+                new ArrayList<>(), 
+                "Weather data unavailable", 
+                "Disease treatment context"
+        ).thenApply(aiResponse -> {
             // Create a simple chat record
             Chat chat = new Chat();
             chat.setFarmer(mockFarmer); // Set the farmer relationship
@@ -364,13 +482,11 @@ public class ChatService {
             chat.setMessageType(Chat.MessageType.PEST_DISEASE);
             chat.setContextData("Disease treatment for: " + diseaseName);
             
-            // Save to database
-            chat = chatRepository.save(chat);
-            
-            return CompletableFuture.completedFuture(chat);
-            
-        } catch (Exception e) {
-            log.error("Error generating disease treatment: {}", e.getMessage());
+            // Not saved: the mock farmer does not exist, and a queued insert would only fail
+            // on the writer thread after an id had been handed out
+            return chat;
+        }).exceptionally(e -> {
+            log.error("Error generating disease treatment: {}", unwrap(e).getMessage());
             
             // Create a mock farmer for fallback response
             Farmer fallbackFarmer = new Farmer();
@@ -387,55 +503,47 @@ public class ChatService {
             fallbackChat.setMessageType(Chat.MessageType.PEST_DISEASE);
             fallbackChat.setContextData("Disease treatment for: " + diseaseName);
             
-            return CompletableFuture.completedFuture(fallbackChat);
-        }
+            return fallbackChat;
+        });
     }
     
     /**
      * Create a filtered response for non-agriculture related messages
      */
-    private Chat createFilteredResponse(Long farmerId, String userMessage, String messageType) {
+    private CompletableFuture<Chat> createFilteredResponse(Long farmerId, String userMessage, String messageType) {
         log.info("Creating filtered response for non-agriculture message from farmer ID: {}", farmerId);
         
-        try {
-            // Create a mock farmer for the response
-            Farmer mockFarmer = new Farmer();
-            mockFarmer.setId(farmerId);
-            mockFarmer.setName("Farmer");
-            mockFarmer.setLocationName("Unknown");
-            mockFarmer.setPreferredCrop("Unknown");
-            
-            // Create filtered chat response
-            Chat filteredChat = new Chat();
-            filteredChat.setFarmer(mockFarmer);
-            filteredChat.setUserMessage(userMessage);
-            filteredChat.setAiResponse("I'm specialized in agriculture and farming topics. Please ask me about crops, irrigation, plant diseases, weather conditions, or other farming-related questions. How can I help you with your agricultural needs?");
-            filteredChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-            filteredChat.setContextData("Filtered response for non-agriculture message");
-            
-            // Save to database
-            return chatRepository.save(filteredChat);
-            
-        } catch (Exception e) {
-            log.error("Error creating filtered response: {}", e.getMessage());
-            
-            // Return a fallback filtered response
-            Chat fallbackChat = new Chat();
-            fallbackChat.setId(1L); // Mock ID
-            fallbackChat.setUserMessage(userMessage);
-            fallbackChat.setAiResponse("I'm specialized in agriculture and farming topics. Please ask me about crops, irrigation, plant diseases, weather conditions, or other farming-related questions. How can I help you with your agricultural needs?");
-            fallbackChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-            fallbackChat.setContextData("Filtered response for non-agriculture message");
-            
-            // Create a mock farmer for fallback response
-            Farmer mockFarmer = new Farmer();
-            mockFarmer.setId(farmerId);
-            mockFarmer.setName("Farmer");
-            mockFarmer.setLocationName("Unknown");
-            mockFarmer.setPreferredCrop("Unknown");
-            fallbackChat.setFarmer(mockFarmer);
-            
-            return fallbackChat;
-        }
+        // Create a mock farmer for the response
+        Farmer mockFarmer = new Farmer();
+        mockFarmer.setId(farmerId);
+        mockFarmer.setName("Farmer");
+        mockFarmer.setLocationName("Unknown");
+        mockFarmer.setPreferredCrop("Unknown");
+        
+        // Create filtered chat response
+        Chat filteredChat = new Chat();
+        filteredChat.setFarmer(mockFarmer);
+        filteredChat.setUserMessage(userMessage);
+        filteredChat.setAiResponse("I'm specialized in agriculture and farming topics. Please ask me about crops, irrigation, plant diseases, weather conditions, or other farming-related questions. How can I help you with your agricultural needs?");
+        filteredChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+        filteredChat.setContextData("Filtered response for non-agriculture message");
+        
+        // Only queued for a farmer that exists; for an unknown one the insert would fail on the
+        // writer thread after the id had been returned, so the response goes back unsaved
+        return chatContextAssembler.snapshot(farmerId).handle((found, error) -> {
+            if (error != null || found.isEmpty()) {
+                log.warn("Farmer {} not found, returning the filtered response unsaved", farmerId);
+                return filteredChat;
+            }
+            try {
+                return chatWriter.enqueue(filteredChat);
+            } catch (Exception e) {
+                log.error("Error creating filtered response: {}", e.getMessage());
+                
+                // Return the filtered response unsaved
+                filteredChat.setId(1L); // Mock ID
+                return filteredChat;
+            }
+        });
     }
 }
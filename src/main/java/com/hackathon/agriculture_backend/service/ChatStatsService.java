@@ -0,0 +1,220 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.Chat;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-farmer chat statistics read from the {@code chat_stats} rollup instead of aggregating
+ * the chats table on every request.
+ *
+ * <p>The rollup is incremented as the write-behind queue inserts chats and as feedback is
+ * given. A nightly rebuild recomputes it from the chats table to correct any drift (e.g.
+ * chats removed together with their farmer). Each write runs together with its increment
+ * under a shared lock the rebuild takes exclusively, so a rebuild sees both or neither.
+ */
+@Service
+@Slf4j
+public class ChatStatsService {
+
+    private static final String INCREMENT = "update chat_stats set chat_count = chat_count + ?, "
+            + "helpful_count = helpful_count + ?, unhelpful_count = unhelpful_count + ? "
+            + "where farmer_id = ? and message_type = ?";
+    private static final String INSERT = "insert into chat_stats "
+            + "(farmer_id, message_type, chat_count, helpful_count, unhelpful_count) values (?, ?, ?, ?, ?)";
+    private static final String AGGREGATE = """
+            select farmer_id, message_type, count(*),
+                   sum(case when is_helpful = true then 1 else 0 end),
+                   sum(case when is_helpful = false then 1 else 0 end)
+            from chats
+            group by farmer_id, message_type""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @Value("${app.scheduler.enabled:true}")
+    private boolean schedulerEnabled;
+
+    public ChatStatsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Stats(List<Object[]> messageTypes, Double averageHelpfulness, Long totalChats) {
+    }
+
+    /**
+     * Builds the rollup on first start against an existing chats table. The transaction
+     * manager depends on the EntityManagerFactory, so the schema exists by now.
+     */
+    @PostConstruct
+    public void initialize() {
+        Long rows = jdbcTemplate.queryForObject("select count(*) from chat_stats", Long.class);
+        if (rows != null && rows == 0) {
+            rebuild();
+        }
+    }
+
+    public Stats getStats(Long farmerId) {
+        List<Object[]> messageTypes = new ArrayList<>();
+        long[] totals = new long[3];
+        jdbcTemplate.query("select message_type, chat_count, helpful_count, unhelpful_count "
+                + "from chat_stats where farmer_id = ? order by message_type", rs -> {
+            long chats = rs.getLong("chat_count");
+            if (chats > 0) {
+                messageTypes.add(new Object[]{Chat.MessageType.valueOf(rs.getString("message_type")), chats});
+            }
+            totals[0] += chats;
+            totals[1] += rs.getLong("helpful_count");
+            totals[2] += rs.getLong("unhelpful_count");
+        }, farmerId);
+        long rated = totals[1] + totals[2];
+        return new Stats(messageTypes, rated > 0 ? (double) totals[1] / rated : null, totals[0]);
+    }
+
+    public long countByType(Long farmerId, Chat.MessageType messageType) {
+        List<Long> counts = jdbcTemplate.queryForList(
+                "select chat_count from chat_stats where farmer_id = ? and message_type = ?",
+                Long.class, farmerId, messageType.name());
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Runs the insert of {@code chats} and counts them once it succeeds.
+     */
+    public void recording(List<Chat> chats, Runnable insert) {
+        rebuildLock.readLock().lock();
+        try {
+            insert.run();
+            recorded(chats);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the save of a chat whose rating was {@code previous} and moves it between the
+     * helpful, unhelpful and unrated tallies.
+     */
+    public Chat recordingFeedback(Boolean previous, Supplier<Chat> save) {
+        rebuildLock.readLock().lock();
+        try {
+            Chat chat = save.get();
+            feedbackChanged(chat, previous);
+            return chat;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void recorded(List<Chat> chats) {
+        Map<Key, long[]> deltas = new HashMap<>();
+        for (Chat chat : chats) {
+            if (chat.getFarmerId() == null) {
+                continue;
+            }
+            long[] delta = deltas.computeIfAbsent(new Key(chat.getFarmerId(), type(chat)), key -> new long[3]);
+            delta[0]++;
+            delta[1] += Boolean.TRUE.equals(chat.getIsHelpful()) ? 1 : 0;
+            delta[2] += Boolean.FALSE.equals(chat.getIsHelpful()) ? 1 : 0;
+        }
+        deltas.forEach((key, delta) -> apply(key, delta[0], delta[1], delta[2]));
+    }
+
+    private void feedbackChanged(Chat chat, Boolean previous) {
+        if (chat.getFarmerId() == null || Objects.equals(previous, chat.getIsHelpful())) {
+            return;
+        }
+        long helpful = (Boolean.TRUE.equals(chat.getIsHelpful()) ? 1 : 0) - (Boolean.TRUE.equals(previous) ? 1 : 0);
+        long unhelpful = (Boolean.FALSE.equals(chat.getIsHelpful()) ? 1 : 0) - (Boolean.FALSE.equals(previous) ? 1 : 0);
+        apply(new Key(chat.getFarmerId(), type(chat)), 0, helpful, unhelpful);
+    }
+
+    @Scheduled(cron = "${app.scheduler.chat-stats-rebuild.cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        if (!schedulerEnabled) {
+            log.info("Scheduler is disabled, skipping chat statistics rebuild");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Recomputes the whole rollup from the chats table in one transaction.
+     */
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            int rows = transactionTemplate.execute(status -> {
+                List<Object[]> aggregates = jdbcTemplate.query(AGGREGATE, (rs, rowNum) -> new Object[]{
+                        rs.getLong(1),
+                        rs.getString(2) != null ? rs.getString(2) : Chat.MessageType.GENERAL.name(),
+                        rs.getLong(3), rs.getLong(4), rs.getLong(5)});
+                jdbcTemplate.update("delete from chat_stats");
+                mergeNullTypes(aggregates);
+                jdbcTemplate.batchUpdate(INSERT, aggregates);
+                return aggregates.size();
+            });
+            log.info("Rebuilt chat statistics: {} farmer/message type row(s)", rows);
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Key key, long chats, long helpful, long unhelpful) {
+        try {
+            Object[] args = {chats, helpful, unhelpful, key.farmerId(), key.messageType().name()};
+            if (jdbcTemplate.update(INCREMENT, args) > 0) {
+                return;
+            }
+            try {
+                jdbcTemplate.update(INSERT, key.farmerId(), key.messageType().name(), chats, helpful, unhelpful);
+            } catch (DuplicateKeyException e) {
+                // Another writer created the row first
+                jdbcTemplate.update(INCREMENT, args);
+            }
+        } catch (RuntimeException e) {
+            // The nightly rebuild corrects the rollup
+            log.warn("Failed to update chat statistics for farmer {}: {}", key.farmerId(), e.getMessage());
+        }
+    }
+
+    // Chats without a type are counted as GENERAL, so the two aggregate rows must become one
+    private static void mergeNullTypes(List<Object[]> aggregates) {
+        Map<List<Object>, Object[]> merged = new HashMap<>();
+        aggregates.removeIf(row -> {
+            Object[] existing = merged.putIfAbsent(List.of(row[0], row[1]), row);
+            if (existing == null) {
+                return false;
+            }
+            for (int i = 2; i < 5; i++) {
+                existing[i] = (Long) existing[i] + (Long) row[i];
+            }
+            return true;
+        });
+    }
+
+    private static Chat.MessageType type(Chat chat) {
+        return chat.getMessageType() != null ? chat.getMessageType() : Chat.MessageType.GENERAL;
+    }
+
+    private record Key(Long farmerId, Chat.MessageType messageType) {
+    }
+}
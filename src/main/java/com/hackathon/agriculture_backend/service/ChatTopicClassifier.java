@@ -0,0 +1,110 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.util.AhoCorasickMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Classifies chat messages into topics in a single pass over the text.
+ *
+ * <p>All keywords of all topics are compiled into one {@link AhoCorasickMatcher} at startup.
+ * Matching keeps the substring semantics of the keyword checks it replaces, so "rain" still
+ * matches "grain" and "health" matches "unhealthy". Responders decide their own precedence
+ * between topics via {@link Classification#any}.
+ */
+@Component
+public class ChatTopicClassifier {
+
+    public enum Topic {
+        /** Anything farming-related; messages without it are filtered out of the chat. */
+        AGRICULTURE(
+                "plant", "crop", "farm", "agriculture", "irrigation", "water", "soil", "fertilizer",
+                "harvest", "seed", "grow", "cultivate", "yield", "pest", "disease", "weather",
+                "temperature", "humidity", "rain", "drought", "flood", "insect",
+                "weed", "nutrient", "nitrogen", "phosphorus", "potassium", "organic", "sustainable",
+                "greenhouse", "field", "land", "tractor", "equipment", "machinery", "livestock",
+                "cattle", "sheep", "goat", "chicken", "poultry", "dairy", "milk", "egg",
+                "vegetable", "fruit", "grain", "wheat", "rice", "corn", "tomato", "potato",
+                "onion", "carrot", "lettuce", "cabbage", "spinach", "broccoli", "cauliflower",
+                "pepper", "cucumber", "squash", "pumpkin", "bean", "pea", "lentil", "soybean",
+                "cotton", "sugarcane", "coffee", "tea", "spice", "herb", "flower", "tree",
+                "orchard", "vineyard", "garden", "plot", "acre", "hectare", "production",
+                "market", "price", "profit", "loss", "cost", "investment", "loan", "credit",
+                "insurance", "government", "subsidy", "policy", "regulation", "certification",
+                "gmo", "hybrid", "variety", "breed", "strain", "genetics", "breeding",
+                "research", "development", "innovation", "technology", "precision", "automation",
+                "sensor", "drone", "satellite", "gps", "mapping", "monitoring", "tracking",
+                "data", "analytics", "prediction", "forecast", "model", "algorithm", "ai",
+                "machine learning", "iot", "smart farming", "digital agriculture", "agtech"),
+        IRRIGATION("irrigation", "water"),
+        SCHEDULE("schedule"),
+        WEATHER("weather", "temperature"),
+        HEAT("heat"),
+        CLIMATE("climate"),
+        RAIN("rain"),
+        CROP("crop"),
+        PLANT("plant"),
+        HARVEST("harvest"),
+        PEST("pest", "disease"),
+        INSECT("insect"),
+        SICK("sick"),
+        UNHEALTHY("unhealthy", "problem"),
+        SOIL("soil"),
+        HEALTH("health"),
+        FERTILIZER("fertilizer", "nutrient"),
+        FEEDING("feeding"),
+        YIELD("yield"),
+        PRODUCTION("production"),
+        HELP("help", "advice", "question"),
+        /** Asks about the current day, which the pre-generated daily advice answers. */
+        TODAY("today", "this morning"),
+        ROUTINE("irrigate", "what should i do", "what to do", "what do i do");
+
+        private final List<String> keywords;
+
+        Topic(String... keywords) {
+            this.keywords = List.of(keywords);
+        }
+
+        private long bit() {
+            return 1L << ordinal();
+        }
+    }
+
+    private final AhoCorasickMatcher matcher;
+
+    public ChatTopicClassifier() {
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        for (Topic topic : Topic.values()) {
+            for (String keyword : topic.keywords) {
+                builder.add(keyword, topic.bit());
+            }
+        }
+        this.matcher = builder.build();
+    }
+
+    public Classification classify(String message) {
+        return new Classification(matcher.match(message));
+    }
+
+    public record Classification(long topics) {
+
+        public boolean has(Topic topic) {
+            return (topics & topic.bit()) != 0;
+        }
+
+        public boolean any(Topic... candidates) {
+            for (Topic topic : candidates) {
+                if (has(topic)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isAgricultureRelated() {
+            return has(Topic.AGRICULTURE);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.Chat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind persistence for {@link Chat} rows.
+ *
+ * <p>{@link #enqueue} assigns the id from the {@code chat_id_seq} sequence (reserved in
+ * blocks, so one round trip per {@value #ID_BLOCK} chats) and returns immediately; a single
+ * writer thread drains the bounded buffer into multi-row inserts of up to
+ * {@code app.chat-writer.batch-size} rows. If a batch fails its rows are retried one by one
+ * so one bad row does not lose the others. When the buffer stays full for
+ * {@code app.chat-writer.max-wait-ms} the caller writes its row itself. Pending rows are
+ * flushed on shutdown.
+ *
+ * <p>All chat inserts go through here; the identity column is no longer used for new rows.
+ * The context text goes to {@link ChatContextStore} on the writer thread and the row keeps
+ * only its hash.
+ */
+@Component
+@Slf4j
+public class ChatWriteBehindQueue {
+
+    private static final String SEQUENCE = "chat_id_seq";
+    // Part of the sequence definition (its increment), so not configurable
+    private static final int ID_BLOCK = 50;
+    private static final String INSERT_PREFIX = "insert into chats (id, farmer_id, user_message, ai_response, "
+            + "context_hash, message_type, is_helpful, user_feedback, created_at, updated_at) values ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatSearchService chatSearchService;
+    private final ChatContextStore chatContextStore;
+    private final ChatStatsService chatStatsService;
+    private final String nextBlockSql;
+    private final BlockingQueue<Pending> buffer;
+    private final int batchSize;
+    private final long maxWaitMs;
+    private final long shutdownTimeoutMs;
+    private final Thread writer = new Thread(this::drain, "chat-writer");
+    private volatile boolean stopping;
+
+    private long nextId;
+    private long blockEnd = -1;
+
+    private final Counter written;
+    private final Counter failed;
+    private final Counter overflow;
+    private final Timer batchTime;
+
+    public ChatWriteBehindQueue(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                ChatSearchService chatSearchService, ChatContextStore chatContextStore,
+                                ChatStatsService chatStatsService, Environment environment,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chatSearchService = chatSearchService;
+        this.chatContextStore = chatContextStore;
+        this.chatStatsService = chatStatsService;
+        this.nextBlockSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+        this.buffer = new ArrayBlockingQueue<>(environment.getProperty("app.chat-writer.buffer", Integer.class, 1000));
+        this.batchSize = environment.getProperty("app.chat-writer.batch-size", Integer.class, 100);
+        this.maxWaitMs = environment.getProperty("app.chat-writer.max-wait-ms", Long.class, 500L);
+        this.shutdownTimeoutMs = environment.getProperty("app.chat-writer.shutdown-timeout-ms", Long.class, 10_000L);
+
+        Gauge.builder("chat.writer.pending", buffer, BlockingQueue::size)
+                .description("Chats accepted but not yet written")
+                .register(meterRegistry);
+        this.written = Counter.builder("chat.writer.rows")
+                .tag("result", "written")
+                .description("Chat rows processed by the write-behind queue")
+                .register(meterRegistry);
+        this.failed = Counter.builder("chat.writer.rows")
+                .tag("result", "failed")
+                .description("Chat rows processed by the write-behind queue")
+                .register(meterRegistry);
+        this.overflow = Counter.builder("chat.writer.overflow")
+                .description("Chats written by the caller because the buffer was full")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder("chat.writer.batch")
+                .description("Time to write one batch of chats")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Start above existing rows, which may have come from the identity column
+        long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from chats", Long.class);
+        jdbcTemplate.execute("create sequence if not exists " + SEQUENCE
+                + " start with " + (maxId + 1) + " increment by " + ID_BLOCK);
+        synchronized (this) {
+            reserveBlock();
+            if (nextId <= maxId) {
+                jdbcTemplate.execute("alter sequence " + SEQUENCE + " restart with " + (maxId + 1));
+                reserveBlock();
+            }
+        }
+        writer.start();
+    }
+
+    /**
+     * Assigns the chat its id and timestamps and queues it for insertion.
+     */
+    public Chat enqueue(Chat chat) {
+        Instant now = Instant.now();
+        if (chat.getCreatedAt() == null) {
+            chat.setCreatedAt(now);
+        }
+        chat.setUpdatedAt(now);
+        chat.setId(nextId());
+
+        boolean queued = false;
+        if (!stopping) {
+            try {
+                queued = buffer.offer(new Pending(chat, null), maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            overflow.increment();
+            log.warn("Chat write buffer full or closed, writing chat {} directly", chat.getId());
+            insert(List.of(chat));
+        }
+        return chat;
+    }
+
+    /**
+     * Waits until every chat enqueued before this call has been written, for reads that
+     * must see them (e.g. feedback on a just-answered chat).
+     */
+    public void flush() {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        try {
+            if (stopping || !buffer.offer(new Pending(null, barrier), maxWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            barrier.get(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Timed out flushing chat writes: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Chat writer did not finish within {} ms, {} chat(s) not written", shutdownTimeoutMs, buffer.size());
+            return;
+        }
+        // Enqueued while the writer was exiting
+        List<Pending> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    private synchronized long nextId() {
+        if (nextId > blockEnd) {
+            reserveBlock();
+        }
+        return nextId++;
+    }
+
+    private void reserveBlock() {
+        long start = jdbcTemplate.queryForObject(nextBlockSql, Long.class);
+        nextId = start;
+        blockEnd = start + ID_BLOCK - 1;
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Pending first;
+            try {
+                first = buffer.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Only stopping ends the loop, so nothing queued is abandoned
+                continue;
+            }
+            if (first == null) {
+                if (stopping) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            buffer.drainTo(batch, batchSize - 1);
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("Chat writer failed on a batch of {}: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Chat> chats = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (pending.chat() != null) {
+                chats.add(pending.chat());
+            }
+        }
+        if (!chats.isEmpty()) {
+            batchTime.record(() -> insert(chats));
+        }
+        for (Pending pending : batch) {
+            if (pending.barrier() != null) {
+                pending.barrier().complete(null);
+            }
+        }
+    }
+
+    private void insert(List<Chat> chats) {
+        try {
+            for (Chat chat : chats) {
+                if (chat.getContextHash() == null) {
+                    chat.setContextHash(chatContextStore.store(chat.getContextData()));
+                }
+            }
+            chatStatsService.recording(chats, () -> insertRows(chats));
+            written.increment(chats.size());
+            chatSearchService.indexed(chats);
+        } catch (DataAccessException e) {
+            if (chats.size() == 1) {
+                failed.increment();
+                log.error("Failed to write chat {}: {}", chats.get(0).getId(), e.getMessage());
+                return;
+            }
+            log.warn("Batch insert of {} chats failed, retrying individually: {}", chats.size(), e.getMessage());
+            for (Chat chat : chats) {
+                insert(List.of(chat));
+            }
+        }
+    }
+
+    private void insertRows(List<Chat> chats) {
+        String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(chats.size(), ROW_PLACEHOLDERS));
+        List<Object> args = new ArrayList<>(chats.size() * 10);
+        for (Chat chat : chats) {
+            args.add(chat.getId());
+            args.add(chat.getFarmerId());
+            args.add(chat.getUserMessage());
+            args.add(chat.getAiResponse());
+            args.add(chat.getContextHash());
+            args.add(chat.getMessageType() != null ? chat.getMessageType().name() : null);
+            args.add(chat.getIsHelpful());
+            args.add(chat.getUserFeedback());
+            args.add(utc(chat.getCreatedAt()));
+            args.add(utc(chat.getUpdatedAt()));
+        }
+        jdbcTemplate.update(sql, args.toArray());
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+
+    // A null chat is a flush barrier, completed once everything before it is written
+    private record Pending(Chat chat, CompletableFuture<Void> barrier) {
+    }
+}
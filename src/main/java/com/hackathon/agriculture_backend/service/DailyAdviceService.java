@@ -0,0 +1,244 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.DailyAdvice;
+import com.hackathon.agriculture_backend.model.Farmer;
+import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository.AlertSummary;
+import com.hackathon.agriculture_backend.repository.ChatRepository;
+import com.hackathon.agriculture_backend.repository.DailyAdviceRepository;
+import com.hackathon.agriculture_backend.repository.FarmerRepository;
+import com.hackathon.agriculture_backend.repository.IrrigationRecommendationRepository;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Classification;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Topic;
+import com.hackathon.agriculture_backend.service.ScheduledRecommendationService.DailyRecommendationsCompleted;
+import com.hackathon.agriculture_backend.service.upstream.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-generates each active farmer's advice for the day once the overnight recommendation
+ * run has finished, so the morning "what should I do today" questions are answered from the
+ * database instead of live Gemini calls at peak. Other questions about today get the advice
+ * as prompt context.
+ *
+ * <p>Active farmers are those who chatted in the last {@code app.daily-advice.active-days}.
+ * The advice is written from the recommendation and alerts the run already stored; farmers
+ * without a recommendation for the day are skipped. Gemini is called in the batch quota
+ * lane by at most {@code app.daily-advice.concurrency} workers. The batch lane may not use
+ * the share of the daily Gemini quota kept for chat, and the run stops after
+ * {@code app.daily-advice.max-consecutive-failures} failures in a row (that share exhausted
+ * or Gemini down) rather than keep trying.
+ */
+@Service
+@Slf4j
+public class DailyAdviceService {
+
+    private static final Topic[] SPECIFIC_TOPICS = {Topic.PEST, Topic.INSECT, Topic.SICK, Topic.UNHEALTHY,
+            Topic.HEALTH, Topic.SOIL, Topic.FERTILIZER, Topic.FEEDING, Topic.HARVEST, Topic.YIELD, Topic.PRODUCTION};
+
+    private final DailyAdviceRepository dailyAdviceRepository;
+    private final FarmerRepository farmerRepository;
+    private final ChatRepository chatRepository;
+    private final IrrigationRecommendationRepository recommendationRepository;
+    private final AlertLogRepository alertLogRepository;
+    private final GeminiService geminiService;
+    private final ChatTopicClassifier topicClassifier;
+
+    private final int concurrency;
+    private final int activeDays;
+    private final int alertLimit;
+    private final int maxConsecutiveFailures;
+    private final int retentionDays;
+    // Runs the job off the publishing (scheduler) thread and outside its transaction
+    private final ExecutorService coordinator =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("daily-advice-"));
+
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter skipped;
+    private final Counter served;
+
+    public DailyAdviceService(DailyAdviceRepository dailyAdviceRepository, FarmerRepository farmerRepository,
+                              ChatRepository chatRepository, IrrigationRecommendationRepository recommendationRepository,
+                              AlertLogRepository alertLogRepository, GeminiService geminiService,
+                              ChatTopicClassifier topicClassifier, Environment environment, MeterRegistry meterRegistry) {
+        this.dailyAdviceRepository = dailyAdviceRepository;
+        this.farmerRepository = farmerRepository;
+        this.chatRepository = chatRepository;
+        this.recommendationRepository = recommendationRepository;
+        this.alertLogRepository = alertLogRepository;
+        this.geminiService = geminiService;
+        this.topicClassifier = topicClassifier;
+        this.concurrency = environment.getProperty("app.daily-advice.concurrency", Integer.class, 2);
+        this.activeDays = environment.getProperty("app.daily-advice.active-days", Integer.class, 14);
+        this.alertLimit = environment.getProperty("app.daily-advice.alerts", Integer.class, 5);
+        this.maxConsecutiveFailures = environment.getProperty("app.daily-advice.max-consecutive-failures", Integer.class, 5);
+        this.retentionDays = environment.getProperty("app.daily-advice.retention-days", Integer.class, 7);
+
+        this.generated = adviceCounter("generated", meterRegistry);
+        this.failed = adviceCounter("failed", meterRegistry);
+        this.skipped = adviceCounter("skipped", meterRegistry);
+        this.served = Counter.builder("daily.advice.served")
+                .description("Chat answers served from pre-generated daily advice")
+                .register(meterRegistry);
+    }
+
+    private static Counter adviceCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("daily.advice.farmers")
+                .tag("result", result)
+                .description("Farmers processed by the daily advice pre-generation")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyRecommendationsCompleted(DailyRecommendationsCompleted event) {
+        coordinator.execute(() -> RequestPriority.runAsBatch(() -> generateFor(event.date())));
+    }
+
+    /**
+     * Whether the message only asks what to do today, which the daily advice answers as a
+     * whole. Questions that also name a specific problem (pests, disease, fertilizer, ...)
+     * need their own answer.
+     */
+    public boolean isDailyAdviceQuestion(String message) {
+        Classification topics = topicClassifier.classify(message);
+        return topics.has(Topic.TODAY) && topics.has(Topic.ROUTINE) && !topics.any(SPECIFIC_TOPICS);
+    }
+
+    /**
+     * Whether the message is about the current day, so today's advice is useful context.
+     */
+    public boolean mentionsToday(String message) {
+        return topicClassifier.classify(message).has(Topic.TODAY);
+    }
+
+    /**
+     * Today's advice served as the answer to a chat.
+     */
+    public Optional<String> todaysAdvice(Long farmerId) {
+        Optional<String> advice = findTodaysAdvice(farmerId);
+        advice.ifPresent(text -> served.increment());
+        return advice;
+    }
+
+    public Optional<String> findTodaysAdvice(Long farmerId) {
+        return dailyAdviceRepository.findAdvice(farmerId, LocalDate.now());
+    }
+
+    /**
+     * Generates the advice of every active farmer that has none for {@code date} yet.
+     */
+    public void generateFor(LocalDate date) {
+        long started = System.nanoTime();
+        int removed = dailyAdviceRepository.deleteOlderThan(date.minusDays(retentionDays));
+        if (removed > 0) {
+            log.debug("Removed {} expired daily advice row(s)", removed);
+        }
+
+        List<Long> farmerIds = chatRepository.findFarmerIdsActiveSince(Instant.now().minus(Duration.ofDays(activeDays)));
+        log.info("Generating daily advice for {} active farmer(s) for {}", farmerIds.size(), date);
+
+        AtomicInteger consecutiveFailures = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("daily-advice-worker-"));
+        try {
+            for (Long farmerId : farmerIds) {
+                workers.execute(() -> RequestPriority.runAsBatch(() -> {
+                    if (stopped.get()) {
+                        return;
+                    }
+                    if (generate(farmerId, date)) {
+                        consecutiveFailures.set(0);
+                        done.incrementAndGet();
+                    } else if (consecutiveFailures.incrementAndGet() >= maxConsecutiveFailures
+                            && stopped.compareAndSet(false, true)) {
+                        log.warn("Stopping daily advice generation after {} consecutive failures", maxConsecutiveFailures);
+                    }
+                }));
+            }
+        } finally {
+            workers.shutdown();
+        }
+        try {
+            if (!workers.awaitTermination(6, TimeUnit.HOURS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Daily advice generation finished in {} s: {} of {} farmer(s) handled",
+                Duration.ofNanos(System.nanoTime() - started).toSeconds(), done.get(), farmerIds.size());
+    }
+
+    /**
+     * @return false only when Gemini gave no answer; already-present advice and farmers
+     *         without a recommendation count as handled
+     */
+    private boolean generate(Long farmerId, LocalDate date) {
+        try {
+            if (dailyAdviceRepository.existsByFarmerIdAndAdviceDate(farmerId, date)) {
+                return true;
+            }
+            Optional<IrrigationRecommendation> recommendation = recommendationRepository.findByFarmerIdAndDate(farmerId, date)
+                    .stream()
+                    .max(Comparator.comparing(IrrigationRecommendation::getId));
+            Optional<Farmer> farmer = farmerRepository.findById(farmerId);
+            if (recommendation.isEmpty() || farmer.isEmpty()) {
+                skipped.increment();
+                return true;
+            }
+
+            List<AlertSummary> alerts = alertLogRepository.findSummariesByFarmerIdOrderByCreatedAtDesc(farmerId, Limit.of(alertLimit));
+            Optional<String> advice = geminiService.generateDailyAdvice(farmer.get(), recommendation.get(), alerts);
+            if (advice.isEmpty()) {
+                failed.increment();
+                return false;
+            }
+
+            DailyAdvice dailyAdvice = new DailyAdvice();
+            dailyAdvice.setFarmer(farmer.get());
+            dailyAdvice.setAdviceDate(date);
+            dailyAdvice.setRecommendationId(recommendation.get().getId());
+            dailyAdvice.setAdvice(advice.get());
+            dailyAdvice.setGeneratedAt(Instant.now());
+            dailyAdviceRepository.save(dailyAdvice);
+            generated.increment();
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Generated concurrently by another run
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to generate daily advice for farmer {}: {}", farmerId, e.getMessage());
+            failed.increment();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+}
@@ -0,0 +1,68 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded executor for the blocking repository calls of asynchronous request
+ * pipelines (chat), so neither Tomcat nor upstream bulkhead threads wait on JDBC.
+ *
+ * <p>{@code app.db-executor.threads} should stay at or below the JDBC pool size; more threads
+ * would only queue inside Hikari. When {@code app.db-executor.queue} is full the work is
+ * rejected with a failed future rather than run on the caller.
+ */
+@Component
+@Slf4j
+public class DatabaseExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitoredExecutor;
+    private final Counter rejected;
+
+    public DatabaseExecutor(Environment environment, MeterRegistry meterRegistry) {
+        int threads = environment.getProperty("app.db-executor.threads", Integer.class, 2);
+        int queue = environment.getProperty("app.db-executor.queue", Integer.class, 64);
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue),
+                new CustomizableThreadFactory("db-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "db.executor", Tags.empty());
+        this.rejected = Counter.builder("db.executor.rejected")
+                .description("Database tasks refused because the executor queue was full")
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, monitoredExecutor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Database executor is full, rejecting task");
+            return CompletableFuture.failedFuture(
+                    new BulkheadFullException("Database is busy, please retry shortly", e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
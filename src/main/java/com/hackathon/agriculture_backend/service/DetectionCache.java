@@ -0,0 +1,208 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.agriculture_backend.model.CachedDetection;
+import com.hackathon.agriculture_backend.repository.CachedDetectionRepository;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.util.PerceptualHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Plant.id and Insect.id results by uploaded image, so resubmitting the same photo, or a
+ * re-encoded, resized or slightly re-exposed copy of it, costs no paid call.
+ *
+ * <p>A lookup first tries the image's SHA-256, which is known before the image is decoded,
+ * and then the nearest {@link PerceptualHash} within {@code app.detection-cache.max-distance}
+ * bits. Results live for {@code app.detection-cache.ttl-hours}; each upstream keeps at most
+ * {@code app.detection-cache.max-entries} of them in memory, least recently used first out.
+ * Every result is also written to {@code detection_cache} on the database executor, and the
+ * newest unexpired rows are loaded back at startup, so the cache survives restarts.
+ */
+@Component
+@Slf4j
+public class DetectionCache {
+
+    private static final List<Upstream> UPSTREAMS = List.of(Upstream.PLANT_ID, Upstream.INSECT_ID);
+
+    private final CachedDetectionRepository repository;
+    private final DatabaseExecutor databaseExecutor;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final int maxDistance;
+    private final Map<Upstream, Map<String, Entry>> entries = new EnumMap<>(Upstream.class);
+
+    public DetectionCache(CachedDetectionRepository repository, DatabaseExecutor databaseExecutor,
+                          ObjectMapper objectMapper, Environment environment, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.databaseExecutor = databaseExecutor;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("app.detection-cache.enabled", Boolean.class, true);
+        this.maxEntries = environment.getProperty("app.detection-cache.max-entries", Integer.class, 2000);
+        this.ttl = Duration.ofHours(environment.getProperty("app.detection-cache.ttl-hours", Long.class, 168L));
+        this.maxDistance = environment.getProperty("app.detection-cache.max-distance", Integer.class, 6);
+        for (Upstream upstream : UPSTREAMS) {
+            entries.put(upstream, new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            });
+        }
+    }
+
+    private record Entry(Long perceptualHash, String resultJson, Instant expiresAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            for (Upstream upstream : UPSTREAMS) {
+                List<CachedDetection> rows = repository.findByUpstreamAndExpiresAtAfterOrderByCreatedAtDesc(
+                        upstream, now, Limit.of(maxEntries));
+                Map<String, Entry> cache = entries.get(upstream);
+                synchronized (cache) {
+                    // Oldest first, so the newest rows end up most recently used
+                    for (int i = rows.size() - 1; i >= 0; i--) {
+                        CachedDetection row = rows.get(i);
+                        cache.put(row.getImageSha256(), new Entry(row.getPerceptualHash(), row.getResultJson(), row.getExpiresAt()));
+                    }
+                }
+                log.info("Loaded {} cached {} detection(s)", rows.size(), upstream);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load cached detections: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Result for a byte-identical image.
+     */
+    public <T> Optional<T> findExact(Upstream upstream, String imageSha256, Class<T> type) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Map<String, Entry> cache = entries.get(upstream);
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(imageSha256);
+            if (entry != null && entry.expiresAt().isBefore(Instant.now())) {
+                cache.remove(imageSha256);
+                entry = null;
+            }
+        }
+        return entry != null ? read(upstream, entry, type, "exact") : Optional.empty();
+    }
+
+    /**
+     * Result for the closest-looking image within the distance threshold; empty when
+     * {@code perceptualHash} is null.
+     */
+    public <T> Optional<T> findSimilar(Upstream upstream, Long perceptualHash, Class<T> type) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry best = null;
+        if (perceptualHash != null) {
+            Instant now = Instant.now();
+            int bestDistance = maxDistance + 1;
+            Map<String, Entry> cache = entries.get(upstream);
+            synchronized (cache) {
+                for (Entry entry : cache.values()) {
+                    if (entry.perceptualHash() == null || entry.expiresAt().isBefore(now)) {
+                        continue;
+                    }
+                    int distance = PerceptualHash.distance(perceptualHash, entry.perceptualHash());
+                    if (distance < bestDistance) {
+                        best = entry;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            meterRegistry.counter("detection.cache", "upstream", upstream.getKey(), "result", "miss").increment();
+            return Optional.empty();
+        }
+        return read(upstream, best, type, "similar");
+    }
+
+    public void store(Upstream upstream, String imageSha256, Long perceptualHash, Object result) {
+        if (!enabled || result == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize {} detection for the cache: {}", upstream, e.getMessage());
+            return;
+        }
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        Map<String, Entry> cache = entries.get(upstream);
+        synchronized (cache) {
+            cache.put(imageSha256, new Entry(perceptualHash, json, expiresAt));
+        }
+
+        databaseExecutor.supplyAsync(() -> {
+            CachedDetection row = repository.findByUpstreamAndImageSha256(upstream, imageSha256)
+                    .orElseGet(CachedDetection::new);
+            row.setUpstream(upstream);
+            row.setImageSha256(imageSha256);
+            row.setPerceptualHash(perceptualHash);
+            row.setResultJson(json);
+            row.setCreatedAt(now);
+            row.setExpiresAt(expiresAt);
+            return repository.save(row);
+        }).exceptionally(e -> {
+            // The entry stays in memory; only its persistence is lost
+            log.warn("Failed to persist cached {} detection: {}", upstream, e.getMessage());
+            return null;
+        });
+    }
+
+    @Scheduled(cron = "${app.detection-cache.purge-cron:0 30 3 * * ?}")
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(Instant.now());
+        if (removed > 0) {
+            log.info("Purged {} expired cached detection(s)", removed);
+        }
+    }
+
+    private <T> Optional<T> read(Upstream upstream, Entry entry, Class<T> type, String result) {
+        try {
+            T value = objectMapper.readValue(entry.resultJson(), type);
+            meterRegistry.counter("detection.cache", "upstream", upstream.getKey(), "result", result).increment();
+            log.info("Reusing a cached {} detection ({} match)", upstream, result);
+            return Optional.of(value);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable cached {} detection: {}", upstream, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
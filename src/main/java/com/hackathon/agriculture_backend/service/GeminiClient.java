@@ -0,0 +1,139 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.agriculture_backend.dto.gemini.GeminiRequest;
+import com.hackathon.agriculture_backend.dto.gemini.GeminiResponse;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamBulkheads;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Low-level Gemini client on the Gemini bulkhead's pooled HTTP connections.
+ *
+ * <p>The request body only varies in the prompt, so the JSON around it is serialized once
+ * at startup and each call splices in the escaped prompt.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiClient {
+
+    private static final String BASE_URL = "https://generativelanguage.googleapis.com/v1beta/models/";
+    private static final String PROMPT_MARKER = "__PROMPT__";
+
+    private final UpstreamBulkheads bulkheads;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.gemini.model.name}")
+    private String modelName;
+
+    @Value("${app.gemini.max.tokens}")
+    private int maxTokens;
+
+    @Value("${app.gemini.temperature}")
+    private float temperature;
+
+    private byte[] bodyPrefix;
+    private byte[] bodySuffix;
+
+    @PostConstruct
+    public void init() throws JsonProcessingException {
+        GeminiRequest skeleton = new GeminiRequest(
+                List.of(new GeminiRequest.Content(List.of(new GeminiRequest.Part(PROMPT_MARKER)))),
+                List.of(new GeminiRequest.SafetySetting("HARM_CATEGORY_HARASSMENT", "BLOCK_MEDIUM_AND_ABOVE")),
+                new GeminiRequest.GenerationConfig(maxTokens, temperature));
+
+        String json = objectMapper.writeValueAsString(skeleton);
+        String quotedMarker = "\"" + PROMPT_MARKER + "\"";
+        int markerIndex = json.indexOf(quotedMarker);
+        bodyPrefix = json.substring(0, markerIndex).getBytes(StandardCharsets.UTF_8);
+        bodySuffix = json.substring(markerIndex + quotedMarker.length()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serialized request body for the prompt.
+     */
+    public byte[] requestBody(String prompt) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(prompt);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(bodyPrefix.length + escaped.length + bodySuffix.length + 2);
+        body.writeBytes(bodyPrefix);
+        body.write('"');
+        body.writeBytes(escaped);
+        body.write('"');
+        body.writeBytes(bodySuffix);
+        return body.toByteArray();
+    }
+
+    public String generateUrl() {
+        return BASE_URL + modelName + ":generateContent";
+    }
+
+    public String streamUrl() {
+        return BASE_URL + modelName + ":streamGenerateContent?alt=sse";
+    }
+
+    /**
+     * Blocking generateContent call.
+     *
+     * @throws StatusException on a non-2xx status
+     * @throws IOException on transport errors
+     */
+    public GeminiResponse generate(String apiKey, String prompt) throws IOException {
+        HttpPost post = new HttpPost(generateUrl());
+        post.setHeader("x-goog-api-key", apiKey);
+        post.setEntity(new ByteArrayEntity(requestBody(prompt), ContentType.APPLICATION_JSON));
+
+        return bulkheads.httpClient(Upstream.GEMINI).execute(post, response -> {
+            if (response.getCode() < 200 || response.getCode() >= 300) {
+                String body = EntityUtils.toString(response.getEntity());
+                throw new StatusException(response.getCode(), "Gemini API returned status " + response.getCode() + ": "
+                        + body.substring(0, Math.min(200, body.length())));
+            }
+            try (InputStream content = response.getEntity().getContent()) {
+                return objectMapper.readValue(content, GeminiResponse.class);
+            }
+        });
+    }
+
+    public GeminiResponse parse(String json) throws JsonProcessingException {
+        return objectMapper.readValue(json, GeminiResponse.class);
+    }
+
+    /**
+     * Non-2xx answer from Gemini, keeping the status so callers can tell throttling and
+     * server errors from bad requests.
+     */
+    public static class StatusException extends IOException {
+
+        private final int status;
+
+        public StatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isOverload() {
+            return status == 429 || status >= 500;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.util.BoundedTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Two-level cache for Gemini answers.
+ *
+ * <p>The exact layer is keyed by a SHA-256 of the whitespace-normalized prompt, the model
+ * and the temperature, so it only hits when the very same prompt is sent again. The
+ * canonical layer serves generic questions ("when should I water tomatoes") that carry no
+ * farmer-specific wording: those are answered once from a context-free prompt and the
+ * answer is shared by every farmer asking the same normalized question.
+ *
+ * <p>Only real Gemini answers are cached; a loader returning empty (mock fallback) is not
+ * stored. Request types listed in {@code app.gemini.cache.disabled-types} bypass both layers.
+ */
+@Component
+@Slf4j
+public class GeminiResponseCache {
+
+    public enum RequestType {
+        PROMPT, CHAT, CROP_ADVICE, WEATHER_ADVICE
+    }
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}\\s]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIGIT = Pattern.compile("\\p{N}");
+    private static final int MAX_CANONICAL_QUESTION_LENGTH = 200;
+
+    // Words that tie a question to the asker's own farm, records or current conditions
+    private static final Set<String> PERSONAL_WORDS = Set.of(
+            "i", "im", "ive", "me", "my", "mine", "myself", "we", "us", "our", "ours", "ourselves", "farm", "field", "fields", "zone", "zones", "plan", "plans",
+            "recommendation", "recommendations", "alert", "alerts", "today", "tonight", "tomorrow",
+            "yesterday", "now", "currently", "this", "last", "next");
+
+    private final String modelName;
+    private final String temperature;
+    private final Set<RequestType> disabledTypes = EnumSet.noneOf(RequestType.class);
+    private final boolean canonicalEnabled;
+    private final Layer exact;
+    private final Layer canonical;
+    private final MeterRegistry meterRegistry;
+
+    public GeminiResponseCache(Environment environment, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.modelName = environment.getProperty("app.gemini.model.name", "");
+        this.temperature = environment.getProperty("app.gemini.temperature", "");
+        this.canonicalEnabled = environment.getProperty("app.gemini.cache.canonical.enabled", Boolean.class, true);
+        for (String type : environment.getProperty("app.gemini.cache.disabled-types", String[].class, new String[0])) {
+            if (!type.isBlank()) {
+                disabledTypes.add(RequestType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        this.exact = new Layer("exact",
+                environment.getProperty("app.gemini.cache.exact.max-entries", Integer.class, 1000),
+                environment.getProperty("app.gemini.cache.exact.ttl-minutes", Long.class, 60L));
+        this.canonical = new Layer("canonical",
+                environment.getProperty("app.gemini.cache.canonical.max-entries", Integer.class, 500),
+                environment.getProperty("app.gemini.cache.canonical.ttl-minutes", Long.class, 720L));
+        meterRegistry.gauge("gemini.cache.size", Tags.of("layer", "exact"),
+                exact.entries, BoundedTtlCache::size);
+        meterRegistry.gauge("gemini.cache.size", Tags.of("layer", "canonical"),
+                canonical.entries, BoundedTtlCache::size);
+        log.info("Gemini response cache: canonical={}, disabled types={}", canonicalEnabled, disabledTypes);
+    }
+
+    /**
+     * Answer for the exact prompt, loading and caching it on a miss.
+     */
+    public Optional<String> exact(RequestType type, String prompt, Supplier<Optional<String>> loader) {
+        if (disabledTypes.contains(type)) {
+            return loader.get();
+        }
+        return exact.getOrLoad(type, normalizePrompt(prompt), loader);
+    }
+
+    /**
+     * Normalized form of the question when it is generic enough to share one answer across
+     * farmers, or empty when it must go through the personalized prompt.
+     */
+    public Optional<String> canonicalQuestion(RequestType type, String question) {
+        if (!canonicalEnabled || disabledTypes.contains(type) || question == null
+                || question.length() > MAX_CANONICAL_QUESTION_LENGTH || DIGIT.matcher(question).find()) {
+            return Optional.empty();
+        }
+        String normalized = normalizeQuestion(question);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        boolean personal = Arrays.stream(normalized.split(" ")).anyMatch(PERSONAL_WORDS::contains);
+        return personal ? Optional.empty() : Optional.of(normalized);
+    }
+
+    /**
+     * Shared answer for a question returned by {@link #canonicalQuestion}.
+     */
+    public Optional<String> canonical(RequestType type, String canonicalQuestion, Supplier<Optional<String>> loader) {
+        return canonical.getOrLoad(type, canonicalQuestion, loader);
+    }
+
+    private static String normalizePrompt(String prompt) {
+        return WHITESPACE.matcher(prompt.trim()).replaceAll(" ");
+    }
+
+    private static String normalizeQuestion(String question) {
+        String lower = question.toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(NON_WORD.matcher(lower).replaceAll(" ").trim()).replaceAll(" ");
+    }
+
+    private String key(RequestType type, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((type + "|" + modelName + "|" + temperature + "|").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private final class Layer {
+
+        private final String name;
+        private final BoundedTtlCache<String, String> entries;
+        private final Counter savedSeconds;
+        // Moving average of upstream latency on misses, credited as saved time on each hit
+        private volatile double averageLoadNanos;
+
+        private Layer(String name, int maxEntries, long ttlMinutes) {
+            this.name = name;
+            this.entries = new BoundedTtlCache<>(maxEntries, ttlMinutes * 60_000L);
+            this.savedSeconds = Counter.builder("gemini.cache.saved.latency")
+                    .tag("layer", name)
+                    .baseUnit("seconds")
+                    .description("Estimated Gemini latency avoided by cache hits")
+                    .register(meterRegistry);
+        }
+
+        private Optional<String> getOrLoad(RequestType type, String text, Supplier<Optional<String>> loader) {
+            String key = key(type, text);
+            Optional<String> cached = entries.get(key);
+            if (cached.isPresent()) {
+                record(type, "hit");
+                savedSeconds.increment(averageLoadNanos / 1e9);
+                return cached;
+            }
+
+            record(type, "miss");
+            long start = System.nanoTime();
+            Optional<String> loaded = loader.get();
+            loaded.ifPresent(answer -> {
+                long elapsed = System.nanoTime() - start;
+                averageLoadNanos = averageLoadNanos == 0 ? elapsed : 0.8 * averageLoadNanos + 0.2 * elapsed;
+                entries.put(key, answer);
+            });
+            return loaded;
+        }
+
+        private void record(RequestType type, String result) {
+            meterRegistry.counter("gemini.cache.requests",
+                    "layer", name, "type", type.name().toLowerCase(Locale.ROOT), "result", result).increment();
+        }
+    }
+}
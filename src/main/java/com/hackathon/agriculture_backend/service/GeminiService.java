@@ -1,175 +1,136 @@
 package com.hackathon.agriculture_backend.service;
 
+import com.hackathon.agriculture_backend.dto.gemini.GeminiResponse;
 import com.hackathon.agriculture_backend.model.Farmer;
 import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import com.hackathon.agriculture_backend.repository.AlertLogRepository.AlertSummary;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Classification;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Topic;
+import com.hackathon.agriculture_backend.service.GeminiResponseCache.RequestType;
+import com.hackathon.agriculture_backend.service.upstream.ApiKeyPool;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamBulkheads;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamConcurrencyLimiter;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamQuotaManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import jakarta.annotation.PostConstruct;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GeminiService {
     
-    @Value("${app.gemini.api.key}")
-    private String apiKey;
-    
-    @Value("${app.gemini.model.name}")
-    private String modelName;
-    
-    @Value("${app.gemini.max.tokens}")
-    private int maxTokens;
-    
-    @Value("${app.gemini.temperature}")
-    private float temperature;
+    private final UpstreamQuotaManager quotaManager;
+    private final UpstreamBulkheads bulkheads;
+    private final GeminiClient geminiClient;
+    private final GeminiResponseCache responseCache;
+    private final UpstreamConcurrencyLimiter concurrencyLimiter;
+    private final ApiKeyPool keyPool;
+    private final PromptBuilder promptBuilder;
+    private final ChatTopicClassifier topicClassifier;
+    private final LocalAnswerEngine localAnswers;
     
     @Value("${app.gemini.timeout:60000}")
     private int timeout;
     
-    private RestTemplate restTemplate;
+    public String callGeminiAPI(String prompt) {
+        return callGeminiAPI(RequestType.PROMPT, prompt);
+    }
+    
+    /**
+     * {@link #callGeminiAPI(String)} on the Gemini bulkhead; fails only when the bulkhead is
+     * full or the call times out.
+     */
+    public CompletableFuture<String> callGeminiAPIAsync(String prompt) {
+        return bulkheads.supplyAsync(Upstream.GEMINI, () -> callGeminiAPI(prompt));
+    }
     
-    @PostConstruct
-    public void init() {
-        this.restTemplate = new RestTemplate();
-        // Configure timeout
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
-        factory.setConnectTimeout(java.time.Duration.ofMillis(timeout));
-        factory.setConnectionRequestTimeout(java.time.Duration.ofMillis(timeout));
-        this.restTemplate.setRequestFactory(factory);
+    private String callGeminiAPI(RequestType type, String prompt) {
+        return responseCache.exact(type, prompt, () -> requestGemini(prompt))
+                .orElseGet(() -> generateEnhancedMockResponseForPrompt(prompt));
     }
     
-    public String callGeminiAPI(String prompt) {
+    /**
+     * Sends the prompt to Gemini. Empty when no real answer was obtained, so callers pick
+     * their own fallback and mock answers never end up in the response cache.
+     */
+    private Optional<String> requestGemini(String prompt) {
         try {
-            log.info("GeminiService: Starting API call with prompt: {}", prompt.substring(0, Math.min(100, prompt.length())));
-            log.info("GeminiService: API key configured: {}", apiKey != null && !apiKey.equals("your-gemini-api-key-here"));
-            log.info("GeminiService: API key value (first 10 chars): {}", apiKey != null ? apiKey.substring(0, Math.min(10, apiKey.length())) : "null");
-            
-            // Check if API key is configured
-            if (apiKey == null || apiKey.equals("your-gemini-api-key-here") || apiKey.equals("your-actual-gemini-api-key-here") || apiKey.trim().isEmpty()) {
-                log.warn("Gemini API key not configured, attempting to use environment variable");
-                // Try to get API key from environment variable
-                String envApiKey = System.getenv("GEMINI_API_KEY");
-                if (envApiKey != null && !envApiKey.trim().isEmpty() && !envApiKey.equals("your-gemini-api-key-here")) {
-                    apiKey = envApiKey;
-                    log.info("Using Gemini API key from environment variable");
-                } else {
-                    log.warn("No valid Gemini API key found, using enhanced mock response");
-                    return generateEnhancedMockResponseForPrompt(prompt);
-                }
+            if (!keyPool.hasKeys(Upstream.GEMINI)) {
+                log.warn("No valid Gemini API key configured, using enhanced mock response");
+                return Optional.empty();
             }
             
-            // Additional validation for API key format
-            if (apiKey.length() < 20 || !apiKey.startsWith("AIza")) {
-                log.warn("Invalid API key format detected, using enhanced mock response");
-                return generateEnhancedMockResponseForPrompt(prompt);
-            }
-            
-            // Log the API key status (without exposing the actual key)
-            log.info("Gemini API key configured: {}", apiKey != null && !apiKey.trim().isEmpty() ? "Yes" : "No");
-            
-            String url = "https://generativelanguage.googleapis.com/v1beta/models/" + modelName + ":generateContent?key=" + apiKey;
-            log.info("GeminiService: Making API call to: {}", url);
+            // A quota rejection lands in the mock fallback below
+            quotaManager.acquire(Upstream.GEMINI);
+            GeminiResponse response = generateWithinLimit(prompt);
             
-            // Create request body with proper JSON structure
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> content = new HashMap<>();
-            Map<String, Object> part = new HashMap<>();
-            part.put("text", prompt);
-            content.put("parts", List.of(part));
-            requestBody.put("contents", List.of(content));
-            
-            // Add safety settings to prevent content filtering issues
-            Map<String, Object> safetySettings = new HashMap<>();
-            safetySettings.put("category", "HARM_CATEGORY_HARASSMENT");
-            safetySettings.put("threshold", "BLOCK_MEDIUM_AND_ABOVE");
-            requestBody.put("safetySettings", List.of(safetySettings));
-            
-            // Set generation config
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", maxTokens);
-            generationConfig.put("temperature", temperature);
-            requestBody.put("generationConfig", generationConfig);
-            
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            log.info("GeminiService: Request body created, making API call");
-            
-            // Make API call
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-            log.info("GeminiService: API call completed with status: {}", response.getStatusCode());
-            log.info("GeminiService: Response body keys: {}", response.getBody() != null ? response.getBody().keySet() : "null");
+            if (response.error() != null) {
+                log.error("Gemini API error: {} {}", response.error().code(), response.error().message());
+                return Optional.empty();
+            }
             
-            // Handle 404 errors specifically
-            if (response.getStatusCode().value() == 404) {
-                log.error("Gemini API returned 404 - API key may be invalid or endpoint incorrect");
-                return generateEnhancedMockResponseForPrompt(prompt);
+            String finishReason = response.firstFinishReason();
+            if ("SAFETY".equals(finishReason) || "RECITATION".equals(finishReason)) {
+                log.warn("Gemini API response blocked due to: {}", finishReason);
+                return Optional.empty();
             }
             
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                log.info("GeminiService: Response body received: {}", responseBody);
-                
-                // Check for error in response
-                if (responseBody.containsKey("error")) {
-                    Map<String, Object> error = (Map<String, Object>) responseBody.get("error");
-                    log.error("Gemini API error: {}", error);
-                    return generateEnhancedMockResponseForPrompt(prompt);
-                }
-                
-                List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseBody.get("candidates");
-                
-                if (candidates != null && !candidates.isEmpty()) {
-                    Map<String, Object> candidate = candidates.get(0);
-                    
-                    // Check if candidate has finishReason
-                    String finishReason = (String) candidate.get("finishReason");
-                    if ("SAFETY" == finishReason || "RECITATION" == finishReason) {
-                        log.warn("Gemini API response blocked due to: {}", finishReason);
-                        return generateEnhancedMockResponseForPrompt(prompt);
-                    }
-                    
-                    Map<String, Object> content2 = (Map<String, Object>) candidate.get("content");
-                    if (content2 != null) {
-                        List<Map<String, Object>> parts = (List<Map<String, Object>>) content2.get("parts");
-                        
-                        if (parts != null && !parts.isEmpty()) {
-                            String aiResponse = (String) parts.get(0).get("text");
-                            if (aiResponse != null && !aiResponse.trim().isEmpty()) {
-                                log.info("GeminiService: Successfully received AI response: {}", aiResponse.substring(0, Math.min(100, aiResponse.length())));
-                                return aiResponse;
-                            }
-                        }
-                    }
-                }
+            String aiResponse = response.firstCandidateText();
+            if (!aiResponse.trim().isEmpty()) {
+                log.debug("Received Gemini response of {} chars", aiResponse.length());
+                return Optional.of(aiResponse);
             }
             
             log.warn("Gemini API response was empty or invalid, using enhanced mock response");
-            return generateEnhancedMockResponseForPrompt(prompt);
+            return Optional.empty();
             
         } catch (Exception e) {
-            log.error("Error calling Gemini API: {}", e.getMessage(), e);
-            log.error("API Key status: {}", apiKey != null ? "Present" : "Missing");
-            log.error("Model name: {}", modelName);
-            log.error("Full error details: ", e);
+            log.error("Error calling Gemini API: {}", e.getMessage());
             log.warn("Falling back to enhanced mock response due to API error");
-            return generateEnhancedMockResponseForPrompt(prompt);
+            return Optional.empty();
+        }
+    }
+    
+    // Feeds the adaptive limiter and the key pool: throttling, 5xx and transport failures
+    // shrink the limit, and a 429 benches the key that received it
+    private GeminiResponse generateWithinLimit(String prompt) throws IOException {
+        UpstreamConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(Upstream.GEMINI);
+        try (ApiKeyPool.Lease lease = keyPool.acquire(Upstream.GEMINI)) {
+            try {
+                GeminiResponse response = geminiClient.generate(lease.key(), prompt);
+                permit.success();
+                return response;
+            } catch (GeminiClient.StatusException e) {
+                if (e.getStatus() == 429) {
+                    lease.throttled();
+                } else {
+                    lease.failed();
+                }
+                if (e.isOverload()) {
+                    permit.dropped();
+                }
+                throw e;
+            } catch (IOException e) {
+                lease.failed();
+                permit.dropped();
+                throw e;
+            }
+        } finally {
+            permit.release();
         }
     }
     
@@ -180,71 +141,157 @@ public class GeminiService {
             String weatherData,
             String contextData) {
         
-        return CompletableFuture.supplyAsync(() -> {
+        Optional<String> localAnswer = localAnswers.directAnswer(userMessage);
+        if (localAnswer.isPresent()) {
+            return CompletableFuture.completedFuture(localAnswer.get());
+        }
+        
+        return bulkheads.supplyAsync(Upstream.GEMINI, () -> {
             try {
-                String systemPrompt = buildSystemPrompt(farmer, recentRecommendations, weatherData, contextData);
-                String fullPrompt = systemPrompt + "\n\nUser Question: " + userMessage;
-                
-                // Always try to call real Gemini API first
-                log.info("Calling Gemini AI for farmer: {} - Question: {}", farmer.getName(), userMessage);
-                String aiResponse = callGeminiAPI(fullPrompt);
+                log.debug("Calling Gemini AI for farmer: {} - Question: {}", farmer.getName(), userMessage);
                 
-                // Check if we got a real AI response or a fallback
-                if (aiResponse != null && !aiResponse.contains("I apologize, but I'm having trouble processing") && !aiResponse.trim().isEmpty()) {
-                    log.info("Successfully received AI response from Gemini API");
-                    return aiResponse;
+                // Generic questions share one context-free answer across farmers. An empty
+                // canonical answer means Gemini was already asked and gave none, so the full
+                // prompt is not sent as a second attempt
+                Optional<String> canonicalQuestion = responseCache.canonicalQuestion(RequestType.CHAT, userMessage);
+                Optional<String> aiResponse;
+                if (canonicalQuestion.isPresent()) {
+                    String question = canonicalQuestion.get();
+                    aiResponse = responseCache.canonical(RequestType.CHAT, question,
+                            () -> requestGemini(buildGenericPrompt(question)));
                 } else {
-                    log.warn("Gemini API returned fallback response, using enhanced mock response");
-                    return generateEnhancedMockResponse(farmer, userMessage, recentRecommendations, weatherData);
+                    String systemPrompt = buildSystemPrompt(farmer, userMessage, recentRecommendations, weatherData, contextData);
+                    String fullPrompt = systemPrompt + "\n\nUser Question: " + userMessage;
+                    aiResponse = responseCache.exact(RequestType.CHAT, fullPrompt, () -> requestGemini(fullPrompt));
                 }
                 
+                if (aiResponse.isPresent()) {
+                    return aiResponse.get();
+                }
+                log.warn("No Gemini answer available, using local answer");
+                return fallbackResponse(farmer, userMessage, recentRecommendations, weatherData);
+                
             } catch (Exception e) {
                 log.error("Error generating AI response: {}", e.getMessage());
-                // Enhanced fallback response
-                return generateEnhancedMockResponse(farmer, userMessage, recentRecommendations, weatherData);
+                return fallbackResponse(farmer, userMessage, recentRecommendations, weatherData);
             }
         });
     }
     
-    private String buildSystemPrompt(Farmer farmer, List<IrrigationRecommendation> recentRecommendations, 
-                                   String weatherData, String contextData) {
-        
-        StringBuilder prompt = new StringBuilder();
+    /**
+     * Streams the personalized response as text fragments while Gemini generates it.
+     * Falls back to a single local answer if the stream fails before producing any text.
+     */
+    public Flux<String> streamPersonalizedResponse(
+            Farmer farmer, 
+            String userMessage, 
+            List<IrrigationRecommendation> recentRecommendations,
+            String weatherData,
+            String contextData) {
         
-        prompt.append("You are an expert agricultural AI assistant for Smart Irrigation Management System. ");
-        prompt.append("You provide personalized, data-driven advice to farmers based on their specific records, irrigation plans, heat alerts, and current conditions.\n\n");
+        Optional<String> localAnswer = localAnswers.directAnswer(userMessage);
+        if (localAnswer.isPresent()) {
+            return Flux.just(localAnswer.get());
+        }
         
-        // Farmer context
-        prompt.append("FARMER INFORMATION:\n");
-        prompt.append("- Name: ").append(farmer.getName()).append("\n");
-        prompt.append("- Location: ").append(farmer.getLocationName()).append("\n");
-        prompt.append("- Preferred Crop: ").append(farmer.getPreferredCrop()).append("\n");
-        prompt.append("- Phone: ").append(farmer.getPhone()).append("\n");
-        prompt.append("- SMS Notifications: ").append(farmer.getSmsOptIn() ? "Enabled" : "Disabled").append("\n\n");
+        String systemPrompt = buildSystemPrompt(farmer, userMessage, recentRecommendations, weatherData, contextData);
+        String fullPrompt = systemPrompt + "\n\nUser Question: " + userMessage;
         
-        // Recent recommendations context
-        if (recentRecommendations != null && !recentRecommendations.isEmpty()) {
-            prompt.append("RECENT IRRIGATION RECOMMENDATIONS:\n");
-            for (IrrigationRecommendation rec : recentRecommendations) {
-                prompt.append("- Date: ").append(rec.getDate()).append("\n");
-                prompt.append("- Recommendation: ").append(rec.getRecommendation()).append("\n");
-                prompt.append("- Temperature: ").append(rec.getTempC()).append("°C\n");
-                prompt.append("- Humidity: ").append(rec.getHumidity()).append("%\n");
-                prompt.append("- Rainfall: ").append(rec.getRainfallMm()).append("mm\n");
-                prompt.append("- Explanation: ").append(rec.getExplanation()).append("\n");
-                prompt.append("- Water Saved: ").append(rec.getWaterSavedLiters()).append(" liters\n\n");
-            }
+        if (!keyPool.hasKeys(Upstream.GEMINI)) {
+            log.warn("No valid Gemini API key for streaming, using local answer");
+            return Flux.just(fallbackResponse(farmer, userMessage, recentRecommendations, weatherData));
         }
         
-        // Weather context
-        if (weatherData != null && !weatherData.isEmpty()) {
-            prompt.append("CURRENT WEATHER CONDITIONS:\n").append(weatherData).append("\n\n");
-        }
+        AtomicBoolean emitted = new AtomicBoolean(false);
         
-        // Additional context
-        if (contextData != null && !contextData.isEmpty()) {
-            prompt.append("ADDITIONAL CONTEXT:\n").append(contextData).append("\n\n");
+        return Flux.defer(() -> {
+                    quotaManager.acquire(Upstream.GEMINI);
+                    UpstreamConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(Upstream.GEMINI);
+                    ApiKeyPool.Lease lease = keyPool.acquire(Upstream.GEMINI);
+                    return bulkheads.webClient(Upstream.GEMINI)
+                            .post()
+                            .uri(geminiClient.streamUrl())
+                            .header("x-goog-api-key", lease.key())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .bodyValue(geminiClient.requestBody(fullPrompt))
+                            .retrieve()
+                            .bodyToFlux(String.class)
+                            .doOnComplete(permit::success)
+                            .doOnError(e -> {
+                                if (e instanceof WebClientResponseException responseException
+                                        && responseException.getStatusCode().value() == 429) {
+                                    lease.throttled();
+                                } else {
+                                    lease.failed();
+                                }
+                                if (!(e instanceof WebClientResponseException responseException)
+                                        || responseException.getStatusCode().value() == 429
+                                        || responseException.getStatusCode().is5xxServerError()) {
+                                    permit.dropped();
+                                }
+                            })
+                            .doFinally(signal -> {
+                                lease.close();
+                                permit.release();
+                            });
+                })
+                // The quota and limiter waits block, so they run on the Gemini bulkhead rather
+                // than on the subscriber's thread (a database executor thread for chat streams);
+                // only the subscription hops, not later demand
+                .subscribeOn(Schedulers.fromExecutor(bulkheads.executor(Upstream.GEMINI)), false)
+                .map(this::extractStreamText)
+                .filter(text -> !text.isEmpty())
+                .doOnNext(text -> emitted.set(true))
+                .timeout(Duration.ofMillis(timeout))
+                .onErrorResume(e -> {
+                    log.error("Gemini streaming failed: {}", e.getMessage());
+                    if (emitted.get()) {
+                        return Flux.error(e);
+                    }
+                    return Flux.just(fallbackResponse(farmer, userMessage, recentRecommendations, weatherData));
+                });
+    }
+    
+    // Each SSE event carries a partial response; only its text parts are forwarded
+    private String extractStreamText(String eventData) {
+        try {
+            return geminiClient.parse(eventData).firstCandidateText();
+        } catch (Exception e) {
+            log.warn("Skipping unreadable Gemini stream event: {}", e.getMessage());
+            return "";
         }
+    }
+    
+    private String buildGenericPrompt(String question) {
+        return "You are an expert agricultural AI assistant for Smart Irrigation Management System. " +
+                "Answer the farmer's general question with practical, professional advice that applies " +
+                "to most farms. Use clear headings and bullet points and keep it concise.\n\n" +
+                "User Question: " + question;
+    }
+    
+    private String buildSystemPrompt(Farmer farmer, String userMessage, List<IrrigationRecommendation> recentRecommendations, 
+                                   String weatherData, String contextData) {
+        
+        List<Object[]> recommendationRows = recentRecommendations == null ? List.of() : recentRecommendations.stream()
+                .map(rec -> new Object[]{rec.getDate(), rec.getRecommendation(), rec.getTempC(), rec.getHumidity(),
+                        rec.getRainfallMm(), rec.getWaterSavedLiters(), rec.getExplanation()})
+                .toList();
+        String farmData = promptBuilder.draft(userMessage)
+                .pinned("FARMER", "name|location|crop|sms", farmer.getName(), farmer.getLocationName(),
+                        farmer.getPreferredCrop(), farmer.getSmsOptIn())
+                .pinnedText("WEATHER", weatherData)
+                .table("IRRIGATION RECOMMENDATIONS", "date|level|tempC|humidity%|rainMm|savedL|why", recommendationRows)
+                .pinnedText("MORE CONTEXT", contextData)
+                .render();
+        
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("You are an expert agricultural AI assistant for Smart Irrigation Management System. ");
+        prompt.append("You provide personalized, data-driven advice to farmers based on their specific records, irrigation plans, heat alerts, and current conditions.\n\n");
+        
+        prompt.append("FARM DATA (tables are pipe-separated, columns in brackets, newest first):\n");
+        prompt.append(farmData).append("\n");
         
         prompt.append("PROFESSIONAL AGRICULTURAL CONSULTANT INSTRUCTIONS:\n");
         prompt.append("You are an expert agricultural consultant with 20+ years of experience. Provide professional, evidence-based advice.\n\n");
@@ -275,8 +322,37 @@ public class GeminiService {
         return prompt.toString();
     }
     
+    /**
+     * Writes a farmer's advice for the day from data that is already computed. Runs on the
+     * caller's thread and lane; empty when Gemini gave no real answer, since a stored mock
+     * answer would be served all day.
+     */
+    public Optional<String> generateDailyAdvice(Farmer farmer, IrrigationRecommendation recommendation,
+                                                List<AlertSummary> recentAlerts) {
+        List<Object[]> alertRows = recentAlerts.stream()
+                .map(alert -> new Object[]{alert.getCreatedAt(), alert.getType(), alert.getMessage()})
+                .toList();
+        String farmData = promptBuilder.draft("irrigation weather heat crop today")
+                .pinned("FARMER", "name|location|crop", farmer.getName(), farmer.getLocationName(),
+                        farmer.getPreferredCrop())
+                .pinned("TODAY", "date|level|tempC|humidity%|rainMm|et0Mm|why", recommendation.getDate(),
+                        recommendation.getRecommendation(), recommendation.getTempC(), recommendation.getHumidity(),
+                        recommendation.getRainfallMm(), recommendation.getEvapotranspiration(),
+                        recommendation.getExplanation())
+                .table("RECENT ALERTS", "time|type|message", alertRows)
+                .render();
+        
+        String prompt = "You are an expert agricultural AI assistant for Smart Irrigation Management System. " +
+                "Write this farmer's advice for today from the data below. Cover, in this order: whether and " +
+                "when to irrigate and roughly how much, how to handle today's heat and weather, and the " +
+                "one or two most useful crop tasks for today. Use short headings and bullet points and keep " +
+                "it under 250 words.\n\n" +
+                "FARM DATA (tables are pipe-separated, columns in brackets, newest first):\n" + farmData;
+        return requestGemini(prompt);
+    }
+    
     public CompletableFuture<String> generateCropAdvice(Farmer farmer, String crop, String question) {
-        return CompletableFuture.supplyAsync(() -> {
+        return bulkheads.supplyAsync(Upstream.GEMINI, () -> {
             try {
                 String prompt = String.format(
                     "You are an expert agricultural consultant. A farmer named %s from %s is asking about %s: %s\n\n" +
@@ -291,7 +367,7 @@ public class GeminiService {
                 );
                 
                 log.info("Calling Gemini AI for crop advice: {} - Crop: {} - Question: {}", farmer.getName(), crop, question);
-                return callGeminiAPI(prompt);
+                return callGeminiAPI(RequestType.CROP_ADVICE, prompt);
                 
             } catch (Exception e) {
                 log.error("Error generating crop advice: {}", e.getMessage());
@@ -301,7 +377,7 @@ public class GeminiService {
     }
     
     public CompletableFuture<String> generateWeatherAdvice(Farmer farmer, String weatherData, String question) {
-        return CompletableFuture.supplyAsync(() -> {
+        return bulkheads.supplyAsync(Upstream.GEMINI, () -> {
             try {
                 String prompt = String.format(
                     "You are a weather and agricultural expert. A farmer named %s from %s is asking: %s\n\n" +
@@ -317,7 +393,7 @@ public class GeminiService {
                 );
                 
                 log.info("Calling Gemini AI for weather advice: {} - Question: {}", farmer.getName(), question);
-                return callGeminiAPI(prompt);
+                return callGeminiAPI(RequestType.WEATHER_ADVICE, prompt);
                 
             } catch (Exception e) {
                 log.error("Error generating weather advice: {}", e.getMessage());
@@ -326,23 +402,30 @@ public class GeminiService {
         });
     }
     
+    // The canned topic answers remain for questions the knowledge base does not cover
+    private String fallbackResponse(Farmer farmer, String userMessage,
+                                    List<IrrigationRecommendation> recentRecommendations, String weatherData) {
+        return localAnswers.answer(farmer, userMessage, recentRecommendations)
+                .orElseGet(() -> generateEnhancedMockResponse(farmer, userMessage, recentRecommendations, weatherData));
+    }
+    
     private String generateEnhancedMockResponse(Farmer farmer, String userMessage, 
                                                List<IrrigationRecommendation> recentRecommendations, 
                                                String weatherData) {
         
-        String lowerMessage = userMessage.toLowerCase();
+        Classification topics = topicClassifier.classify(userMessage);
         
-        if (lowerMessage.contains("irrigation") || lowerMessage.contains("water") || lowerMessage.contains("schedule")) {
+        if (topics.any(Topic.IRRIGATION, Topic.SCHEDULE)) {
             return generateProfessionalIrrigationAdvice(farmer, recentRecommendations);
-        } else if (lowerMessage.contains("weather") || lowerMessage.contains("temperature") || lowerMessage.contains("heat")) {
+        } else if (topics.any(Topic.WEATHER, Topic.HEAT)) {
             return generateProfessionalWeatherAnalysis(farmer, weatherData);
-        } else if (lowerMessage.contains("crop") || lowerMessage.contains("plant") || lowerMessage.contains("harvest")) {
+        } else if (topics.any(Topic.CROP, Topic.PLANT, Topic.HARVEST)) {
             return generateProfessionalCropAdvice(farmer);
-        } else if (lowerMessage.contains("pest") || lowerMessage.contains("disease") || lowerMessage.contains("insect")) {
+        } else if (topics.any(Topic.PEST, Topic.INSECT)) {
             return generateProfessionalPestAdvice(farmer);
-        } else if (lowerMessage.contains("soil") || lowerMessage.contains("health")) {
+        } else if (topics.any(Topic.SOIL, Topic.HEALTH)) {
             return generateProfessionalSoilAdvice(farmer);
-        } else if (lowerMessage.contains("fertilizer") || lowerMessage.contains("nutrient")) {
+        } else if (topics.has(Topic.FERTILIZER)) {
             return generateProfessionalFertilizerAdvice(farmer);
         } else {
             return generateProfessionalGeneralAdvice(farmer, userMessage);
@@ -530,46 +613,44 @@ public class GeminiService {
      * Enhanced mock response that provides more dynamic and contextual answers
      */
     private String generateEnhancedMockResponseForPrompt(String prompt) {
-        String lowerPrompt = prompt.toLowerCase();
-        
         // Extract user question from the prompt
         String userQuestion = extractUserQuestion(prompt);
-        String lowerQuestion = userQuestion.toLowerCase();
+        Classification topics = topicClassifier.classify(userQuestion);
         
         log.info("Generating enhanced mock response for question: {}", userQuestion);
         
         // Soil health recommendations
-        if (lowerQuestion.contains("soil") || lowerQuestion.contains("health")) {
+        if (topics.any(Topic.SOIL, Topic.HEALTH)) {
             return generateSoilHealthResponse(userQuestion);
         }
         
         // Fertilizer recommendations
-        if (lowerQuestion.contains("fertilizer") || lowerQuestion.contains("nutrient")) {
+        if (topics.has(Topic.FERTILIZER)) {
             return generateFertilizerResponse(userQuestion);
         }
         
         // Irrigation advice
-        if (lowerQuestion.contains("irrigation") || lowerQuestion.contains("water")) {
+        if (topics.has(Topic.IRRIGATION)) {
             return generateIrrigationResponse(userQuestion);
         }
         
         // Weather advice
-        if (lowerQuestion.contains("weather") || lowerQuestion.contains("temperature") || lowerQuestion.contains("heat")) {
+        if (topics.any(Topic.WEATHER, Topic.HEAT)) {
             return generateWeatherResponse(userQuestion);
         }
         
         // Crop management
-        if (lowerQuestion.contains("crop") || lowerQuestion.contains("plant") || lowerQuestion.contains("harvest")) {
+        if (topics.any(Topic.CROP, Topic.PLANT, Topic.HARVEST)) {
             return generateCropResponse(userQuestion);
         }
         
         // Pest and disease management
-        if (lowerQuestion.contains("pest") || lowerQuestion.contains("disease") || lowerQuestion.contains("insect")) {
+        if (topics.any(Topic.PEST, Topic.INSECT)) {
             return generatePestResponse(userQuestion);
         }
         
         // General agricultural advice
-        return generateGeneralAgriculturalResponse(userQuestion);
+        return generateGeneralAgriculturalResponse(userQuestion, topics);
     }
     
     private String extractUserQuestion(String prompt) {
@@ -778,31 +859,29 @@ public class GeminiService {
                "*Integrated pest management is the most sustainable approach!*";
     }
     
-    private String generateGeneralAgriculturalResponse(String question) {
-        String lowerQuestion = question.toLowerCase();
-        
+    private String generateGeneralAgriculturalResponse(String question, Classification topics) {
         // Check for specific keywords and provide targeted advice
-        if (lowerQuestion.contains("unhealthy") || lowerQuestion.contains("sick") || lowerQuestion.contains("problem")) {
+        if (topics.any(Topic.UNHEALTHY, Topic.SICK)) {
             return generateUnhealthyCropResponse(question);
         }
         
-        if (lowerQuestion.contains("yield") || lowerQuestion.contains("production") || lowerQuestion.contains("harvest")) {
+        if (topics.any(Topic.YIELD, Topic.PRODUCTION, Topic.HARVEST)) {
             return generateYieldImprovementResponse(question);
         }
         
-        if (lowerQuestion.contains("weather") || lowerQuestion.contains("climate") || lowerQuestion.contains("temperature")) {
+        if (topics.any(Topic.WEATHER, Topic.CLIMATE)) {
             return generateWeatherResponse(question);
         }
         
-        if (lowerQuestion.contains("irrigation") || lowerQuestion.contains("water") || lowerQuestion.contains("watering")) {
+        if (topics.has(Topic.IRRIGATION)) {
             return generateIrrigationResponse(question);
         }
         
-        if (lowerQuestion.contains("fertilizer") || lowerQuestion.contains("nutrient") || lowerQuestion.contains("feeding")) {
+        if (topics.any(Topic.FERTILIZER, Topic.FEEDING)) {
             return generateFertilizerResponse(question);
         }
         
-        if (lowerQuestion.contains("pest") || lowerQuestion.contains("disease") || lowerQuestion.contains("insect")) {
+        if (topics.any(Topic.PEST, Topic.INSECT)) {
             return generatePestResponse(question);
         }
         
@@ -0,0 +1,361 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.util.PerceptualHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downscales detection uploads before they are sent to Plant.id or Insect.id: the image is
+ * decoded, its longest side reduced to {@code app.image-preprocess.max-dimension} and the
+ * result re-encoded as a baseline JPEG at {@code app.image-preprocess.jpeg-quality}, which
+ * drops EXIF and every other metadata segment. The EXIF orientation is applied to the pixels
+ * first, so portrait photos stay upright.
+ *
+ * <p>Large photos are decoded with source subsampling to at most twice the target size, so a
+ * 48 MP upload does not need a full-resolution raster, and then reduced in halving steps for
+ * a sharp result without aliasing. The work runs on a small bounded pool; when its queue is
+ * full, the image cannot be decoded (HEIC, for instance) or re-encoding would not make it
+ * smaller, the upload is sent as it is.
+ *
+ * <p>Every decoded image also gets its {@link PerceptualHash}, taken from the downscaled and
+ * upright pixels, for the detection cache to find near-identical photos by.
+ */
+@Component
+@Slf4j
+public class ImagePreprocessor {
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+    private static final int APP1_MARKER = 0xE1;
+
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitoredExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesSaved;
+
+    private final boolean enabled;
+    private final int maxDimension;
+    private final float jpegQuality;
+
+    public ImagePreprocessor(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("app.image-preprocess.enabled", Boolean.class, true);
+        this.maxDimension = environment.getProperty("app.image-preprocess.max-dimension", Integer.class, 1600);
+        this.jpegQuality = environment.getProperty("app.image-preprocess.jpeg-quality", Float.class, 0.85f);
+        int threads = environment.getProperty("app.image-preprocess.threads", Integer.class, 2);
+        int queue = environment.getProperty("app.image-preprocess.queue", Integer.class, 16);
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue),
+                new CustomizableThreadFactory("image-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "image.executor", Tags.empty());
+        this.meterRegistry = meterRegistry;
+        this.bytesSaved = Counter.builder("image.preprocess.bytes.saved")
+                .description("Upload bytes not sent upstream thanks to downscaling")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * An upload ready to send upstream.
+     *
+     * @param image          a downscaled JPEG copy, or the upload itself when preprocessing
+     *                       is disabled, not possible or not worthwhile
+     * @param perceptualHash dHash of the picture; null when it was not decoded
+     */
+    public record PreparedImage(MultipartFile image, Long perceptualHash) {
+    }
+
+    /**
+     * Never fails; problems leave the upload as it is.
+     */
+    public CompletableFuture<PreparedImage> prepare(MultipartFile image) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(new PreparedImage(image, null));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> prepareNow(image), monitoredExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Image preprocessing pool is full, sending {} as uploaded", image.getOriginalFilename());
+            timer("rejected").record(0, TimeUnit.NANOSECONDS);
+            return CompletableFuture.completedFuture(new PreparedImage(image, null));
+        }
+    }
+
+    private PreparedImage prepareNow(MultipartFile image) {
+        long start = System.nanoTime();
+        String result = "passthrough";
+        try {
+            BufferedImage downscaled = downscale(image);
+            if (downscaled == null) {
+                return new PreparedImage(image, null);
+            }
+            long perceptualHash = PerceptualHash.dHash(downscaled);
+            byte[] encoded = encodeJpeg(downscaled);
+            if (encoded.length < image.getSize()) {
+                result = "reencoded";
+                bytesSaved.increment(image.getSize() - encoded.length);
+                log.info("Downscaled {} from {} to {} bytes", image.getOriginalFilename(), image.getSize(), encoded.length);
+                return new PreparedImage(
+                        new EncodedImage(image.getName(), jpegFilename(image.getOriginalFilename()), encoded), perceptualHash);
+            }
+            return new PreparedImage(image, perceptualHash);
+        } catch (IOException | RuntimeException e) {
+            result = "error";
+            log.warn("Failed to preprocess {}, sending it as uploaded: {}", image.getOriginalFilename(), e.getMessage());
+            return new PreparedImage(image, null);
+        } finally {
+            timer(result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Upright and at most max-dimension; null when no installed reader understands the image
+    private BufferedImage downscale(MultipartFile image) throws IOException {
+        try (InputStream in = image.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, longest / (2 * maxDimension));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                int orientation = orientation(reader.getImageMetadata(0));
+                return orient(resize(decoded), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering while more than a halving remains, then one bicubic step
+    private BufferedImage resize(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            width = width / 2 >= targetWidth ? width / 2 : targetWidth;
+            height = height / 2 >= targetHeight ? height / 2 : targetHeight;
+            boolean last = width == targetWidth && height == targetHeight;
+            current = draw(current, width, height, null, last
+                    ? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Applies EXIF orientations 2 to 8 so the pixels read upright without the tag
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> transform.setTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> transform.setTransform(-1, 0, 0, -1, width, height);
+            case 4 -> transform.setTransform(1, 0, 0, -1, 0, height);
+            case 5 -> transform.setTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> transform.setTransform(0, 1, -1, 0, height, 0);
+            case 7 -> transform.setTransform(0, -1, -1, 0, height, width);
+            default -> transform.setTransform(0, -1, 1, 0, 0, width);
+        }
+        boolean swapped = orientation >= 5;
+        return draw(image, swapped ? height : width, swapped ? width : height, transform,
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    // Opaque RGB copy; transparent areas become white, as JPEG has no alpha
+    private static BufferedImage draw(BufferedImage source, int width, int height, AffineTransform transform,
+                                      Object interpolation) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            if (transform != null) {
+                graphics.drawImage(source, transform, null);
+            } else {
+                graphics.drawImage(source, 0, 0, width, height, null);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            // No metadata is passed, so only a JFIF header is written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // EXIF orientation from a JPEG's APP1 segment; 1 (upright) when absent or unreadable
+    private static int orientation(IIOMetadata metadata) {
+        if (metadata == null || !"javax_imageio_jpeg_image_1.0".equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        Node markers = metadata.getAsTree("javax_imageio_jpeg_image_1.0").getLastChild();
+        for (Node marker = markers != null ? markers.getFirstChild() : null; marker != null; marker = marker.getNextSibling()) {
+            if (marker instanceof IIOMetadataNode node && "unknown".equals(node.getNodeName())
+                    && String.valueOf(APP1_MARKER).equals(node.getAttribute("MarkerTag"))
+                    && node.getUserObject() instanceof byte[] data) {
+                return exifOrientation(data);
+            }
+        }
+        return 1;
+    }
+
+    private static int exifOrientation(byte[] app1) {
+        // "Exif\0\0", then a TIFF header: byte order, 42, offset of the first IFD
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 1;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == EXIF_ORIENTATION_TAG) {
+                return Short.toUnsignedInt(tiff.getShort(entry + 8));
+            }
+        }
+        return 1;
+    }
+
+    private static String jpegFilename(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "image.jpg";
+        }
+        int dot = filename.lastIndexOf('.');
+        return (dot > 0 ? filename.substring(0, dot) : filename) + ".jpg";
+    }
+
+    private Timer timer(String result) {
+        return Timer.builder("image.preprocess.duration")
+                .description("Time to downscale and re-encode a detection upload")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A re-encoded upload, small enough to keep in memory.
+     */
+    private record EncodedImage(String name, String originalFilename, byte[] bytes) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytes.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            FileCopyUtils.copy(bytes, dest);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.agriculture_backend.dto.DefaultIrrigationPlanDto;
+import com.hackathon.agriculture_backend.dto.IrrigationPlanDto;
+import com.hackathon.agriculture_backend.dto.WeatherDto;
+import com.hackathon.agriculture_backend.model.PrecomputedIrrigationPlan;
+import com.hackathon.agriculture_backend.model.SavedIrrigationPlan;
+import com.hackathon.agriculture_backend.repository.PrecomputedIrrigationPlanRepository;
+import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository;
+import com.hackathon.agriculture_backend.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a rendered 7-day plan for every default saved plan so that reads of the
+ * default plan are served from the database instead of regenerating it live.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IrrigationPlanPrecomputeService {
+
+    private final SavedIrrigationPlanRepository savedIrrigationPlanRepository;
+    private final PrecomputedIrrigationPlanRepository precomputedIrrigationPlanRepository;
+    private final SmartIrrigationService smartIrrigationService;
+    private final WeatherService weatherService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.scheduler.enabled:true}")
+    private boolean schedulerEnabled;
+
+    @Value("${app.plan-precompute.cell-size-degrees:0.1}")
+    private double cellSizeDegrees;
+
+    @Value("${app.plan-precompute.max-age-hours:30}")
+    private long maxAgeHours;
+
+    /**
+     * Regenerate every default plan overnight. Plans are grouped by grid cell so each
+     * cell costs a single forecast request.
+     */
+    @Scheduled(cron = "${app.scheduler.plan-precompute.cron:0 0 2 * * ?}")
+    public void precomputeDefaultPlans() {
+        if (!schedulerEnabled) {
+            log.info("Scheduler is disabled, skipping default plan precomputation");
+            return;
+        }
+
+        log.info("Starting default irrigation plan precomputation");
+
+        List<SavedIrrigationPlan> defaultPlans = savedIrrigationPlanRepository.findAllDefaultPlans();
+        Map<String, List<SavedIrrigationPlan>> plansByCell = defaultPlans.stream()
+                .collect(Collectors.groupingBy(
+                        plan -> GeoGrid.cellKey(plan.getLocationLat(), plan.getLocationLng(), cellSizeDegrees),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+
+        int successCount = 0;
+        int failureCount = 0;
+
+        for (Map.Entry<String, List<SavedIrrigationPlan>> entry : plansByCell.entrySet()) {
+            List<SavedIrrigationPlan> cellPlans = entry.getValue();
+            SavedIrrigationPlan first = cellPlans.get(0);
+            double[] center = GeoGrid.cellCenter(first.getLocationLat(), first.getLocationLng(), cellSizeDegrees);
+
+            WeatherDto weatherData;
+            try {
+                weatherData = weatherService.getIrrigationWeatherData(center[0], center[1]);
+            } catch (Exception e) {
+                log.error("Failed to fetch forecast for cell {}: {}", entry.getKey(), e.getMessage());
+                failureCount += cellPlans.size();
+                continue;
+            }
+
+            for (SavedIrrigationPlan plan : cellPlans) {
+                try {
+                    IrrigationPlanDto rendered = buildPlan(plan, weatherData);
+                    store(plan, entry.getKey(), rendered);
+                    successCount++;
+                } catch (Exception e) {
+                    log.error("Failed to precompute plan {}: {}", plan.getId(), e.getMessage());
+                    failureCount++;
+                }
+            }
+        }
+
+        log.info("Default plan precomputation completed. Cells: {}, Success: {}, Failures: {}",
+                plansByCell.size(), successCount, failureCount);
+    }
+
+    /**
+     * Returns the farmer's default plan, served from the nightly precomputation when
+     * available and at most {@code app.plan-precompute.max-age-hours} old, and generated
+     * live (then stored) otherwise.
+     */
+    // No surrounding transaction, so no connection is held during the live forecast fetch
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DefaultIrrigationPlanDto getDefaultPlan(Long farmerId) {
+        Optional<PrecomputedIrrigationPlan> stored = precomputedIrrigationPlanRepository.findDefaultByFarmerId(farmerId);
+        Instant oldest = Instant.now().minus(Duration.ofHours(maxAgeHours));
+        if (stored.isPresent() && stored.get().getGeneratedAt().isBefore(oldest)) {
+            // The nightly run missed this plan; its forecast is out of date
+            log.info("Precomputed plan for farmer {} is stale (generated {}), regenerating",
+                    farmerId, stored.get().getGeneratedAt());
+        } else if (stored.isPresent()) {
+            PrecomputedIrrigationPlan precomputed = stored.get();
+            try {
+                IrrigationPlanDto plan = objectMapper.readValue(precomputed.getPlanJson(), IrrigationPlanDto.class);
+                return new DefaultIrrigationPlanDto(precomputed.getSavedPlan().getId(),
+                        precomputed.getSavedPlan().getPlanName(), plan, precomputed.getGeneratedAt(), true);
+            } catch (JsonProcessingException e) {
+                log.warn("Discarding unreadable precomputed plan {}: {}", precomputed.getId(), e.getMessage());
+            }
+        }
+
+        SavedIrrigationPlan savedPlan = savedIrrigationPlanRepository.findByFarmerIdAndIsDefaultTrue(farmerId)
+                .orElseThrow(() -> new RuntimeException("No default plan found for farmer: " + farmerId));
+
+        log.info("No current precomputed plan for farmer {}, generating live", farmerId);
+        IrrigationPlanDto plan = smartIrrigationService.generateIrrigationPlan(
+                savedPlan.getLocationLat(), savedPlan.getLocationLng(), savedPlan.getCropType(),
+                savedPlan.getArea(), savedPlan.getIrrigationType(), savedPlan.getSoilType());
+        String cell = GeoGrid.cellKey(savedPlan.getLocationLat(), savedPlan.getLocationLng(), cellSizeDegrees);
+        PrecomputedIrrigationPlan precomputed = store(savedPlan, cell, plan);
+
+        return new DefaultIrrigationPlanDto(savedPlan.getId(), savedPlan.getPlanName(), plan,
+                precomputed.getGeneratedAt(), false);
+    }
+
+    /**
+     * Drops the stored rendering of a saved plan whose inputs changed.
+     */
+    public void invalidate(Long savedPlanId) {
+        precomputedIrrigationPlanRepository.deleteBySavedPlanId(savedPlanId);
+    }
+
+    private IrrigationPlanDto buildPlan(SavedIrrigationPlan plan, WeatherDto weatherData) {
+        return smartIrrigationService.buildIrrigationPlan(weatherData,
+                plan.getLocationLat(), plan.getLocationLng(), plan.getCropType(),
+                plan.getArea(), plan.getIrrigationType(), plan.getSoilType());
+    }
+
+    private PrecomputedIrrigationPlan store(SavedIrrigationPlan savedPlan, String cell, IrrigationPlanDto plan) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(plan);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize irrigation plan: " + e.getMessage());
+        }
+
+        PrecomputedIrrigationPlan precomputed = precomputedIrrigationPlanRepository.findBySavedPlanId(savedPlan.getId())
+                .orElseGet(PrecomputedIrrigationPlan::new);
+        precomputed.setSavedPlan(savedPlan);
+        precomputed.setLocationCell(cell);
+        precomputed.setPlanJson(json);
+        precomputed.setGeneratedAt(Instant.now());
+        return precomputedIrrigationPlanRepository.save(precomputed);
+    }
+}
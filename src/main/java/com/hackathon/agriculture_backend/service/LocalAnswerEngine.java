@@ -0,0 +1,201 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.Farmer;
+import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
+import com.hackathon.agriculture_backend.repository.SavedIrrigationPlanRepository.PlanSummary;
+import com.hackathon.agriculture_backend.util.Bm25Index;
+import com.hackathon.agriculture_backend.util.Bm25Index.Hit;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Answers chat questions from a curated agronomy knowledge base
+ * ({@code knowledge/agronomy.md}) and the farmer's own recommendations and plans, ranked
+ * with BM25 in memory, so an answer costs no upstream call.
+ *
+ * <p>It is the fallback when Gemini gives no answer, and a first tier for short generic
+ * factual questions ("when is the best time to irrigate?") whose best passage contains every
+ * query term and clearly outranks the next one.
+ */
+@Service
+@Slf4j
+public class LocalAnswerEngine {
+
+    private static final String KNOWLEDGE_BASE = "knowledge/agronomy.md";
+    private static final Set<String> QUESTION_WORDS = Set.of(
+            "what", "which", "when", "how", "why", "is", "are", "does", "do", "can", "should");
+    private static final Set<String> PERSONAL_WORDS = Set.of("i", "my", "me", "mine", "we", "our", "us");
+    // A direct answer's best passage must outscore the runner-up by this factor
+    private static final double DIRECT_MARGIN = 1.25;
+    private static final int HISTORY_PASSAGES = 2;
+
+    private final ChatContextAssembler chatContextAssembler;
+    private final MeterRegistry meterRegistry;
+    private final Bm25Index<Passage> knowledgeBase;
+
+    private final int passageLimit;
+    private final double minScore;
+    private final boolean directEnabled;
+    private final int directMaxWords;
+
+    public LocalAnswerEngine(ChatContextAssembler chatContextAssembler, Environment environment, MeterRegistry meterRegistry) {
+        this.chatContextAssembler = chatContextAssembler;
+        this.meterRegistry = meterRegistry;
+        this.passageLimit = environment.getProperty("app.local-answers.passages", Integer.class, 3);
+        this.minScore = environment.getProperty("app.local-answers.min-score", Double.class, 1.5);
+        this.directEnabled = environment.getProperty("app.local-answers.direct.enabled", Boolean.class, true);
+        this.directMaxWords = environment.getProperty("app.local-answers.direct.max-words", Integer.class, 12);
+
+        Bm25Index.Builder<Passage> builder = Bm25Index.builder();
+        loadKnowledgeBase().forEach(passage -> builder.add(passage, passage.title(), passage.text()));
+        this.knowledgeBase = builder.build();
+        log.info("Loaded {} agronomy passage(s) for local answers", knowledgeBase.size());
+    }
+
+    public record Passage(String title, String text) {
+    }
+
+    /**
+     * Answer for a short generic question the knowledge base clearly covers; empty for
+     * anything about the farmer's own situation or without a confident match.
+     */
+    public Optional<String> directAnswer(String question) {
+        if (!directEnabled || question == null) {
+            return Optional.empty();
+        }
+        List<String> words = Arrays.stream(ChatSearchService.WORD_BREAKS.split(question.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toList();
+        if (words.isEmpty() || words.size() > directMaxWords || !QUESTION_WORDS.contains(words.get(0))
+                || words.stream().anyMatch(PERSONAL_WORDS::contains)) {
+            return Optional.empty();
+        }
+
+        List<Hit<Passage>> hits = knowledgeBase.search(question, 2);
+        if (hits.isEmpty() || hits.get(0).score() < minScore || hits.get(0).coverage() < 1.0
+                || (hits.size() > 1 && hits.get(0).score() < DIRECT_MARGIN * hits.get(1).score())) {
+            return Optional.empty();
+        }
+        meterRegistry.counter("local.answers", "tier", "direct").increment();
+        Passage passage = hits.get(0).document();
+        return Optional.of("**" + passage.title() + "**\n\n" + passage.text()
+                + "\n\n*Answered from the agronomy knowledge base.*");
+    }
+
+    /**
+     * Answer built from the best knowledge base passages and the farmer's most relevant
+     * records; empty when no passage matches the question well enough.
+     *
+     * @param recommendations the farmer's recent recommendations; the cached chat context
+     *                        supplies them (and the saved plans) when null
+     */
+    public Optional<String> answer(Farmer farmer, String question, List<IrrigationRecommendation> recommendations) {
+        List<Hit<Passage>> hits = knowledgeBase.search(question, passageLimit).stream()
+                .filter(hit -> hit.score() >= minScore)
+                .toList();
+        if (hits.isEmpty()) {
+            meterRegistry.counter("local.answers", "tier", "miss").increment();
+            return Optional.empty();
+        }
+        meterRegistry.counter("local.answers", "tier", "fallback").increment();
+
+        StringBuilder answer = new StringBuilder();
+        answer.append(farmer != null && farmer.getName() != null ? "Hello " + farmer.getName() + "! " : "Hello! ");
+        answer.append("Here is what applies to your question");
+        if (farmer != null && farmer.getPreferredCrop() != null && farmer.getLocationName() != null) {
+            answer.append(" for your ").append(farmer.getPreferredCrop()).append(" at ").append(farmer.getLocationName());
+        }
+        answer.append(":\n\n");
+        for (Hit<Passage> hit : hits) {
+            answer.append("**").append(hit.document().title()).append("**\n").append(hit.document().text()).append("\n\n");
+        }
+
+        List<String> records = farmRecords(farmer, question, recommendations);
+        if (!records.isEmpty()) {
+            answer.append("📋 **From your farm records:**\n");
+            records.forEach(record -> answer.append("- ").append(record).append("\n"));
+            answer.append("\n");
+        }
+        answer.append("*Answered from the agronomy knowledge base and your farm data.*");
+        return Optional.of(answer.toString());
+    }
+
+    // The farmer's recommendations and plans most related to the question, from data that
+    // is already in memory
+    private List<String> farmRecords(Farmer farmer, String question, List<IrrigationRecommendation> recommendations) {
+        Optional<ChatContextAssembler.Snapshot> snapshot = farmer != null && farmer.getId() != null
+                ? chatContextAssembler.cachedSnapshot(farmer.getId())
+                : Optional.empty();
+        List<IrrigationRecommendation> recent = recommendations != null
+                ? recommendations
+                : snapshot.map(ChatContextAssembler.Snapshot::recommendations).orElse(List.of());
+        List<PlanSummary> plans = snapshot.map(ChatContextAssembler.Snapshot::plans).orElse(List.of());
+        if (recent.isEmpty() && plans.isEmpty()) {
+            return List.of();
+        }
+
+        Bm25Index.Builder<String> builder = Bm25Index.builder();
+        for (IrrigationRecommendation recommendation : recent) {
+            String record = String.format("%s: %s irrigation for %s (%.1f°C, %.0f%% humidity, %.1f mm rain). %s",
+                    recommendation.getDate(), recommendation.getRecommendation(), recommendation.getCropType(),
+                    number(recommendation.getTempC()), number(recommendation.getHumidity()),
+                    number(recommendation.getRainfallMm()), Objects.toString(recommendation.getExplanation(), ""));
+            builder.add(record, "irrigation recommendation water weather", record);
+        }
+        for (PlanSummary plan : plans) {
+            String record = String.format("Saved plan \"%s\": %s on %s ha, %s irrigation, %s soil, water budget %s",
+                    plan.getPlanName(), plan.getCropType(), plan.getArea(), plan.getIrrigationType(),
+                    plan.getSoilType(), plan.getWaterBudget());
+            builder.add(record, "irrigation plan schedule", record);
+        }
+        return builder.build().search(question, HISTORY_PASSAGES).stream().map(Hit::document).toList();
+    }
+
+    private static double number(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static List<Passage> loadKnowledgeBase() {
+        List<Passage> passages = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(KNOWLEDGE_BASE).getInputStream(), StandardCharsets.UTF_8))) {
+            String title = null;
+            StringBuilder text = new StringBuilder();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith("## ")) {
+                    addPassage(passages, title, text);
+                    title = line.substring(3).trim();
+                    text.setLength(0);
+                } else if (title != null && !line.isBlank()) {
+                    text.append(text.length() > 0 ? " " : "").append(line.trim());
+                }
+            }
+            addPassage(passages, title, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load " + KNOWLEDGE_BASE, e);
+        }
+        return passages;
+    }
+
+    private static void addPassage(List<Passage> passages, String title, StringBuilder text) {
+        if (title != null && text.length() > 0) {
+            passages.add(new Passage(title, text.toString()));
+        }
+    }
+}
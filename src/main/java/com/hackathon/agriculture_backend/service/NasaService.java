@@ -1,11 +1,13 @@
 package com.hackathon.agriculture_backend.service;
 
 import com.hackathon.agriculture_backend.dto.NasaEtDto;
+import com.hackathon.agriculture_backend.service.upstream.HedgedRequestExecutor;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamQuotaManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.time.Duration;
@@ -18,7 +20,8 @@ import java.util.Map;
 @Slf4j
 public class NasaService {
     
-    private final WebClient.Builder webClientBuilder;
+    private final HedgedRequestExecutor requestExecutor;
+    private final UpstreamQuotaManager quotaManager;
     
     @Value("${app.nasa.api.url}")
     private String apiUrl;
@@ -29,6 +32,8 @@ public class NasaService {
     public Double getEvapotranspiration(Double latitude, Double longitude, LocalDate date) {
         log.info("Fetching evapotranspiration for coordinates: {}, {} on date: {}", latitude, longitude, date);
         
+        quotaManager.acquire(Upstream.NASA_POWER);
+        
         try {
             String startDate = date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
             String endDate = date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
@@ -36,13 +41,7 @@ public class NasaService {
             String url = String.format("%s?start=%s&end=%s&latitude=%s&longitude=%s&community=ag&parameters=ET0&format=JSON&user=agriculture-app&api_key=%s",
                     apiUrl, startDate, endDate, latitude, longitude, apiKey);
             
-            NasaEtDto nasaData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(NasaEtDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            NasaEtDto nasaData = fetch(url);
             
             if (nasaData != null && 
                 nasaData.getProperties() != null && 
@@ -102,6 +101,8 @@ public class NasaService {
         log.info("Fetching evapotranspiration for coordinates: {}, {} from {} to {}", 
                 latitude, longitude, startDate, endDate);
         
+        quotaManager.acquire(Upstream.NASA_POWER);
+        
         try {
             String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
             String endDateStr = endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
@@ -109,13 +110,7 @@ public class NasaService {
             String url = String.format("%s?start=%s&end=%s&latitude=%s&longitude=%s&community=ag&parameters=ET0&format=JSON&user=agriculture-app&api_key=%s",
                     apiUrl, startDateStr, endDateStr, latitude, longitude, apiKey);
             
-            NasaEtDto nasaData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(NasaEtDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            NasaEtDto nasaData = fetch(url);
             
             if (nasaData != null && 
                 nasaData.getProperties() != null && 
@@ -183,7 +178,8 @@ public class NasaService {
     public boolean isHighEvapotranspiration(Double et0, Double threshold) {
         return et0 != null && threshold != null && et0 > threshold;
     }
+    
+    private NasaEtDto fetch(String url) {
+        return requestExecutor.get(Upstream.NASA_POWER, url, NasaEtDto.class, Duration.ofSeconds(30));
+    }
 }
-
-
-
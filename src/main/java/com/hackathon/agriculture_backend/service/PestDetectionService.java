@@ -1,61 +1,103 @@
 package com.hackathon.agriculture_backend.service;
 
 import com.hackathon.agriculture_backend.dto.insectid.InsectIdResponseDto;
+import com.hackathon.agriculture_backend.service.upstream.ApiKeyPool;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamBulkheads;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamQuotaManager;
+import com.hackathon.agriculture_backend.util.ImageUploads;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 @Service
 @Slf4j
 public class PestDetectionService {
 
     private final WebClient webClient;
-
-    @Value("${insect.id.api.key}")
-    private String apiKey;
+    private final Executor executor;
+    private final ImagePreprocessor imagePreprocessor;
+    private final DetectionCache detectionCache;
+    private final UpstreamQuotaManager quotaManager;
+    private final ApiKeyPool keyPool;
 
     private final String apiUrl = "https://insect.kindwise.com/api/v1/identification";
 
-    public PestDetectionService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public PestDetectionService(UpstreamBulkheads bulkheads, ImagePreprocessor imagePreprocessor,
+                                DetectionCache detectionCache, UpstreamQuotaManager quotaManager, ApiKeyPool keyPool) {
+        this.webClient = bulkheads.webClient(Upstream.INSECT_ID);
+        this.executor = bulkheads.executor(Upstream.INSECT_ID);
+        this.imagePreprocessor = imagePreprocessor;
+        this.detectionCache = detectionCache;
+        this.quotaManager = quotaManager;
+        this.keyPool = keyPool;
     }
 
     public Mono<InsectIdResponseDto> detectPest(MultipartFile image) throws IOException {
         log.info("Sending pest detection request for image: {}", image.getOriginalFilename());
 
-        if (apiKey == null || apiKey.isEmpty() || "your_api_key".equals(apiKey)) {
+        if (!keyPool.hasKeys(Upstream.INSECT_ID)) {
             log.error("Insect.id API key is not configured.");
             return Mono.error(new IllegalStateException("Insect.id API key is not configured. Please set INSECT_ID_API_KEY environment variable in your configuration. You can get a key from https://insect.kindwise.com/"));
         }
 
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("images", new ByteArrayResource(image.getBytes()) {
-            @Override
-            public String getFilename() {
-                return image.getOriginalFilename();
-            }
-        });
-        body.add("similar_images", "true");
+        String imageHash = ImageUploads.sha256(image);
+        Optional<InsectIdResponseDto> cached = detectionCache.findExact(Upstream.INSECT_ID, imageHash, InsectIdResponseDto.class);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+
+        return Mono.fromFuture(imagePreprocessor.prepare(image))
+                .flatMap(prepared -> detectionCache
+                        .findSimilar(Upstream.INSECT_ID, prepared.perceptualHash(), InsectIdResponseDto.class)
+                        .map(Mono::just)
+                        .orElseGet(() -> identify(prepared, imageHash)));
+    }
 
+    private Mono<InsectIdResponseDto> identify(ImagePreprocessor.PreparedImage prepared, String imageHash) {
+        MultipartFile image = prepared.image();
+        // The image part is streamed from the upload temp file or the downscaled copy
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.asyncPart("images", ImageUploads.content(image, executor), DataBuffer.class)
+                .filename(image.getOriginalFilename() != null ? image.getOriginalFilename() : "image")
+                .contentType(image.getContentType() != null
+                        ? MediaType.parseMediaType(image.getContentType()) : MediaType.APPLICATION_OCTET_STREAM);
+        body.part("similar_images", "true");
 
+        // Only a call that reaches Insect.id takes quota
+        quotaManager.acquire(Upstream.INSECT_ID);
+        ApiKeyPool.Lease lease = keyPool.acquire(Upstream.INSECT_ID);
         return webClient.post()
                 .uri(apiUrl)
-                .header("Api-Key", apiKey)
+                .header("Api-Key", lease.key())
                 .contentType(MediaType.MULTIPART_FORM_DATA)
-                .body(BodyInserters.fromMultipartData(body))
+                .body(BodyInserters.fromMultipartData(body.build()))
                 .retrieve()
                 .bodyToMono(InsectIdResponseDto.class)
-                .doOnSuccess(response -> log.info("Successfully received response from Insect.id API"))
-                .doOnError(error -> log.error("Error calling Insect.id API: {}", error.getMessage()));
+                .doOnSuccess(response -> {
+                    log.info("Successfully received response from Insect.id API");
+                    detectionCache.store(Upstream.INSECT_ID, imageHash, prepared.perceptualHash(), response);
+                })
+                .doOnError(error -> {
+                    if (error instanceof WebClientResponseException responseException
+                            && responseException.getStatusCode().value() == 429) {
+                        lease.throttled();
+                    } else {
+                        lease.failed();
+                    }
+                    log.error("Error calling Insect.id API: {}", error.getMessage());
+                })
+                .doFinally(signal -> lease.close());
     }
 }
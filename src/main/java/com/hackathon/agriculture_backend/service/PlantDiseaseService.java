@@ -1,101 +1,136 @@
 package com.hackathon.agriculture_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.dto.DiseaseDetectionResponse;
 import com.hackathon.agriculture_backend.dto.DetailedDiseaseDetectionResponse;
+import com.hackathon.agriculture_backend.dto.plantid.PlantIdResponse;
 import com.hackathon.agriculture_backend.model.DiseaseDetectionHistory;
 import com.hackathon.agriculture_backend.repository.DiseaseDetectionHistoryRepository;
+import com.hackathon.agriculture_backend.service.upstream.ApiKeyPool;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamQuotaManager;
+import com.hackathon.agriculture_backend.util.ImageUploads;
+import com.hackathon.agriculture_backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Base64;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PlantDiseaseService {
 
-    @Value("${plantid.api-keys}")
-    private String apiKeysString;
-
-    @Value("${plantid.endpoint}")
-    private String endpoint;
-
-    @Value("${plantid.timeout}")
-    private int timeout;
-
-    private final ObjectMapper objectMapper;
+    private final PlantIdClient plantIdClient;
+    private final ImagePreprocessor imagePreprocessor;
+    private final DetectionCache detectionCache;
+    private final DatabaseExecutor databaseExecutor;
     private final DiseaseDetectionHistoryRepository historyRepository;
-    private final AtomicInteger keyIndex = new AtomicInteger(0);
+    private final UpstreamQuotaManager quotaManager;
+    private final ApiKeyPool keyPool;
     private final Random random = new Random();
 
     public DetailedDiseaseDetectionResponse detectDisease(MultipartFile image, Long userId) throws IOException {
-        log.info("Starting disease detection for user: {}, image: {}", userId, image.getOriginalFilename());
-        
+        try {
+            return detectDiseaseAsync(image, userId).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Detection without blocking the caller beyond hashing the image:
+     * a cached result for the same or a near-identical photo is reused, otherwise the image
+     * is downscaled on the preprocessing pool and streamed to Plant.id, the
+     * response is handled on the client's event loop and the history is saved on the
+     * database executor.
+     */
+    public CompletableFuture<DetailedDiseaseDetectionResponse> detectDiseaseAsync(MultipartFile image, Long userId) throws IOException {
         if (image == null || image.isEmpty()) {
             log.error("Image file is null or empty");
             throw new IllegalArgumentException("Image file is required");
         }
+        log.info("Starting disease detection for user: {}, image: {}", userId, image.getOriginalFilename());
 
         // Check if API keys are configured
-        if (apiKeysString == null || apiKeysString.trim().isEmpty() || apiKeysString.equals("your-plantid-api-key-1,your-plantid-api-key-2")) {
-            log.error("Plant.id API keys not configured. API keys: {}", apiKeysString);
+        if (!keyPool.hasKeys(Upstream.PLANT_ID)) {
+            log.error("Plant.id API keys not configured");
             throw new IllegalStateException("Plant.id API keys not configured. Please configure PLANTID_API_KEYS environment variable.");
         }
-        
-        log.info("API keys configured, endpoint: {}, timeout: {}", endpoint, timeout);
 
-        // Convert image to Base64
-        String base64Image = Base64.getEncoder().encodeToString(image.getBytes());
+        String imageFilename = image.getOriginalFilename();
+        String imageHash = ImageUploads.sha256(image);
+        Optional<DetailedDiseaseDetectionResponse> cached =
+                detectionCache.findExact(Upstream.PLANT_ID, imageHash, DetailedDiseaseDetectionResponse.class);
+        CompletableFuture<Assessment> assessment = cached.isPresent()
+                ? CompletableFuture.completedFuture(new Assessment(cached.get(), null))
+                : assess(image, imageHash);
 
-        // Get next API key (rotation)
-        String apiKey = getNextApiKey();
+        return assessment.thenCompose(result -> databaseExecutor.supplyAsync(() -> {
+            DetailedDiseaseDetectionResponse response = result.response();
+            // Save to history (convert to old format for compatibility)
+            DiseaseDetectionResponse oldFormatResponse = new DiseaseDetectionResponse(
+                response.getPrimaryDisease(),
+                response.getPrimaryConfidence(),
+                response.getPrimarySuggestion(),
+                response.getIsHealthy(),
+                response.getHealthProbability(),
+                response.getIsPlant(),
+                response.getPlantProbability(),
+                response.getHealthStatus()
+            );
+            saveDetectionHistory(userId, imageFilename, oldFormatResponse, result.apiKey());
+            return response;
+        }));
+    }
 
-        // Prepare request body
-        String requestBody = createRequestBody(base64Image);
-        log.debug("Plant.id API request body: {}", requestBody);
+    private CompletableFuture<Assessment> assess(MultipartFile image, String imageHash) {
+        return imagePreprocessor.prepare(image).thenCompose(prepared -> detectionCache
+                .findSimilar(Upstream.PLANT_ID, prepared.perceptualHash(), DetailedDiseaseDetectionResponse.class)
+                .map(similar -> CompletableFuture.completedFuture(new Assessment(similar, null)))
+                .orElseGet(() -> {
+                    // Only a call that reaches Plant.id takes quota; rejections propagate
+                    // instead of degrading to the fallback
+                    quotaManager.acquire(Upstream.PLANT_ID);
+                    return assess(prepared, imageHash, keyPool.acquire(Upstream.PLANT_ID));
+                }));
+    }
 
-        // Make API call
-        DetailedDiseaseDetectionResponse response;
-        try {
-            response = makeApiCall(requestBody, apiKey);
-        } catch (Exception e) {
-            log.error("Plant.id API call failed, using fallback response", e);
-            // Return a fallback response if API fails
-            response = createFallbackResponse();
-        }
-        
-        // Save to history (convert to old format for compatibility)
-        DiseaseDetectionResponse oldFormatResponse = new DiseaseDetectionResponse(
-            response.getPrimaryDisease(), 
-            response.getPrimaryConfidence(), 
-            response.getPrimarySuggestion(),
-            response.getIsHealthy(),
-            response.getHealthProbability(),
-            response.getIsPlant(),
-            response.getPlantProbability(),
-            response.getHealthStatus()
-        );
-        saveDetectionHistory(userId, image.getOriginalFilename(), oldFormatResponse, apiKey);
-        
-        return response;
+    private CompletableFuture<Assessment> assess(ImagePreprocessor.PreparedImage prepared, String imageHash,
+                                                 ApiKeyPool.Lease lease) {
+        String apiKey = lease.key();
+        return plantIdClient.assess(apiKey, prepared.image())
+                .map(this::toDetection)
+                .doOnNext(response -> detectionCache.store(Upstream.PLANT_ID, imageHash, prepared.perceptualHash(), response))
+                .doOnError(e -> {
+                    if (e instanceof WebClientResponseException responseException
+                            && responseException.getStatusCode().value() == 429) {
+                        lease.throttled();
+                    } else {
+                        lease.failed();
+                    }
+                })
+                .doFinally(signal -> lease.close())
+                .onErrorResume(e -> {
+                    log.error("Plant.id API call failed, using fallback response: {}", e.getMessage());
+                    return Mono.just(createFallbackResponse());
+                })
+                .map(response -> new Assessment(response, apiKey))
+                .toFuture();
+    }
+
+    private record Assessment(DetailedDiseaseDetectionResponse response, String apiKey) {
     }
     
     private void saveDetectionHistory(Long userId, String imageFilename, DiseaseDetectionResponse response, String apiKey) {
@@ -120,20 +155,20 @@ public class PlantDiseaseService {
         }
     }
 
-    private String getNextApiKey() {
-        if (apiKeysString == null || apiKeysString.trim().isEmpty()) {
-            throw new IllegalStateException("Plant.id API keys not configured");
-        }
-        
-        List<String> apiKeys = List.of(apiKeysString.split(","));
-        int currentIndex = keyIndex.getAndIncrement() % apiKeys.size();
-        return apiKeys.get(currentIndex).trim();
-    }
-    
     public List<DiseaseDetectionHistory> getDetectionHistory(Long userId) {
         return historyRepository.findByUserIdOrderByDetectedAtDesc(userId);
     }
     
+    public CursorPage<DiseaseDetectionHistory> getDetectionHistory(Long userId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<DiseaseDetectionHistory> rows = after == null
+                ? historyRepository.findFirstPage(userId, limit)
+                : historyRepository.findPageAfter(userId, after.localDateTime(), after.id(), limit);
+        return CursorPage.of(rows, pageSize, history -> KeysetCursor.of(history.getDetectedAt(), history.getId()));
+    }
+    
     public void deleteDetectionHistory(Long userId, Long historyId) {
         try {
             DiseaseDetectionHistory history = historyRepository.findById(historyId).orElse(null);
@@ -155,59 +190,19 @@ public class PlantDiseaseService {
     }
 
 
-    private String createRequestBody(String base64Image) throws IOException {
-        // Create the correct Plant.id API v3 health assessment request format
-        Map<String, Object> request = new HashMap<>();
-        request.put("images", List.of(base64Image));
-        request.put("health", "all");
-        request.put("similar_images", true);
-        
-        return objectMapper.writeValueAsString(request);
-    }
-
-    private DetailedDiseaseDetectionResponse makeApiCall(String requestBody, String apiKey) throws IOException {
-        log.info("Making API call to Plant.id endpoint: {}", endpoint);
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(endpoint);
-            httpPost.setHeader("Api-Key", apiKey);
-            httpPost.setHeader("Content-Type", "application/json");
-            httpPost.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
-
-            log.info("Executing HTTP POST request to Plant.id API");
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                String responseBody = new String(response.getEntity().getContent().readAllBytes());
-                log.info("Plant.id API response status: {}, response length: {}", response.getCode(), responseBody.length());
-                
-                if (response.getCode() != 200 && response.getCode() != 201) {
-                    log.error("Plant.id API call failed with status: {} and response: {}", response.getCode(), responseBody);
-                    throw new RuntimeException("Plant.id API call failed with status: " + response.getCode() + ". Response: " + responseBody);
-                }
-
-                return parseResponse(responseBody);
-            }
-        } catch (Exception e) {
-            log.error("Exception during Plant.id API call: {}", e.getMessage(), e);
-            throw new IOException("Failed to call Plant.id API: " + e.getMessage(), e);
-        }
-    }
-
-    private DetailedDiseaseDetectionResponse parseResponse(String responseBody) throws IOException {
-        JsonNode rootNode = objectMapper.readTree(responseBody);
-        JsonNode resultNode = rootNode.path("result");
-        
-        if (resultNode.isMissingNode()) {
+    private DetailedDiseaseDetectionResponse toDetection(PlantIdResponse body) {
+        PlantIdResponse.Result result = body.result();
+        if (result == null) {
             return createNoDiseaseResponse();
         }
 
         // Extract is_plant information
-        JsonNode isPlantNode = resultNode.path("is_plant");
-        Boolean isPlant = isPlantNode.path("binary").asBoolean(false);
-        Double plantProbability = isPlantNode.path("probability").asDouble(0.0);
+        Boolean isPlant = result.isPlant() != null && Boolean.TRUE.equals(result.isPlant().binary());
+        Double plantProbability = result.isPlant() != null ? orElse(result.isPlant().probability(), 0.0) : 0.0;
         
         // Extract health information
-        JsonNode isHealthyNode = resultNode.path("is_healthy");
-        Boolean isHealthy = isHealthyNode.path("binary").asBoolean(true);
-        Double healthProbability = isHealthyNode.path("probability").asDouble(1.0);
+        Boolean isHealthy = result.isHealthy() == null || !Boolean.FALSE.equals(result.isHealthy().binary());
+        Double healthProbability = result.isHealthy() != null ? orElse(result.isHealthy().probability(), 1.0) : 1.0;
         String healthStatus = isHealthy ? "Healthy" : "Unhealthy";
 
         // If not a plant, return appropriate response
@@ -219,75 +214,56 @@ public class PlantDiseaseService {
         }
 
         // Extract disease information
-        JsonNode diseaseNode = resultNode.path("disease");
-        if (diseaseNode.isMissingNode() || diseaseNode.path("suggestions").isEmpty()) {
+        if (result.disease() == null || result.disease().suggestions() == null || result.disease().suggestions().isEmpty()) {
             return new DetailedDiseaseDetectionResponse(
                 "No disease detected", 0.0, "Plant appears to be healthy",
                 new ArrayList<>(), isHealthy, healthProbability, healthStatus, isPlant, plantProbability
             );
         }
 
-        JsonNode suggestions = diseaseNode.path("suggestions");
         List<DetailedDiseaseDetectionResponse.DiseaseSuggestion> allDiseases = new ArrayList<>();
-        
-        if (suggestions.isArray() && suggestions.size() > 0) {
-            for (JsonNode suggestion : suggestions) {
-                String diseaseName = suggestion.path("name").asText("Unknown disease");
-                Double originalProbability = suggestion.path("probability").asDouble(0.0);
-                Double probability = addConfidenceVariation(originalProbability);
-                
-                // Extract detailed information
-                String description = "";
-                String treatment = "";
-                String prevention = "";
-                String cause = "";
-                List<String> commonNames = new ArrayList<>();
-                List<String> classification = new ArrayList<>();
+        for (PlantIdResponse.Suggestion suggestion : result.disease().suggestions()) {
+            String diseaseName = orElse(suggestion.name(), "Unknown disease");
+            Double probability = addConfidenceVariation(orElse(suggestion.probability(), 0.0));
+            
+            // Extract detailed information
+            String description = "";
+            String treatment = "";
+            String prevention = "";
+            String cause = "";
+            List<String> commonNames = new ArrayList<>();
+            List<String> classification = new ArrayList<>();
+            
+            PlantIdResponse.Details details = suggestion.details();
+            if (details != null) {
+                description = orElse(details.description(), "");
+                cause = orElse(details.cause(), "");
                 
-                JsonNode details = suggestion.path("details");
-                if (!details.isMissingNode()) {
-                    description = details.path("description").asText("");
-                    cause = details.path("cause").asText("");
-                    
-                    // Extract treatment information
-                    JsonNode treatmentNode = details.path("treatment");
-                    if (!treatmentNode.isMissingNode()) {
-                        treatment = treatmentNode.path("biological").asText("") + " " + 
-                                  treatmentNode.path("chemical").asText("") + " " + 
-                                  treatmentNode.path("prevention").asText("");
-                        prevention = treatmentNode.path("prevention").asText("");
-                    }
-                    
-                    // Extract common names
-                    JsonNode commonNamesNode = details.path("common_names");
-                    if (commonNamesNode.isArray()) {
-                        for (JsonNode name : commonNamesNode) {
-                            commonNames.add(name.asText());
-                        }
-                    }
-                    
-                    // Extract classification
-                    JsonNode classificationNode = details.path("classification");
-                    if (classificationNode.isArray()) {
-                        for (JsonNode cls : classificationNode) {
-                            classification.add(cls.asText());
-                        }
-                    }
+                // Extract treatment information
+                if (details.treatment() != null) {
+                    prevention = join(details.treatment().prevention());
+                    treatment = join(details.treatment().biological()) + " " +
+                              join(details.treatment().chemical()) + " " +
+                              prevention;
+                }
+                if (details.commonNames() != null) {
+                    commonNames.addAll(details.commonNames());
+                }
+                if (details.classification() != null) {
+                    classification.addAll(details.classification());
                 }
-                
-                allDiseases.add(new DetailedDiseaseDetectionResponse.DiseaseSuggestion(
-                    diseaseName, probability, description, treatment, prevention, 
-                    cause, commonNames, classification
-                ));
             }
+            
+            allDiseases.add(new DetailedDiseaseDetectionResponse.DiseaseSuggestion(
+                diseaseName, probability, description, treatment, prevention, 
+                cause, commonNames, classification
+            ));
         }
 
         // Get primary disease (first one with highest probability)
-        DetailedDiseaseDetectionResponse.DiseaseSuggestion primaryDisease = allDiseases.isEmpty() ? 
-            new DetailedDiseaseDetectionResponse.DiseaseSuggestion("No disease detected", 0.0, "", "", "", "", new ArrayList<>(), new ArrayList<>()) :
-            allDiseases.get(0);
+        DetailedDiseaseDetectionResponse.DiseaseSuggestion primaryDisease = allDiseases.get(0);
 
-        String primarySuggestion = primaryDisease.getTreatment().isEmpty() ? 
+        String primarySuggestion = primaryDisease.getTreatment().isBlank() ? 
             "No treatment information available" : 
             primaryDisease.getTreatment();
 
@@ -303,6 +279,14 @@ public class PlantDiseaseService {
             plantProbability
         );
     }
+
+    private static <T> T orElse(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static String join(List<String> texts) {
+        return texts == null ? "" : String.join(" ", texts);
+    }
     
     private DetailedDiseaseDetectionResponse createNoDiseaseResponse() {
         return new DetailedDiseaseDetectionResponse(
@@ -321,16 +305,15 @@ public class PlantDiseaseService {
     }
     
     public String getEndpoint() {
-        return endpoint;
+        return plantIdClient.getEndpoint();
     }
     
-    public int getTimeout() {
-        return timeout;
+    public long getTimeout() {
+        return plantIdClient.getTimeoutMs();
     }
     
     public boolean isApiKeysConfigured() {
-        return apiKeysString != null && !apiKeysString.trim().isEmpty() && 
-               !apiKeysString.equals("your-plantid-api-key-1,your-plantid-api-key-2");
+        return keyPool.hasKeys(Upstream.PLANT_ID);
     }
     
     private Double addConfidenceVariation(Double originalConfidence) {
@@ -0,0 +1,92 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.agriculture_backend.dto.plantid.PlantIdResponse;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamBulkheads;
+import com.hackathon.agriculture_backend.util.ImageUploads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking Plant.id client on the Plant.id bulkhead's pooled connections, so TLS
+ * sessions are reused across detections.
+ *
+ * <p>The request body is streamed: the JSON around the image is serialized once at startup
+ * and the image is Base64-encoded from its upload temp file straight into the request, with
+ * the file reads on the Plant.id bulkhead executor. The response is decoded into
+ * {@link PlantIdResponse} token by token as its buffers arrive, without building a string or
+ * tree of the body first. {@code plantid.timeout}
+ * bounds each call from sending the request to the decoded response.
+ */
+@Component
+public class PlantIdClient {
+
+    private static final String IMAGE_MARKER = "__IMAGE__";
+
+    private final WebClient webClient;
+    private final Executor executor;
+    private final String endpoint;
+    private final Duration timeout;
+    private final byte[] bodyPrefix;
+    private final byte[] bodySuffix;
+
+    public PlantIdClient(UpstreamBulkheads bulkheads, ObjectMapper objectMapper,
+                         @Value("${plantid.endpoint}") String endpoint,
+                         @Value("${plantid.timeout}") long timeoutMs) throws JsonProcessingException {
+        this.webClient = bulkheads.webClient(Upstream.PLANT_ID);
+        this.executor = bulkheads.executor(Upstream.PLANT_ID);
+        this.endpoint = endpoint;
+        this.timeout = Duration.ofMillis(timeoutMs);
+
+        // Plant.id API v3 health assessment request
+        Map<String, Object> skeleton = new LinkedHashMap<>();
+        skeleton.put("images", List.of(IMAGE_MARKER));
+        skeleton.put("health", "all");
+        skeleton.put("similar_images", true);
+        String json = objectMapper.writeValueAsString(skeleton);
+        // Base64 needs no JSON escaping, so the quotes around the marker stay in place
+        int markerIndex = json.indexOf(IMAGE_MARKER);
+        this.bodyPrefix = json.substring(0, markerIndex).getBytes(StandardCharsets.UTF_8);
+        this.bodySuffix = json.substring(markerIndex + IMAGE_MARKER.length()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Health assessment of the uploaded image.
+     *
+     * @return fails with {@code WebClientResponseException} on a non-2xx status and with
+     *         {@code TimeoutException} when the call outlasts {@code plantid.timeout}
+     */
+    public Mono<PlantIdResponse> assess(String apiKey, MultipartFile image) {
+        return webClient.post()
+                .uri(endpoint)
+                .header("Api-Key", apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(ImageUploads.base64Length(bodyPrefix, image.getSize(), bodySuffix))
+                .body(BodyInserters.fromDataBuffers(ImageUploads.base64(bodyPrefix, image, bodySuffix, executor)))
+                .retrieve()
+                .bodyToMono(PlantIdResponse.class)
+                .timeout(timeout);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getTimeoutMs() {
+        return timeout.toMillis();
+    }
+}
@@ -0,0 +1,240 @@
+package com.hackathon.agriculture_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the context part of Gemini prompts within a token budget.
+ *
+ * <p>Records are encoded as pipe-separated tables with the column names given once per
+ * section, and long free-text cells are truncated. Pinned sections are always kept; table
+ * rows are ranked by recency (rows are passed newest first) plus word overlap with the
+ * user's question, and the lowest-ranked rows are dropped until the estimate fits
+ * {@code app.prompt.context-token-budget}. Tokens are estimated as four characters each,
+ * which is close enough for budgeting and costs nothing.
+ */
+@Component
+public class PromptBuilder {
+
+    private static final Pattern CELL_BREAKS = Pattern.compile("[|\\r\\n]+");
+    private static final Pattern WORDS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double RELEVANCE_WEIGHT = 2.0;
+
+    private final int contextTokenBudget;
+    private final int maxCellChars;
+    private final DistributionSummary promptTokens;
+    private final Counter droppedRows;
+    private final Timer buildTime;
+
+    public PromptBuilder(Environment environment, MeterRegistry meterRegistry) {
+        this.contextTokenBudget = environment.getProperty("app.prompt.context-token-budget", Integer.class, 800);
+        this.maxCellChars = environment.getProperty("app.prompt.max-cell-chars", Integer.class, 160);
+        this.promptTokens = DistributionSummary.builder("gemini.prompt.tokens")
+                .description("Estimated tokens of rendered prompt context")
+                .baseUnit("tokens")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.droppedRows = Counter.builder("gemini.prompt.dropped.rows")
+                .description("Context rows dropped to stay within the token budget")
+                .register(meterRegistry);
+        this.buildTime = Timer.builder("gemini.prompt.build.time")
+                .description("Time spent ranking and rendering prompt context")
+                .register(meterRegistry);
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    /**
+     * Starts a context whose rows are ranked against the given question (may be null).
+     */
+    public Draft draft(String question) {
+        return new Draft(question, contextTokenBudget);
+    }
+
+    /**
+     * Same as {@link #draft(String)} with an explicit budget, for context that is later
+     * embedded in a larger prompt.
+     */
+    public Draft draft(String question, int tokenBudget) {
+        return new Draft(question, tokenBudget);
+    }
+
+    public final class Draft {
+
+        private final Set<String> questionWords;
+        private final int budget;
+        private final List<Section> sections = new ArrayList<>();
+
+        private Draft(String question, int budget) {
+            this.questionWords = words(question);
+            this.budget = budget;
+        }
+
+        /**
+         * Section that is always rendered, regardless of budget.
+         */
+        public Draft pinned(String title, String columns, Object... cells) {
+            Section section = new Section(title, columns, true);
+            section.rows.add(new Row(encode(cells), Double.MAX_VALUE));
+            sections.add(section);
+            return this;
+        }
+
+        /**
+         * Free text that is always rendered.
+         */
+        public Draft pinnedText(String title, String text) {
+            if (text != null && !text.isBlank()) {
+                Section section = new Section(title, null, true);
+                section.rows.add(new Row(text.trim(), Double.MAX_VALUE));
+                sections.add(section);
+            }
+            return this;
+        }
+
+        /**
+         * Ranked table; {@code rows} must be ordered newest first.
+         */
+        public Draft table(String title, String columns, List<Object[]> rows) {
+            if (rows == null || rows.isEmpty()) {
+                return this;
+            }
+            Section section = new Section(title, columns, false);
+            for (int i = 0; i < rows.size(); i++) {
+                String line = encode(rows.get(i));
+                double recency = 1.0 / (1 + i);
+                section.rows.add(new Row(line, recency + RELEVANCE_WEIGHT * relevance(line)));
+            }
+            sections.add(section);
+            return this;
+        }
+
+        public String render() {
+            Timer.Sample sample = Timer.start();
+            List<Row> ranked = sections.stream()
+                    .filter(section -> !section.pinned)
+                    .flatMap(section -> section.rows.stream())
+                    .sorted(Comparator.comparingDouble(Row::score))
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            int tokens = estimateTokens(renderSections());
+            for (Row row : ranked) {
+                if (tokens <= budget) {
+                    break;
+                }
+                row.dropped = true;
+                droppedRows.increment();
+                tokens = estimateTokens(renderSections());
+            }
+
+            String rendered = renderSections();
+            promptTokens.record(estimateTokens(rendered));
+            sample.stop(buildTime);
+            return rendered;
+        }
+
+        private String renderSections() {
+            StringBuilder out = new StringBuilder();
+            for (Section section : sections) {
+                List<Row> kept = section.rows.stream().filter(row -> !row.dropped).toList();
+                if (kept.isEmpty()) {
+                    continue;
+                }
+                out.append(section.title);
+                if (section.columns != null) {
+                    out.append(" [").append(section.columns).append(']');
+                }
+                out.append('\n');
+                for (Row row : kept) {
+                    out.append(row.text).append('\n');
+                }
+            }
+            return out.toString();
+        }
+
+        private double relevance(String line) {
+            if (questionWords.isEmpty()) {
+                return 0;
+            }
+            Set<String> lineWords = words(line);
+            long shared = questionWords.stream().filter(lineWords::contains).count();
+            return (double) shared / questionWords.size();
+        }
+    }
+
+    private String encode(Object[] cells) {
+        return Arrays.stream(cells).map(this::cell).collect(Collectors.joining("|"));
+    }
+
+    private String cell(Object value) {
+        if (value == null) {
+            return "-";
+        }
+        if (value instanceof Boolean flag) {
+            return flag ? "y" : "n";
+        }
+        if (value instanceof Double number) {
+            return BigDecimal.valueOf(number).setScale(1, RoundingMode.HALF_UP)
+                    .stripTrailingZeros().toPlainString();
+        }
+        String text = CELL_BREAKS.matcher(value.toString().trim()).replaceAll(" ");
+        return text.length() > maxCellChars ? text.substring(0, maxCellChars - 1) + "…" : text;
+    }
+
+    // Short words ("the", "my", "in") would make every row look relevant
+    private static Set<String> words(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(WORDS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> word.length() > 3)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class Section {
+
+        private final String title;
+        private final String columns;
+        private final boolean pinned;
+        private final List<Row> rows = new ArrayList<>();
+
+        private Section(String title, String columns, boolean pinned) {
+            this.title = title;
+            this.columns = columns;
+            this.pinned = pinned;
+        }
+    }
+
+    private static final class Row {
+
+        private final String text;
+        private final double score;
+        private boolean dropped;
+
+        private Row(String text, double score) {
+            this.text = text;
+            this.score = score;
+        }
+
+        private double score() {
+            return score;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.hackathon.agriculture_backend.service;
 
+import com.hackathon.agriculture_backend.dto.CursorPage;
 import com.hackathon.agriculture_backend.dto.RecommendationResult;
 import com.hackathon.agriculture_backend.dto.RecommendationRequestDto;
 import com.hackathon.agriculture_backend.dto.RecommendationResponseDto;
@@ -10,8 +11,10 @@ import com.hackathon.agriculture_backend.model.Farmer;
 import com.hackathon.agriculture_backend.model.IrrigationRecommendation;
 import com.hackathon.agriculture_backend.repository.CropRepository;
 import com.hackathon.agriculture_backend.repository.IrrigationRecommendationRepository;
+import com.hackathon.agriculture_backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -293,6 +296,22 @@ public class RecommendationService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Get a farmer's recommendations newest first, one keyset page at a time
+     */
+    public CursorPage<RecommendationResponseDto> getFarmerRecommendations(Long farmerId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<IrrigationRecommendation> rows = after == null
+                ? recommendationRepository.findFirstPage(farmerId, limit)
+                : recommendationRepository.findPageAfter(farmerId, after.localDate(), after.id(), limit);
+        CursorPage<IrrigationRecommendation> page =
+                CursorPage.of(rows, pageSize, rec -> KeysetCursor.of(rec.getDate(), rec.getId()));
+        return new CursorPage<>(page.getItems().stream().map(this::convertToResponseDto).collect(Collectors.toList()),
+                page.getNextCursor(), page.isHasMore());
+    }
+    
     /**
      * Get recommendations for a specific zone
      */
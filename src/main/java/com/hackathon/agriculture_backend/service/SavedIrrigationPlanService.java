@@ -21,6 +21,7 @@ public class SavedIrrigationPlanService {
     
     private final SavedIrrigationPlanRepository savedIrrigationPlanRepository;
     private final FarmerRepository farmerRepository;
+    private final IrrigationPlanPrecomputeService irrigationPlanPrecomputeService;
     
     public SavedIrrigationPlanDto savePlan(Long farmerId, SavedIrrigationPlanDto planDto) {
         log.info("Saving irrigation plan for farmer: {} with name: {}", farmerId, planDto.getPlanName());
@@ -112,6 +113,8 @@ public class SavedIrrigationPlanService {
         }
         
         SavedIrrigationPlan updatedPlan = savedIrrigationPlanRepository.save(plan);
+        // Inputs changed, so the stored rendering is stale until the next run or read
+        irrigationPlanPrecomputeService.invalidate(planId);
         log.info("Irrigation plan updated successfully");
         
         return convertToDto(updatedPlan);
@@ -124,6 +127,7 @@ public class SavedIrrigationPlanService {
         SavedIrrigationPlan plan = savedIrrigationPlanRepository.findByFarmerIdAndId(farmerId, planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found with id: " + planId));
         
+        irrigationPlanPrecomputeService.invalidate(planId);
         savedIrrigationPlanRepository.delete(plan);
         log.info("Irrigation plan deleted successfully");
     }
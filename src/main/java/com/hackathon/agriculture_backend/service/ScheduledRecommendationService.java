@@ -8,12 +8,14 @@ import com.hackathon.agriculture_backend.repository.FarmerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,32 +26,44 @@ public class ScheduledRecommendationService {
     private final FarmerRepository farmerRepository;
     private final FarmerService farmerService;
     private final WeatherService weatherService;
+    private final WeatherFieldService weatherFieldService;
     private final NasaService nasaService;
     private final RecommendationService recommendationService;
     private final AlertService alertService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Value("${app.scheduler.enabled:true}")
     private boolean schedulerEnabled;
     
-    @Scheduled(cron = "${app.scheduler.daily-recommendation.cron:0 0 6 * * ?}")
+    /**
+     * Published once the daily run has stored its recommendations and alerts, for work
+     * that builds on them.
+     */
+    public record DailyRecommendationsCompleted(LocalDate date) {
+    }
+    
+    @Scheduled(cron = "${app.scheduler.daily-recommendation.cron:0 0 4 * * ?}")
     public void sendDailyRecommendations() {
         if (!schedulerEnabled) {
             log.info("Scheduler is disabled, skipping daily recommendations");
             return;
         }
         
-        log.info("Starting daily recommendation process at {}", LocalDate.now());
+        LocalDate runDate = LocalDate.now();
+        log.info("Starting daily recommendation process at {}", runDate);
         
         try {
             List<Farmer> farmers = farmerRepository.findBySmsOptInTrue();
             log.info("Processing recommendations for {} farmers", farmers.size());
             
+            WeatherFieldService.WeatherField weatherField = weatherFieldService.buildField(locationsOf(farmers));
+            
             int successCount = 0;
             int failureCount = 0;
             
             for (Farmer farmer : farmers) {
                 try {
-                    processFarmerRecommendation(farmer);
+                    processFarmerRecommendation(farmer, weatherField);
                     successCount++;
                     log.info("Successfully processed recommendation for farmer: {}", farmer.getName());
                 } catch (Exception e) {
@@ -59,13 +73,14 @@ public class ScheduledRecommendationService {
             }
             
             log.info("Daily recommendation process completed. Success: {}, Failures: {}", successCount, failureCount);
+            eventPublisher.publishEvent(new DailyRecommendationsCompleted(runDate));
             
         } catch (Exception e) {
             log.error("Error in daily recommendation process", e);
         }
     }
     
-    private void processFarmerRecommendation(Farmer farmer) {
+    private void processFarmerRecommendation(Farmer farmer, WeatherFieldService.WeatherField weatherField) {
         log.info("Processing recommendation for farmer: {} at location: {}", 
                 farmer.getName(), farmer.getLocationName());
         
@@ -78,8 +93,8 @@ public class ScheduledRecommendationService {
         }
         
         try {
-            // Fetch weather data
-            WeatherDto weather = weatherService.getCurrentWeather(farmer.getLatitude(), farmer.getLongitude());
+            // Estimate weather from the shared anchors, fetching directly only when none is near
+            WeatherDto weather = weatherFieldService.estimate(weatherField, farmer.getLatitude(), farmer.getLongitude());
             log.info("Weather data fetched for farmer: {} - Temp: {}°C, Humidity: {}%", 
                     farmer.getName(), weather.getTempC(), weather.getHumidity());
             
@@ -128,6 +143,12 @@ public class ScheduledRecommendationService {
         }
     }
     
+    private List<double[]> locationsOf(List<Farmer> farmers) {
+        return farmers.stream()
+                .map(farmer -> new double[] { farmer.getLatitude(), farmer.getLongitude() })
+                .collect(Collectors.toList());
+    }
+    
     @Scheduled(cron = "0 0 12 * * ?") // Every day at 12 PM
     public void sendHeatAlerts() {
         if (!schedulerEnabled) {
@@ -141,11 +162,13 @@ public class ScheduledRecommendationService {
             List<Farmer> farmers = farmerRepository.findBySmsOptInTrue();
             log.info("Checking heat alerts for {} farmers", farmers.size());
             
+            WeatherFieldService.WeatherField weatherField = weatherFieldService.buildField(locationsOf(farmers));
+            
             int heatAlertCount = 0;
             
             for (Farmer farmer : farmers) {
                 try {
-                    WeatherDto weather = weatherService.getCurrentWeather(farmer.getLatitude(), farmer.getLongitude());
+                    WeatherDto weather = weatherFieldService.estimate(weatherField, farmer.getLatitude(), farmer.getLongitude());
                     
                     if (weather.getHeatAlert() != null && weather.getHeatAlert()) {
                         AlertLog heatAlert = alertService.sendHeatAlert(farmer, weather.getTempC());
@@ -3,9 +3,12 @@ package com.hackathon.agriculture_backend.service;
 import com.hackathon.agriculture_backend.model.Chat;
 import com.hackathon.agriculture_backend.model.Farmer;
 import com.hackathon.agriculture_backend.repository.ChatRepository;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Classification;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Topic;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -21,77 +24,92 @@ public class SimpleChatService {
     
     private final ChatRepository chatRepository;
     private final GeminiService geminiService;
+    private final ChatTopicClassifier topicClassifier;
+    private final ChatWriteBehindQueue chatWriter;
+    private final ChatContextAssembler chatContextAssembler;
     
+    // The chat is written behind by ChatWriteBehindQueue; nothing here blocks the caller
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CompletableFuture<Chat> sendMessage(Long farmerId, String userMessage, String messageType, String userName) {
         log.info("Processing simple chat message from farmer ID: {}", farmerId);
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Create a mock farmer
-                Farmer farmer = new Farmer();
-                farmer.setId(farmerId);
-                farmer.setName(userName != null && !userName.trim().isEmpty() ? userName : "Farmer " + farmerId);
-                farmer.setLocationName("Farm Location");
-                farmer.setPreferredCrop("Mixed Crops");
-                
-                // Generate AI response using Gemini
-                String aiResponse = generateGeminiResponse(userMessage);
-                
-                // Create chat object
-                Chat chat = new Chat();
-                chat.setFarmer(farmer);
-                chat.setUserMessage(userMessage);
-                chat.setAiResponse(aiResponse);
-                chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-                chat.setContextData("Simple chat response");
-                chat.setCreatedAt(Instant.now());
-                
-                // Save to database
-                Chat savedChat = chatRepository.save(chat);
-                log.info("Simple chat message saved successfully for farmer ID: {}", farmerId);
-                
-                return savedChat;
-                
-            } catch (Exception e) {
-                log.error("Error in simple chat service: {}", e.getMessage());
-                
-                // Return a fallback response
-                Chat fallbackChat = new Chat();
-                fallbackChat.setId(1L);
-                fallbackChat.setUserMessage(userMessage);
-                fallbackChat.setAiResponse("Hello! I'm your AI farming assistant. I'm here to help you with agricultural questions. Please ask me about crops, irrigation, plant diseases, weather, or any farming-related topics.");
-                fallbackChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
-                fallbackChat.setContextData("Fallback response");
-                
-                // Create a mock farmer for fallback
-                Farmer mockFarmer = new Farmer();
-                mockFarmer.setId(farmerId);
-                mockFarmer.setName(userName != null && !userName.trim().isEmpty() ? userName : "Farmer " + farmerId);
-                mockFarmer.setLocationName("Unknown");
-                mockFarmer.setPreferredCrop("Unknown");
-                fallbackChat.setFarmer(mockFarmer);
-                
-                return fallbackChat;
-            }
-        });
+        // Create a mock farmer
+        Farmer farmer = new Farmer();
+        farmer.setId(farmerId);
+        farmer.setName(userName != null && !userName.trim().isEmpty() ? userName : "Farmer " + farmerId);
+        farmer.setLocationName("Farm Location");
+        farmer.setPreferredCrop("Mixed Crops");
+        
+        // Generate AI response using Gemini, checking meanwhile that the farmer exists
+        return generateGeminiResponse(userMessage)
+                .thenCombine(farmerExists(farmerId), (aiResponse, farmerExists) -> {
+                    // Create chat object
+                    Chat chat = new Chat();
+                    chat.setFarmer(farmer);
+                    chat.setUserMessage(userMessage);
+                    chat.setAiResponse(aiResponse);
+                    chat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+                    chat.setContextData("Simple chat response");
+                    chat.setCreatedAt(Instant.now());
+                    
+                    // Only queued for a farmer that exists; for an unknown one the insert would fail on
+                    // the writer thread after the id had been returned, so the chat goes back unsaved
+                    if (!farmerExists) {
+                        log.warn("Farmer {} not found, returning the simple chat response unsaved", farmerId);
+                        return chat;
+                    }
+                    Chat savedChat = chatWriter.enqueue(chat);
+                    log.info("Simple chat message saved successfully for farmer ID: {}", farmerId);
+                    
+                    return savedChat;
+                })
+                .exceptionally(e -> {
+                    log.error("Error in simple chat service: {}", e.getMessage());
+                    
+                    // Return a fallback response
+                    Chat fallbackChat = new Chat();
+                    fallbackChat.setId(1L);
+                    fallbackChat.setUserMessage(userMessage);
+                    fallbackChat.setAiResponse("Hello! I'm your AI farming assistant. I'm here to help you with agricultural questions. Please ask me about crops, irrigation, plant diseases, weather, or any farming-related topics.");
+                    fallbackChat.setMessageType(Chat.MessageType.valueOf(messageType.toUpperCase()));
+                    fallbackChat.setContextData("Fallback response");
+                    
+                    // Create a mock farmer for fallback
+                    Farmer mockFarmer = new Farmer();
+                    mockFarmer.setId(farmerId);
+                    mockFarmer.setName(userName != null && !userName.trim().isEmpty() ? userName : "Farmer " + farmerId);
+                    mockFarmer.setLocationName("Unknown");
+                    mockFarmer.setPreferredCrop("Unknown");
+                    fallbackChat.setFarmer(mockFarmer);
+                    
+                    return fallbackChat;
+                });
     }
     
-    private String generateGeminiResponse(String userMessage) {
-        try {
-            // Create a simple prompt for Gemini
-            String prompt = String.format(
-                "You are an expert agricultural consultant. A farmer is asking: \"%s\"\n\n" +
-                "Provide specific, actionable advice for their farming question. Include:\n" +
-                "1. Specific recommendations\n" +
-                "2. Best practices\n" +
-                "3. Common issues to watch for\n" +
-                "4. Expected outcomes\n\n" +
-                "Be conversational, supportive, and focus on practical farming solutions.",
-                userMessage
-            );
-            
-            log.info("Calling Gemini AI for simple chat: {}", userMessage);
-            String response = geminiService.callGeminiAPI(prompt);
+    private CompletableFuture<Boolean> farmerExists(Long farmerId) {
+        return chatContextAssembler.snapshot(farmerId).handle((found, error) -> error == null && found.isPresent());
+    }
+    
+    private CompletableFuture<String> generateGeminiResponse(String userMessage) {
+        // Create a simple prompt for Gemini
+        String prompt = String.format(
+            "You are an expert agricultural consultant. A farmer is asking: \"%s\"\n\n" +
+            "Provide specific, actionable advice for their farming question. Include:\n" +
+            "1. Specific recommendations\n" +
+            "2. Best practices\n" +
+            "3. Common issues to watch for\n" +
+            "4. Expected outcomes\n\n" +
+            "Be conversational, supportive, and focus on practical farming solutions.",
+            userMessage
+        );
+        
+        log.info("Calling Gemini AI for simple chat: {}", userMessage);
+        return geminiService.callGeminiAPIAsync(prompt).handle((response, error) -> {
+            if (error != null) {
+                log.error("Error calling Gemini API: {}", error.getMessage());
+                // Fallback to simple response if Gemini fails
+                return generateSimpleResponse(userMessage);
+            }
             
             // Check if we got a real AI response or a fallback
             if (response != null && !response.contains("I apologize, but I'm having trouble processing") && !response.trim().isEmpty()) {
@@ -101,49 +119,44 @@ public class SimpleChatService {
                 log.warn("Gemini API returned fallback response, using enhanced mock response");
                 return generateSimpleResponse(userMessage);
             }
-            
-        } catch (Exception e) {
-            log.error("Error calling Gemini API: {}", e.getMessage());
-            // Fallback to simple response if Gemini fails
-            return generateSimpleResponse(userMessage);
-        }
+        });
     }
     
     private String generateSimpleResponse(String userMessage) {
-        String lowerMessage = userMessage.toLowerCase();
+        Classification topics = topicClassifier.classify(userMessage);
         
         // Simple keyword-based responses
-        if (lowerMessage.contains("water") || lowerMessage.contains("irrigation")) {
+        if (topics.has(Topic.IRRIGATION)) {
             return "For irrigation, I recommend watering your crops early in the morning or late in the evening to reduce evaporation. " +
                    "The amount of water depends on your soil type and crop. Sandy soil needs more frequent watering, while clay soil retains water longer. " +
                    "Monitor soil moisture regularly and adjust based on weather conditions.";
         }
         
-        if (lowerMessage.contains("disease") || lowerMessage.contains("pest") || lowerMessage.contains("sick")) {
+        if (topics.any(Topic.PEST, Topic.SICK)) {
             return "For plant diseases and pests, early detection is key. Look for unusual spots, wilting, or discoloration on leaves. " +
                    "Common solutions include: 1) Remove affected plant parts, 2) Improve air circulation, 3) Use organic treatments like neem oil, " +
                    "4) Ensure proper spacing between plants. If the problem persists, consider consulting a local agricultural extension service.";
         }
         
-        if (lowerMessage.contains("weather") || lowerMessage.contains("rain") || lowerMessage.contains("temperature")) {
+        if (topics.any(Topic.WEATHER, Topic.RAIN)) {
             return "Weather significantly affects farming. Monitor temperature, humidity, and rainfall patterns. " +
                    "During hot weather, increase watering frequency. Before heavy rain, avoid fertilizing. " +
                    "Use weather forecasts to plan your farming activities and protect crops from extreme conditions.";
         }
         
-        if (lowerMessage.contains("soil") || lowerMessage.contains("fertilizer") || lowerMessage.contains("nutrient")) {
+        if (topics.any(Topic.SOIL, Topic.FERTILIZER)) {
             return "Healthy soil is the foundation of good farming. Test your soil regularly for pH and nutrient levels. " +
                    "Add organic matter like compost to improve soil structure. Use fertilizers based on soil test results. " +
                    "Crop rotation helps maintain soil health and reduces pest problems.";
         }
         
-        if (lowerMessage.contains("harvest") || lowerMessage.contains("yield") || lowerMessage.contains("crop")) {
+        if (topics.any(Topic.HARVEST, Topic.YIELD, Topic.CROP)) {
             return "For better harvests, ensure proper spacing, adequate water, and nutrient management. " +
                    "Harvest at the right time - too early or too late can affect quality. " +
                    "Keep records of planting dates, treatments, and yields to improve future crops.";
         }
         
-        if (lowerMessage.contains("help") || lowerMessage.contains("advice") || lowerMessage.contains("question")) {
+        if (topics.has(Topic.HELP)) {
             return "I'm here to help with your farming questions! I can assist with: " +
                    "• Irrigation and watering schedules\n" +
                    "• Plant disease identification and treatment\n" +
@@ -27,10 +27,19 @@ public class SmartIrrigationService {
         log.info("Generating irrigation plan for location: {}, {} with crop: {}", 
                 latitude, longitude, cropType);
         
+        // Get real weather data
+        WeatherDto weatherData = weatherService.getIrrigationWeatherData(latitude, longitude);
+        return buildIrrigationPlan(weatherData, latitude, longitude, cropType, area, irrigationType, soilType);
+    }
+    
+    /**
+     * Builds the 7-day plan from already fetched weather data, so callers that plan many
+     * locations sharing one forecast (see {@link IrrigationPlanPrecomputeService}) fetch it once.
+     */
+    public IrrigationPlanDto buildIrrigationPlan(WeatherDto weatherData, Double latitude, Double longitude,
+                                                 String cropType, Double area, String irrigationType,
+                                                 String soilType) {
         try {
-            // Get real weather data
-            WeatherDto weatherData = weatherService.getIrrigationWeatherData(latitude, longitude);
-            
             if (weatherData == null || weatherData.getCurrent() == null) {
                 throw new RuntimeException("Unable to fetch weather data for the location");
             }
@@ -0,0 +1,136 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.dto.WeatherDto;
+import com.hackathon.agriculture_backend.util.GeoGrid;
+import com.hackathon.agriculture_backend.util.KdTree2D;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Estimates current weather for many nearby locations from a sparse set of anchor
+ * fetches. Anchors are the centers of a coarse grid covering the requested points;
+ * each location is estimated by inverse-distance weighting of its nearest anchors,
+ * falling back to a direct fetch when no anchor is close enough.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherFieldService {
+
+    private static final double KM_PER_DEGREE_LAT = 110.574;
+    private static final double KM_PER_DEGREE_LNG = 111.320;
+
+    private final WeatherService weatherService;
+
+    @Value("${app.weather-field.anchor-spacing-degrees:0.25}")
+    private double anchorSpacingDegrees;
+
+    @Value("${app.weather-field.max-distance-km:30}")
+    private double maxDistanceKm;
+
+    @Value("${app.weather-field.neighbors:4}")
+    private int neighbors;
+
+    @Value("${app.weather-field.power:2.0}")
+    private double power;
+
+    /**
+     * Fetches one anchor per occupied grid cell for the given {latitude, longitude} points.
+     * Anchors whose fetch fails are left out; their points fall back to direct fetches.
+     */
+    public WeatherField buildField(List<double[]> locations) {
+        Map<String, double[]> anchorCenters = new LinkedHashMap<>();
+        double latSum = 0.0;
+        for (double[] location : locations) {
+            anchorCenters.putIfAbsent(GeoGrid.cellKey(location[0], location[1], anchorSpacingDegrees),
+                    GeoGrid.cellCenter(location[0], location[1], anchorSpacingDegrees));
+            latSum += location[0];
+        }
+        double referenceLat = locations.isEmpty() ? 0.0 : latSum / locations.size();
+
+        KdTree2D.Builder<WeatherDto> builder = KdTree2D.builder();
+        int fetched = 0;
+        for (double[] center : anchorCenters.values()) {
+            try {
+                WeatherDto anchor = weatherService.getCurrentWeather(center[0], center[1]);
+                if (anchor != null && anchor.getTempC() != null) {
+                    builder.add(projectX(center[1], referenceLat), projectY(center[0]), anchor);
+                    fetched++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to fetch weather anchor at {}, {}: {}", center[0], center[1], e.getMessage());
+            }
+        }
+
+        log.info("Weather field built for {} locations with {} of {} anchors",
+                locations.size(), fetched, anchorCenters.size());
+        return new WeatherField(builder.build(), referenceLat);
+    }
+
+    /**
+     * Weather at the given point, interpolated from the field or fetched directly when
+     * the nearest anchor is further than the configured maximum distance.
+     */
+    public WeatherDto estimate(WeatherField field, Double latitude, Double longitude) {
+        List<KdTree2D.Neighbor<WeatherDto>> nearest = field.anchors().nearest(
+                projectX(longitude, field.referenceLat()), projectY(latitude), neighbors);
+
+        if (nearest.isEmpty() || nearest.get(0).distance() > maxDistanceKm) {
+            log.debug("No weather anchor within {} km of {}, {}, fetching directly", maxDistanceKm, latitude, longitude);
+            return weatherService.getCurrentWeather(latitude, longitude);
+        }
+
+        List<KdTree2D.Neighbor<WeatherDto>> usable = nearest.stream()
+                .filter(n -> n.distance() <= maxDistanceKm)
+                .toList();
+
+        WeatherDto estimate = new WeatherDto();
+        estimate.setTempC(interpolate(usable, WeatherDto::getTempC));
+        estimate.setHumidity(interpolate(usable, WeatherDto::getHumidity));
+        estimate.setRainfallMm(interpolate(usable, WeatherDto::getRainfallMm));
+        estimate.setForecastRainfallMm(interpolate(usable, WeatherDto::getForecastRainfallMm));
+        estimate.setHeatAlert(weatherService.isHeatAlert(estimate.getTempC()));
+        estimate.setWeatherDescription(usable.get(0).value().getWeatherDescription());
+        return estimate;
+    }
+
+    private Double interpolate(List<KdTree2D.Neighbor<WeatherDto>> neighbors, Function<WeatherDto, Double> field) {
+        double weightedSum = 0.0;
+        double weightTotal = 0.0;
+        for (KdTree2D.Neighbor<WeatherDto> neighbor : neighbors) {
+            Double value = field.apply(neighbor.value());
+            if (value == null) {
+                continue;
+            }
+            // An anchor practically on top of the point wins outright
+            if (neighbor.distance() < 1e-6) {
+                return value;
+            }
+            double weight = 1.0 / Math.pow(neighbor.distance(), power);
+            weightedSum += weight * value;
+            weightTotal += weight;
+        }
+        return weightTotal > 0 ? weightedSum / weightTotal : null;
+    }
+
+    private static double projectX(double longitude, double referenceLat) {
+        return longitude * KM_PER_DEGREE_LNG * Math.cos(Math.toRadians(referenceLat));
+    }
+
+    private static double projectY(double latitude) {
+        return latitude * KM_PER_DEGREE_LAT;
+    }
+
+    /**
+     * Anchors of one batch run, projected onto a local plane in kilometres.
+     */
+    public record WeatherField(KdTree2D<WeatherDto> anchors, double referenceLat) {
+    }
+}
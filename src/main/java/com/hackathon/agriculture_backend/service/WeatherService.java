@@ -1,11 +1,13 @@
 package com.hackathon.agriculture_backend.service;
 
 import com.hackathon.agriculture_backend.dto.WeatherDto;
+import com.hackathon.agriculture_backend.service.upstream.HedgedRequestExecutor;
+import com.hackathon.agriculture_backend.service.upstream.Upstream;
+import com.hackathon.agriculture_backend.service.upstream.UpstreamQuotaManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.time.Duration;
@@ -17,7 +19,8 @@ import java.util.List;
 @Slf4j
 public class WeatherService {
     
-    private final WebClient.Builder webClientBuilder;
+    private final HedgedRequestExecutor requestExecutor;
+    private final UpstreamQuotaManager quotaManager;
     
     @Value("${app.weather.api.key}")
     private String apiKey;
@@ -28,18 +31,14 @@ public class WeatherService {
     public WeatherDto getCurrentWeather(Double latitude, Double longitude) {
         log.info("Fetching current weather for coordinates: {}, {}", latitude, longitude);
         
+        quotaManager.acquire(Upstream.OPENWEATHER);
+        
         try {
             // Use One Call API 3.0 with optimized parameters
             String url = String.format("%s?lat=%s&lon=%s&exclude=minutely&units=metric&appid=%s",
                     apiUrl, latitude, longitude, apiKey);
             
-            WeatherDto weatherData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(WeatherDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            WeatherDto weatherData = fetch(url);
             
             if (weatherData != null && weatherData.getCurrent() != null) {
                 // Extract current weather data
@@ -91,17 +90,13 @@ public class WeatherService {
     public WeatherDto getWeatherForecast(Double latitude, Double longitude, int days) {
         log.info("Fetching weather forecast for coordinates: {}, {} for {} days", latitude, longitude, days);
         
+        quotaManager.acquire(Upstream.OPENWEATHER);
+        
         try {
             String url = String.format("%s?lat=%s&lon=%s&exclude=minutely,hourly&units=metric&appid=%s",
                     apiUrl, latitude, longitude, apiKey);
             
-            WeatherDto weatherData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(WeatherDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            WeatherDto weatherData = fetch(url);
             
             if (weatherData != null && weatherData.getDaily() != null) {
                 // Limit forecast to requested days
@@ -138,17 +133,13 @@ public class WeatherService {
     public List<WeatherDto.WeatherAlert> getWeatherAlerts(Double latitude, Double longitude) {
         log.info("Fetching weather alerts for coordinates: {}, {}", latitude, longitude);
         
+        quotaManager.acquire(Upstream.OPENWEATHER);
+        
         try {
             String url = String.format("%s?lat=%s&lon=%s&exclude=minutely,hourly,daily&units=metric&appid=%s",
                     apiUrl, latitude, longitude, apiKey);
             
-            WeatherDto weatherData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(WeatherDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            WeatherDto weatherData = fetch(url);
             
             if (weatherData != null && weatherData.getAlerts() != null) {
                 log.info("Found {} weather alerts", weatherData.getAlerts().size());
@@ -169,18 +160,14 @@ public class WeatherService {
     public WeatherDto getIrrigationWeatherData(Double latitude, Double longitude) {
         log.info("Fetching comprehensive weather data for irrigation recommendations: {}, {}", latitude, longitude);
         
+        quotaManager.acquire(Upstream.OPENWEATHER);
+        
         try {
             // Get current weather with hourly forecast for better rainfall prediction
             String url = String.format("%s?lat=%s&lon=%s&exclude=minutely&units=metric&appid=%s",
                     apiUrl, latitude, longitude, apiKey);
             
-            WeatherDto weatherData = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(WeatherDto.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+            WeatherDto weatherData = fetch(url);
             
             if (weatherData != null && weatherData.getCurrent() != null) {
                 // Process current weather
@@ -248,4 +235,8 @@ public class WeatherService {
         Double humidityFactor = 1.0 - (humidity / 100.0);
         return baseETC * humidityFactor;
     }
+    
+    private WeatherDto fetch(String url) {
+        return requestExecutor.get(Upstream.OPENWEATHER, url, WeatherDto.class, Duration.ofSeconds(30));
+    }
 }
@@ -0,0 +1,234 @@
+package com.hackathon.agriculture_backend.service.impl;
+
+import com.hackathon.agriculture_backend.dto.ChatSearchHit;
+import com.hackathon.agriculture_backend.model.Chat;
+import com.hackathon.agriculture_backend.repository.ChatRepository;
+import com.hackathon.agriculture_backend.service.ChatSearchService;
+import com.hackathon.agriculture_backend.util.Bm25;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index per farmer with the same behaviour as the PostgreSQL engine:
+ * prefix terms combined with AND, BM25 ranking with question words weighted twice, and
+ * highlighted snippets. Only postings are held in memory; the texts for snippets are loaded
+ * for the requested page. Built from the table at startup and kept current by
+ * {@link #indexed}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.chat-search.engine", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryChatSearchService implements ChatSearchService {
+
+    private static final Pattern WORDS = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final double QUESTION_WEIGHT = 2.0;
+    private static final int SNIPPET_CHARS = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatRepository chatRepository;
+    private final Map<Long, FarmerIndex> indexes = new ConcurrentHashMap<>();
+
+    public InMemoryChatSearchService(JdbcTemplate jdbcTemplate, ChatRepository chatRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chatRepository = chatRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        int[] count = {0};
+        jdbcTemplate.query("select id, farmer_id, user_message, ai_response, created_at from chats", rs -> {
+            index(rs.getLong("farmer_id"), rs.getLong("id"), rs.getString("user_message"), rs.getString("ai_response"),
+                    rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toInstant() : null);
+            count[0]++;
+        });
+        log.info("Indexed {} chat(s) for in-memory full-text search", count[0]);
+    }
+
+    @Override
+    public void indexed(List<Chat> chats) {
+        for (Chat chat : chats) {
+            if (chat.getId() != null && chat.getFarmerId() != null) {
+                index(chat.getFarmerId(), chat.getId(), chat.getUserMessage(), chat.getAiResponse(), chat.getCreatedAt());
+            }
+        }
+    }
+
+    @Override
+    public Page<ChatSearchHit> search(Long farmerId, String query, Pageable pageable) {
+        List<String> terms = ChatSearchService.terms(query);
+        FarmerIndex index = indexes.get(farmerId);
+        if (terms.isEmpty() || index == null) {
+            return Page.empty(pageable);
+        }
+
+        List<Scored> ranked = index.search(terms);
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Scored> page = ranked.subList(from, to);
+
+        Map<Long, Chat> chats = chatRepository.findAllById(page.stream().map(Scored::chatId).toList()).stream()
+                .collect(Collectors.toMap(Chat::getId, Function.identity()));
+        List<ChatSearchHit> hits = new ArrayList<>(page.size());
+        for (Scored scored : page) {
+            Chat chat = chats.get(scored.chatId());
+            // Deleted since it was indexed
+            if (chat != null) {
+                hits.add(new ChatSearchHit(chat.getId(), chat.getMessageType(), chat.getCreatedAt(), scored.score(),
+                        snippet(Objects.toString(chat.getUserMessage(), "") + " … " + Objects.toString(chat.getAiResponse(), ""), terms)));
+            }
+        }
+        return new PageImpl<>(hits, pageable, ranked.size());
+    }
+
+    private void index(Long farmerId, Long chatId, String question, String answer, Instant createdAt) {
+        Map<String, Double> frequencies = new HashMap<>();
+        int length = count(question, QUESTION_WEIGHT, frequencies) + count(answer, 1.0, frequencies);
+        indexes.computeIfAbsent(farmerId, id -> new FarmerIndex())
+                .put(chatId, new Doc(length, createdAt, frequencies));
+    }
+
+    private static int count(String text, double weight, Map<String, Double> frequencies) {
+        if (text == null) {
+            return 0;
+        }
+        int words = 0;
+        Matcher matcher = WORDS.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            frequencies.merge(matcher.group(), weight, Double::sum);
+            words++;
+        }
+        return words;
+    }
+
+    /**
+     * A window of the text around the first matching word, HTML-escaped, with every
+     * matching word wrapped in {@code <mark>}.
+     */
+    private static String snippet(String text, List<String> terms) {
+        Matcher matcher = WORDS.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            if (matches(matcher.group(), terms)) {
+                start = Math.max(0, matcher.start() - SNIPPET_CHARS / 4);
+                break;
+            }
+        }
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) {
+            start--;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_CHARS);
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+
+        StringBuilder out = new StringBuilder(start > 0 ? "… " : "");
+        int last = start;
+        matcher.region(start, end);
+        while (matcher.find()) {
+            if (matches(matcher.group(), terms)) {
+                out.append(HtmlUtils.htmlEscape(text.substring(last, matcher.start()), "UTF-8"))
+                        .append("<mark>").append(HtmlUtils.htmlEscape(matcher.group(), "UTF-8")).append("</mark>");
+                last = matcher.end();
+            }
+        }
+        out.append(HtmlUtils.htmlEscape(text.substring(last, end), "UTF-8"));
+        if (end < text.length()) {
+            out.append(" …");
+        }
+        return out.toString().replaceAll("\\s+", " ").trim();
+    }
+
+    private static boolean matches(String word, List<String> terms) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        for (String term : terms) {
+            if (lower.startsWith(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Doc(int length, Instant createdAt, Map<String, Double> frequencies) {
+    }
+
+    private record Scored(Long chatId, double score, Instant createdAt) {
+    }
+
+    private static final class FarmerIndex {
+
+        private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private long totalLength;
+
+        private synchronized void put(Long chatId, Doc doc) {
+            Doc previous = docs.put(chatId, doc);
+            if (previous != null) {
+                totalLength -= previous.length();
+                previous.frequencies().keySet().forEach(term -> {
+                    Map<Long, Double> list = postings.get(term);
+                    list.remove(chatId);
+                    if (list.isEmpty()) {
+                        postings.remove(term);
+                    }
+                });
+            }
+            totalLength += doc.length();
+            doc.frequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(chatId, frequency));
+        }
+
+        private synchronized List<Scored> search(List<String> terms) {
+            double averageLength = docs.isEmpty() ? 1 : Math.max(1, (double) totalLength / docs.size());
+            Map<Long, Double> scores = null;
+            for (String term : terms) {
+                // Every indexed word starting with the term
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Double>> entry
+                        : postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+                    Map<Long, Double> list = entry.getValue();
+                    double idf = Bm25.idf(docs.size(), list.size());
+                    list.forEach((chatId, frequency) -> termScores.merge(chatId,
+                            Bm25.score(idf, frequency, docs.get(chatId).length(), averageLength), Double::sum));
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Double> matched = termScores;
+                    scores.keySet().retainAll(matched.keySet());
+                    scores.replaceAll((chatId, score) -> score + matched.get(chatId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .map(entry -> new Scored(entry.getKey(), entry.getValue(), docs.get(entry.getKey()).createdAt()))
+                    .sorted(Comparator.comparingDouble(Scored::score).reversed()
+                            .thenComparing(Scored::createdAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .toList();
+        }
+    }
+}
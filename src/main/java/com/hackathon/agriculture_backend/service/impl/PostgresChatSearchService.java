@@ -0,0 +1,96 @@
+package com.hackathon.agriculture_backend.service.impl;
+
+import com.hackathon.agriculture_backend.dto.ChatSearchHit;
+import com.hackathon.agriculture_backend.model.Chat;
+import com.hackathon.agriculture_backend.service.ChatSearchService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * PostgreSQL full-text search: a {@code search_vector} column (question weighted above
+ * answer) with a GIN index, ranked with {@code ts_rank_cd}. Snippets come from
+ * {@code ts_headline}, computed only for the rows of the requested page.
+ *
+ * <p>The column, the trigger that maintains it and the index are created by
+ * {@code create-chat-search-index.sql}; startup only checks that the index exists.
+ */
+@Service
+@ConditionalOnProperty(name = "app.chat-search.engine", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresChatSearchService implements ChatSearchService {
+
+    private static final String INDEX_EXISTS = """
+            select count(*) from pg_index i join pg_class c on c.oid = i.indexrelid
+            where c.relname = 'idx_chats_search_vector' and i.indisvalid""";
+
+    private static final String COUNT = """
+            select count(*) from chats
+            where farmer_id = ? and search_vector @@ to_tsquery('english', ?)""";
+
+    // Rank and page first, then build headlines for that page only; ts_headline re-parses
+    // the text. The text is HTML-escaped before the <mark> tags are added.
+    private static final String SEARCH = """
+            select c.id, c.message_type, c.created_at, hits.score,
+                   ts_headline('english',
+                       replace(replace(replace(coalesce(c.user_message, '') || ' … ' || coalesce(c.ai_response, ''),
+                           '&', '&amp;'), '<', '&lt;'), '>', '&gt;'),
+                       hits.q,
+                       'StartSel=<mark>, StopSel=</mark>, MinWords=15, MaxWords=35, MaxFragments=2, FragmentDelimiter=" … "') as snippet
+            from (
+                select id, q, ts_rank_cd(search_vector, q) as score
+                from chats, to_tsquery('english', ?) q
+                where farmer_id = ? and search_vector @@ q
+                order by score desc, created_at desc
+                limit ? offset ?
+            ) hits
+            join chats c on c.id = hits.id
+            order by hits.score desc, c.created_at desc""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void checkIndex() {
+        Long indexes = jdbcTemplate.queryForObject(INDEX_EXISTS, Long.class);
+        if (indexes == null || indexes == 0) {
+            log.warn("Chat full-text search index idx_chats_search_vector is missing or invalid; "
+                    + "run create-chat-search-index.sql");
+        } else {
+            log.info("Chat full-text search uses the PostgreSQL search_vector index");
+        }
+    }
+
+    @Override
+    public Page<ChatSearchHit> search(Long farmerId, String query, Pageable pageable) {
+        List<String> terms = ChatSearchService.terms(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        // Terms are letters and digits only, so they cannot inject tsquery operators
+        String tsQuery = terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+
+        Long total = jdbcTemplate.queryForObject(COUNT, Long.class, farmerId, tsQuery);
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total == null ? 0 : total);
+        }
+
+        List<ChatSearchHit> hits = jdbcTemplate.query(SEARCH, (rs, rowNum) -> new ChatSearchHit(
+                        rs.getLong("id"),
+                        rs.getString("message_type") != null ? Chat.MessageType.valueOf(rs.getString("message_type")) : null,
+                        rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toInstant() : null,
+                        rs.getDouble("score"),
+                        rs.getString("snippet")),
+                tsQuery, farmerId, pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(hits, pageable, total);
+    }
+}
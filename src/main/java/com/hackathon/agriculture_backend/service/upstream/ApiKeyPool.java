@@ -0,0 +1,189 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Pools of API keys per upstream, parsed once from the comma-separated key properties.
+ *
+ * <p>{@link #acquire} hands out the healthy key with the fewest requests in flight (ties go
+ * to the key with the fewest total requests). A key that gets a 429 cools down for
+ * {@code app.keypool.<upstream>.cooldown-ms}, doubling on consecutive throttles up to
+ * {@code .max-cooldown-ms}. When every key is cooling down the one that recovers first is
+ * used. All per-key accounting is lock-free and exported as {@code upstream.apikey.*}
+ * metrics tagged with the last four characters of the key.
+ */
+@Component
+@Slf4j
+public class ApiKeyPool {
+
+    private static final Map<Upstream, String> KEY_PROPERTIES = Map.of(
+            Upstream.GEMINI, "app.gemini.api.key",
+            Upstream.PLANT_ID, "plantid.api-keys",
+            Upstream.INSECT_ID, "insect.id.api.key");
+
+    // Gemini rejects anything that is not a Google API key, so don't spend a request on it
+    private static final Map<Upstream, Predicate<String>> KEY_FORMATS = Map.of(
+            Upstream.GEMINI, key -> key.length() >= 20 && key.startsWith("AIza"));
+
+    private final Map<Upstream, List<KeyState>> pools = new EnumMap<>(Upstream.class);
+
+    public ApiKeyPool(Environment environment, MeterRegistry meterRegistry) {
+        KEY_PROPERTIES.forEach((upstream, property) -> {
+            String prefix = "app.keypool." + upstream.getKey();
+            long cooldownMs = environment.getProperty(prefix + ".cooldown-ms", Long.class, 30_000L);
+            long maxCooldownMs = environment.getProperty(prefix + ".max-cooldown-ms", Long.class, 600_000L);
+            Predicate<String> format = KEY_FORMATS.getOrDefault(upstream, key -> true);
+
+            List<KeyState> keys = Arrays.stream(environment.getProperty(property, "").split(","))
+                    .map(String::trim)
+                    .filter(key -> !key.isEmpty() && !key.startsWith("your"))
+                    .filter(format)
+                    .distinct()
+                    .map(key -> new KeyState(upstream, key, cooldownMs, maxCooldownMs, meterRegistry))
+                    .toList();
+            pools.put(upstream, keys);
+            log.info("{} key pool has {} usable key(s)", upstream, keys.size());
+        });
+    }
+
+    public boolean hasKeys(Upstream upstream) {
+        return !pools.getOrDefault(upstream, List.of()).isEmpty();
+    }
+
+    /**
+     * Leases the least-loaded healthy key. The lease must be closed, after reporting the
+     * outcome with {@link Lease#throttled} or {@link Lease#failed} where relevant.
+     *
+     * @throws IllegalStateException when no key is configured for the upstream
+     */
+    public Lease acquire(Upstream upstream) {
+        List<KeyState> keys = pools.getOrDefault(upstream, List.of());
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No API keys configured for " + upstream);
+        }
+
+        long now = System.nanoTime();
+        KeyState chosen = keys.stream()
+                .filter(key -> !key.isCoolingDown(now))
+                .min(Comparator.comparingInt((KeyState key) -> key.inflight.get())
+                        .thenComparingLong(key -> key.requests.sum()))
+                .orElseGet(() -> keys.stream()
+                        .min(Comparator.comparingLong(key -> key.coolingUntil.get()))
+                        .orElseThrow());
+        chosen.inflight.incrementAndGet();
+        chosen.requests.increment();
+        return new Lease(chosen);
+    }
+
+    public static final class Lease implements AutoCloseable {
+
+        private final KeyState state;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean unsuccessful;
+
+        private Lease(KeyState state) {
+            this.state = state;
+        }
+
+        public String key() {
+            return state.key;
+        }
+
+        /**
+         * The upstream answered 429 for this key; it is benched for its cooldown.
+         */
+        public void throttled() {
+            unsuccessful = true;
+            state.throttle();
+        }
+
+        public void failed() {
+            unsuccessful = true;
+            state.failures.increment();
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            state.inflight.decrementAndGet();
+            state.latencyNanos.add(System.nanoTime() - startNanos);
+            if (!unsuccessful) {
+                state.consecutiveThrottles.set(0);
+            }
+        }
+    }
+
+    private static final class KeyState {
+
+        private final Upstream upstream;
+        private final String key;
+        private final long cooldownNanos;
+        private final long maxCooldownNanos;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder throttles = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final AtomicInteger consecutiveThrottles = new AtomicInteger();
+        private final AtomicLong coolingUntil = new AtomicLong(System.nanoTime());
+
+        private KeyState(Upstream upstream, String key, long cooldownMs, long maxCooldownMs, MeterRegistry meterRegistry) {
+            this.upstream = upstream;
+            this.key = key;
+            this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+            this.maxCooldownNanos = TimeUnit.MILLISECONDS.toNanos(maxCooldownMs);
+
+            Tags tags = Tags.of("upstream", upstream.getKey(), "key", fingerprint(key));
+            FunctionCounter.builder("upstream.apikey.requests", requests, LongAdder::sum)
+                    .tags(tags).description("Requests sent with the key").register(meterRegistry);
+            FunctionCounter.builder("upstream.apikey.throttled", throttles, LongAdder::sum)
+                    .tags(tags).description("429 responses received for the key").register(meterRegistry);
+            FunctionCounter.builder("upstream.apikey.failures", failures, LongAdder::sum)
+                    .tags(tags).description("Failed requests made with the key").register(meterRegistry);
+            FunctionCounter.builder("upstream.apikey.latency", latencyNanos, adder -> adder.sum() / 1e9)
+                    .tags(tags).baseUnit("seconds").description("Total time requests held the key").register(meterRegistry);
+            Gauge.builder("upstream.apikey.inflight", inflight, AtomicInteger::get)
+                    .tags(tags).description("Requests currently using the key").register(meterRegistry);
+        }
+
+        private boolean isCoolingDown(long now) {
+            return coolingUntil.get() - now > 0;
+        }
+
+        private void throttle() {
+            throttles.increment();
+            int streak = Math.min(consecutiveThrottles.incrementAndGet(), 16);
+            long cooldown = Math.min(maxCooldownNanos, cooldownNanos << (streak - 1));
+            long until = System.nanoTime() + cooldown;
+            coolingUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+            log.warn("{} key ...{} throttled, cooling down for {}", upstream, fingerprint(key),
+                    Duration.ofNanos(cooldown));
+        }
+
+        private static String fingerprint(String key) {
+            return key.length() <= 4 ? key : key.substring(key.length() - 4);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Idempotent GETs with optional hedging and budgeted, jittered retries.
+ *
+ * <p>When hedging is enabled for an upstream, a second attempt is sent if the first has
+ * not answered within the observed latency percentile ({@code app.hedge.<upstream>.percentile})
+ * and whichever answers first wins; a primary that fails before then fails the request at
+ * once, without a hedge. Failed requests are retried with exponential backoff
+ * and jitter. Hedges and retries both draw from a retry budget that only refills as a
+ * fraction of first attempts, and from the upstream quota without waiting, so neither can
+ * multiply load during an outage.
+ *
+ * <p>Per-attempt latency ({@code upstream.attempt.latency}) shows the raw upstream tail;
+ * {@code upstream.request.latency} shows what callers see after hedging and retries.
+ */
+@Component
+@Slf4j
+public class HedgedRequestExecutor {
+
+    private final Map<Upstream, Policy> policies = new EnumMap<>(Upstream.class);
+    private final UpstreamBulkheads bulkheads;
+    private final UpstreamQuotaManager quotaManager;
+    private final MeterRegistry meterRegistry;
+
+    public HedgedRequestExecutor(Environment environment, UpstreamBulkheads bulkheads,
+                                 UpstreamQuotaManager quotaManager, MeterRegistry meterRegistry) {
+        this.bulkheads = bulkheads;
+        this.quotaManager = quotaManager;
+        this.meterRegistry = meterRegistry;
+        for (Upstream upstream : Upstream.values()) {
+            policies.put(upstream, new Policy(upstream, environment));
+        }
+    }
+
+    /**
+     * Blocking GET on the upstream's bulkhead. The caller is expected to have taken the
+     * quota permit for the first attempt already.
+     */
+    public <T> T get(Upstream upstream, String url, Class<T> type, Duration attemptTimeout) {
+        Policy policy = policies.get(upstream);
+        RequestPriority lane = RequestPriority.current();
+        policy.budget.deposit();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return bulkheads.call(upstream, () -> {
+                AtomicBoolean firstAttempt = new AtomicBoolean(true);
+                Mono<T> request = Mono.defer(() -> {
+                    String kind = firstAttempt.getAndSet(false) ? "primary" : "retry";
+                    return hedged(policy, lane, attempt(policy, url, type, attemptTimeout, kind));
+                });
+                if (policy.maxRetries > 0) {
+                    request = request.retryWhen(Retry.backoff(policy.maxRetries, policy.baseBackoff)
+                            .maxBackoff(policy.maxBackoff)
+                            .jitter(0.5)
+                            .filter(error -> isRetryable(error) && policy.allowExtraAttempt(lane))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+                }
+                return request.block();
+            });
+        } finally {
+            sample.stop(policy.requestLatency);
+        }
+    }
+
+    private <T> Mono<T> hedged(Policy policy, RequestPriority lane, Mono<T> attempt) {
+        if (!policy.hedgeEnabled) {
+            return attempt;
+        }
+        Duration delay = policy.hedgeDelay();
+        return Mono.defer(() -> {
+            AtomicBoolean hedgeSent = new AtomicBoolean();
+            AtomicInteger failures = new AtomicInteger();
+            // A failure ends the race at once unless the other attempt is still in flight;
+            // a primary failing before the hedge delay also cancels the pending hedge
+            Mono<T> primary = attempt.onErrorResume(e -> !hedgeSent.get() || failures.incrementAndGet() == 2
+                    ? Mono.error(e) : Mono.never());
+            Mono<T> hedge = Mono.delay(delay)
+                    .then(Mono.defer(() -> {
+                        if (!policy.allowExtraAttempt(lane)) {
+                            return Mono.<T>never();
+                        }
+                        hedgeSent.set(true);
+                        log.debug("{} attempt slower than {} ms, sending hedge", policy.upstream, delay.toMillis());
+                        return attempt.contextWrite(ctx -> ctx.put("kind", "hedge"))
+                                .onErrorResume(e -> failures.incrementAndGet() == 2 ? Mono.error(e) : Mono.never());
+                    }));
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    private <T> Mono<T> attempt(Policy policy, String url, Class<T> type, Duration timeout, String kind) {
+        return Mono.deferContextual(ctx -> {
+            String attemptKind = ctx.getOrDefault("kind", kind);
+            long start = System.nanoTime();
+            return bulkheads.webClient(policy.upstream)
+                    .get()
+                    .uri(url)
+                    .retrieve()
+                    .bodyToMono(type)
+                    .timeout(timeout)
+                    .doOnEach(signal -> {
+                        if (signal.isOnNext() || signal.isOnError()) {
+                            long elapsed = System.nanoTime() - start;
+                            policy.attemptTimer(attemptKind, signal.isOnError() ? "error" : "success")
+                                    .record(elapsed, TimeUnit.NANOSECONDS);
+                            if (signal.isOnNext()) {
+                                policy.window.record(elapsed);
+                            }
+                        }
+                    });
+        });
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    private final class Policy {
+
+        private final Upstream upstream;
+        private final boolean hedgeEnabled;
+        private final double hedgePercentile;
+        private final Duration minHedgeDelay;
+        private final Duration defaultHedgeDelay;
+        private final int maxRetries;
+        private final Duration baseBackoff;
+        private final Duration maxBackoff;
+        private final RetryBudget budget;
+        private final LatencyWindow window = new LatencyWindow(256);
+        private final Timer requestLatency;
+
+        private Policy(Upstream upstream, Environment environment) {
+            this.upstream = upstream;
+            String hedge = "app.hedge." + upstream.getKey();
+            String retry = "app.retry." + upstream.getKey();
+            this.hedgeEnabled = environment.getProperty(hedge + ".enabled", Boolean.class, false);
+            this.hedgePercentile = environment.getProperty(hedge + ".percentile", Double.class, 0.95);
+            this.minHedgeDelay = Duration.ofMillis(environment.getProperty(hedge + ".min-delay-ms", Long.class, 50L));
+            this.defaultHedgeDelay = Duration.ofMillis(environment.getProperty(hedge + ".default-delay-ms", Long.class, 2000L));
+            this.maxRetries = environment.getProperty(retry + ".max-retries", Integer.class, 0);
+            this.baseBackoff = Duration.ofMillis(environment.getProperty(retry + ".base-backoff-ms", Long.class, 200L));
+            this.maxBackoff = Duration.ofMillis(environment.getProperty(retry + ".max-backoff-ms", Long.class, 2000L));
+            this.budget = new RetryBudget(
+                    environment.getProperty(retry + ".budget-ratio", Double.class, 0.1),
+                    environment.getProperty(retry + ".budget-max", Double.class, 10.0));
+            this.requestLatency = Timer.builder("upstream.request.latency")
+                    .tag("upstream", upstream.getKey())
+                    .description("Caller-observed upstream latency after hedging and retries")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Timer attemptTimer(String kind, String outcome) {
+            return Timer.builder("upstream.attempt.latency")
+                    .tag("upstream", upstream.getKey())
+                    .tag("kind", kind)
+                    .tag("outcome", outcome)
+                    .description("Latency of individual upstream attempts")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Duration hedgeDelay() {
+            long observed = window.percentile(hedgePercentile);
+            if (observed < 0) {
+                return defaultHedgeDelay;
+            }
+            Duration delay = Duration.ofNanos(observed);
+            return delay.compareTo(minHedgeDelay) < 0 ? minHedgeDelay : delay;
+        }
+
+        private boolean allowExtraAttempt(RequestPriority lane) {
+            return budget.tryWithdraw() && quotaManager.tryAcquire(upstream, lane);
+        }
+    }
+
+    /**
+     * Each first attempt deposits {@code ratio} tokens (up to {@code max}); each hedge or
+     * retry withdraws one, so extra attempts stay a bounded fraction of real traffic.
+     */
+    private static final class RetryBudget {
+
+        private final double ratio;
+        private final double max;
+        private double balance;
+
+        private RetryBudget(double ratio, double max) {
+            this.ratio = ratio;
+            this.max = max;
+            this.balance = max;
+        }
+
+        private synchronized void deposit() {
+            balance = Math.min(max, balance + ratio);
+        }
+
+        private synchronized boolean tryWithdraw() {
+            if (balance < 1.0) {
+                return false;
+            }
+            balance -= 1.0;
+            return true;
+        }
+    }
+
+    /**
+     * Ring buffer of recent successful attempt latencies for percentile estimates.
+     */
+    private static final class LatencyWindow {
+
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        private LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        private synchronized long percentile(double quantile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(count - 1, Math.ceil(quantile * count) - 1);
+            return sorted[Math.max(0, index)];
+        }
+    }
+}
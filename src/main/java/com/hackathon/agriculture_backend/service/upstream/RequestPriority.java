@@ -0,0 +1,35 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import java.util.function.Supplier;
+
+/**
+ * Lane an outbound call is queued in. Calls default to {@link #INTERACTIVE};
+ * scheduled jobs mark their work as {@link #BATCH} so users are served first.
+ */
+public enum RequestPriority {
+    INTERACTIVE,
+    BATCH;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    public static void runAsBatch(Runnable work) {
+        callAs(BATCH, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(RequestPriority priority, Supplier<T> work) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
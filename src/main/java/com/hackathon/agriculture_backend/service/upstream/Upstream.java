@@ -0,0 +1,23 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+/**
+ * External APIs the backend calls. The key is the property prefix used for
+ * per-upstream settings, e.g. {@code app.quota.openweather.per-minute}.
+ */
+public enum Upstream {
+    OPENWEATHER("openweather"),
+    NASA_POWER("nasa"),
+    PLANT_ID("plantid"),
+    INSECT_ID("insectid"),
+    GEMINI("gemini");
+
+    private final String key;
+
+    Upstream(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,226 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import com.hackathon.agriculture_backend.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Isolates each upstream API behind its own bounded executor and connection pool, so a
+ * slow dependency can only exhaust its own resources and not the Tomcat or common pools.
+ *
+ * <p>Sizes come from {@code app.bulkhead.<upstream>.threads}, {@code .queue},
+ * {@code .connections} and {@code .timeout-ms}. A full executor rejects immediately with
+ * {@link BulkheadFullException}; a full connection pool fails once its acquire timeout passes.
+ */
+@Component
+@Slf4j
+public class UpstreamBulkheads {
+
+    private final Map<Upstream, Bulkhead> bulkheads = new EnumMap<>(Upstream.class);
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamBulkheads(Environment environment, MeterRegistry meterRegistry, WebClient.Builder webClientBuilder) {
+        this.meterRegistry = meterRegistry;
+        for (Upstream upstream : Upstream.values()) {
+            String prefix = "app.bulkhead." + upstream.getKey();
+            int threads = environment.getProperty(prefix + ".threads", Integer.class, 4);
+            int queue = environment.getProperty(prefix + ".queue", Integer.class, 16);
+            int connections = environment.getProperty(prefix + ".connections", Integer.class, threads);
+            long timeoutMs = environment.getProperty(prefix + ".timeout-ms", Long.class, 35_000L);
+
+            bulkheads.put(upstream, new Bulkhead(upstream, threads, queue, connections, timeoutMs, webClientBuilder));
+        }
+    }
+
+    /**
+     * Runs blocking work on the upstream's executor and waits for it, bounded by the
+     * upstream's timeout.
+     */
+    public <T> T call(Upstream upstream, Callable<T> work) {
+        Bulkhead bulkhead = bulkheads.get(upstream);
+        Future<T> future;
+        try {
+            future = bulkhead.monitoredExecutor.submit(withCallerPriority(work));
+        } catch (RejectedExecutionException e) {
+            throw rejected(upstream, e);
+        }
+
+        try {
+            return future.get(bulkhead.timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException(upstream + " call timed out after " + bulkhead.timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for " + upstream + " call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(upstream + " call failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #call}; a full bulkhead yields a failed future.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Upstream upstream, Supplier<T> work) {
+        Bulkhead bulkhead = bulkheads.get(upstream);
+        RequestPriority priority = RequestPriority.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> RequestPriority.callAs(priority, work), bulkhead.monitoredExecutor)
+                    .orTimeout(bulkhead.timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(rejected(upstream, e));
+        }
+    }
+
+    public ExecutorService executor(Upstream upstream) {
+        return bulkheads.get(upstream).monitoredExecutor;
+    }
+
+    /**
+     * WebClient backed by the upstream's own Reactor Netty connection pool.
+     */
+    public WebClient webClient(Upstream upstream) {
+        return bulkheads.get(upstream).webClient;
+    }
+
+    /**
+     * Pooled Apache HttpClient for blocking clients; shared, so callers must not close it.
+     */
+    public CloseableHttpClient httpClient(Upstream upstream) {
+        return bulkheads.get(upstream).httpClient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            bulkhead.executor.shutdownNow();
+            bulkhead.connectionProvider.dispose();
+            try {
+                bulkhead.httpClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {} http client: {}", bulkhead.upstream, e.getMessage());
+            }
+        }
+    }
+
+    private <T> Callable<T> withCallerPriority(Callable<T> work) {
+        RequestPriority priority = RequestPriority.current();
+        return () -> RequestPriority.callAs(priority, () -> {
+            try {
+                return work.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        });
+    }
+
+    private BulkheadFullException rejected(Upstream upstream, RejectedExecutionException e) {
+        bulkheads.get(upstream).rejected.increment();
+        log.warn("{} bulkhead is full, rejecting call", upstream);
+        return new BulkheadFullException(upstream + " is saturated, please retry shortly", e);
+    }
+
+    private final class Bulkhead {
+
+        private final Upstream upstream;
+        private final ThreadPoolExecutor executor;
+        private final ExecutorService monitoredExecutor;
+        private final ConnectionProvider connectionProvider;
+        private final WebClient webClient;
+        private final CloseableHttpClient httpClient;
+        private final Counter rejected;
+        private final long timeoutMs;
+
+        private Bulkhead(Upstream upstream, int threads, int queue, int connections, long timeoutMs,
+                         WebClient.Builder webClientBuilder) {
+            this.upstream = upstream;
+            this.timeoutMs = timeoutMs;
+
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queue),
+                    new CustomizableThreadFactory(upstream.getKey() + "-bulkhead-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.executor.allowCoreThreadTimeOut(true);
+            // Registers pool size, active, queued and completed metrics for the executor
+            this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor,
+                    "upstream.bulkhead", Tags.of("upstream", upstream.getKey()));
+
+            this.connectionProvider = ConnectionProvider.builder(upstream.getKey() + "-pool")
+                    .maxConnections(connections)
+                    .pendingAcquireMaxCount(connections * 2)
+                    .pendingAcquireTimeout(Duration.ofSeconds(5))
+                    .maxIdleTime(Duration.ofSeconds(30))
+                    .metrics(true)
+                    .build();
+            this.webClient = webClientBuilder.clone()
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                    .build();
+
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(connections)
+                    .setMaxConnPerRoute(connections)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofSeconds(10))
+                            .setSocketTimeout(Timeout.ofMilliseconds(timeoutMs))
+                            .setTimeToLive(TimeValue.ofMinutes(5))
+                            .build())
+                    .build();
+            this.httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofSeconds(5))
+                            .setResponseTimeout(Timeout.ofMilliseconds(timeoutMs))
+                            .setConnectionKeepAlive(TimeValue.ofSeconds(30))
+                            .build())
+                    .evictIdleConnections(Timeout.ofSeconds(30))
+                    .build();
+
+            this.rejected = Counter.builder("upstream.bulkhead.rejected")
+                    .tag("upstream", upstream.getKey())
+                    .description("Calls refused because the upstream bulkhead was full")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import com.hackathon.agriculture_backend.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive (AIMD) cap on concurrent in-flight requests per upstream.
+ *
+ * <p>Each successful call that came back faster than {@code app.concurrency.<upstream>.latency-threshold-ms}
+ * grows the limit by {@code 1/limit}, i.e. roughly one slot per limit's worth of successes.
+ * A throttled (429), failed (5xx), timed out or slow call multiplies it by
+ * {@code .backoff-ratio}. Callers over the limit wait up to {@code .max-wait-ms} in a queue
+ * of at most {@code .max-queue} and are shed with {@link BulkheadFullException} beyond that.
+ *
+ * <p>Upstreams without {@code .enabled=true} get permits that never block.
+ */
+@Component
+@Slf4j
+public class UpstreamConcurrencyLimiter {
+
+    private static final Permit UNLIMITED = new Permit(null);
+
+    private final Map<Upstream, Limit> limits = new EnumMap<>(Upstream.class);
+
+    public UpstreamConcurrencyLimiter(Environment environment, MeterRegistry meterRegistry) {
+        for (Upstream upstream : Upstream.values()) {
+            String prefix = "app.concurrency." + upstream.getKey();
+            if (environment.getProperty(prefix + ".enabled", Boolean.class, false)) {
+                limits.put(upstream, new Limit(upstream, prefix, environment, meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * Waits for an in-flight slot. The returned permit must be completed exactly once
+     * with {@link Permit#success()}, {@link Permit#dropped()} or {@link Permit#release()}.
+     */
+    public Permit acquire(Upstream upstream) {
+        Limit limit = limits.get(upstream);
+        if (limit == null) {
+            return UNLIMITED;
+        }
+        limit.acquire();
+        return new Permit(limit);
+    }
+
+    public static final class Permit {
+
+        private final Limit limit;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(Limit limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * The call succeeded; its latency feeds the limit.
+         */
+        public void success() {
+            complete(false);
+        }
+
+        /**
+         * The upstream throttled, failed or timed out; the limit backs off.
+         */
+        public void dropped() {
+            complete(true);
+        }
+
+        /**
+         * Frees the slot without a sample, for failures that say nothing about upstream load.
+         */
+        public void release() {
+            if (limit != null && completed.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+
+        private void complete(boolean dropped) {
+            if (limit != null && completed.compareAndSet(false, true)) {
+                limit.release();
+                limit.sample(System.nanoTime() - startNanos, dropped);
+            }
+        }
+    }
+
+    private static final class Limit {
+
+        private final Upstream upstream;
+        private final int minLimit;
+        private final int maxLimit;
+        private final double backoffRatio;
+        private final long latencyThresholdNanos;
+        private final long maxWaitNanos;
+        private final int maxQueue;
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Condition slotFreed = lock.newCondition();
+        private double limit;
+        private int inflight;
+        private int queued;
+
+        private final Counter shed;
+        private final Counter decreases;
+
+        private Limit(Upstream upstream, String prefix, Environment environment, MeterRegistry meterRegistry) {
+            this.upstream = upstream;
+            this.minLimit = environment.getProperty(prefix + ".min-limit", Integer.class, 1);
+            this.maxLimit = environment.getProperty(prefix + ".max-limit", Integer.class, 32);
+            this.backoffRatio = environment.getProperty(prefix + ".backoff-ratio", Double.class, 0.7);
+            this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+                    environment.getProperty(prefix + ".latency-threshold-ms", Long.class, 15_000L));
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+                    environment.getProperty(prefix + ".max-wait-ms", Long.class, 3_000L));
+            this.maxQueue = environment.getProperty(prefix + ".max-queue", Integer.class, 32);
+            this.limit = environment.getProperty(prefix + ".initial-limit", Integer.class, 4);
+
+            String key = upstream.getKey();
+            Gauge.builder("upstream.concurrency.limit", this, l -> l.snapshot(0))
+                    .tag("upstream", key)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("upstream.concurrency.inflight", this, l -> l.snapshot(1))
+                    .tag("upstream", key)
+                    .description("Requests currently in flight")
+                    .register(meterRegistry);
+            Gauge.builder("upstream.concurrency.queued", this, l -> l.snapshot(2))
+                    .tag("upstream", key)
+                    .description("Requests waiting for an in-flight slot")
+                    .register(meterRegistry);
+            this.shed = Counter.builder("upstream.concurrency.shed")
+                    .tag("upstream", key)
+                    .description("Requests rejected by the concurrency limiter")
+                    .register(meterRegistry);
+            this.decreases = Counter.builder("upstream.concurrency.decreases")
+                    .tag("upstream", key)
+                    .description("Limit reductions caused by throttling, errors or slow responses")
+                    .register(meterRegistry);
+        }
+
+        private void acquire() {
+            lock.lock();
+            try {
+                if (queued == 0 && inflight < (int) limit) {
+                    inflight++;
+                    return;
+                }
+                if (queued >= maxQueue) {
+                    throw shed("queue full");
+                }
+
+                queued++;
+                try {
+                    long remaining = maxWaitNanos;
+                    while (inflight >= (int) limit) {
+                        if (remaining <= 0) {
+                            throw shed("waited " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+                        }
+                        remaining = slotFreed.awaitNanos(remaining);
+                    }
+                    inflight++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BulkheadFullException("Interrupted waiting for " + upstream + " concurrency slot", e);
+                } finally {
+                    queued--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+            lock.lock();
+            try {
+                inflight--;
+                slotFreed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void sample(long latencyNanos, boolean dropped) {
+            lock.lock();
+            try {
+                if (dropped || latencyNanos > latencyThresholdNanos) {
+                    double reduced = Math.max(minLimit, limit * backoffRatio);
+                    if (reduced < limit) {
+                        decreases.increment();
+                        log.debug("{} concurrency limit reduced to {} ({})", upstream, (int) reduced,
+                                dropped ? "dropped" : "slow");
+                    }
+                    limit = reduced;
+                } else if (inflight + 1 >= (int) limit / 2) {
+                    // Only grow while the current limit is actually being used
+                    int before = (int) limit;
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    if ((int) limit > before) {
+                        slotFreed.signalAll();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private BulkheadFullException shed(String reason) {
+            shed.increment();
+            log.warn("{} concurrency limit {} reached, shedding request ({})", upstream, (int) limit, reason);
+            return new BulkheadFullException(upstream + " is at its concurrency limit, please retry shortly");
+        }
+
+        private double snapshot(int field) {
+            lock.lock();
+            try {
+                return switch (field) {
+                    case 0 -> limit;
+                    case 1 -> inflight;
+                    default -> queued;
+                };
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
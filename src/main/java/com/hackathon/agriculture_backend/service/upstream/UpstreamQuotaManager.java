@@ -0,0 +1,257 @@
+package com.hackathon.agriculture_backend.service.upstream;
+
+import com.hackathon.agriculture_backend.exception.QuotaExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket budgets for every upstream API, shared by interactive and scheduled callers.
+ *
+ * <p>Each upstream has a per-minute bucket and an optional daily cap, configured as
+ * {@code app.quota.<upstream>.per-minute} and {@code app.quota.<upstream>.per-day}
+ * (0 disables the daily cap). Interactive callers are always served before waiting batch
+ * callers, and batch callers may not drain the bucket below
+ * {@code app.quota.<upstream>.batch-reserve} of its capacity, nor use the last
+ * {@code app.quota.<upstream>.batch-daily-reserve} of the daily cap. A caller that would
+ * wait longer than its lane allows is rejected immediately with the estimated wait.
+ */
+@Component
+@Slf4j
+public class UpstreamQuotaManager {
+
+    private final Map<Upstream, QuotaBucket> buckets = new EnumMap<>(Upstream.class);
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.quota.interactive.max-wait-ms:2000}")
+    private long interactiveMaxWaitMs;
+
+    @Value("${app.quota.batch.max-wait-ms:60000}")
+    private long batchMaxWaitMs;
+
+    public UpstreamQuotaManager(Environment environment, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Upstream upstream : Upstream.values()) {
+            String prefix = "app.quota." + upstream.getKey();
+            QuotaBucket bucket = new QuotaBucket(upstream,
+                    environment.getProperty(prefix + ".per-minute", Integer.class, 60),
+                    environment.getProperty(prefix + ".per-day", Integer.class, 0),
+                    environment.getProperty(prefix + ".batch-reserve", Double.class, 0.2),
+                    environment.getProperty(prefix + ".batch-daily-reserve", Double.class, 0.2));
+            buckets.put(upstream, bucket);
+
+            for (RequestPriority lane : RequestPriority.values()) {
+                Gauge.builder("upstream.quota.queue.depth", bucket, b -> b.waiting(lane))
+                        .tag("upstream", upstream.getKey())
+                        .tag("lane", lane.name().toLowerCase())
+                        .description("Callers waiting for an upstream quota permit")
+                        .register(meterRegistry);
+            }
+            Gauge.builder("upstream.quota.tokens", bucket, QuotaBucket::availableTokens)
+                    .tag("upstream", upstream.getKey())
+                    .description("Tokens currently left in the per-minute bucket")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Takes one permit for the upstream in the current thread's lane, waiting if needed.
+     *
+     * @throws QuotaExceededException if the estimated wait exceeds the lane's limit
+     */
+    public void acquire(Upstream upstream) {
+        RequestPriority lane = RequestPriority.current();
+        long maxWaitMs = lane == RequestPriority.INTERACTIVE ? interactiveMaxWaitMs : batchMaxWaitMs;
+        long start = System.nanoTime();
+        try {
+            buckets.get(upstream).acquire(lane, maxWaitMs);
+            waitTimer(upstream, lane).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (QuotaExceededException e) {
+            rejectedCounter(upstream, lane).increment();
+            log.warn("Quota rejected {} call in {} lane: {}", upstream, lane, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a permit only if one is free right now, for extra attempts (hedges, retries)
+     * that should be skipped rather than queued when the budget is tight.
+     */
+    public boolean tryAcquire(Upstream upstream, RequestPriority lane) {
+        boolean acquired = buckets.get(upstream).tryAcquire(lane);
+        if (!acquired) {
+            rejectedCounter(upstream, lane).increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * Estimated time until a permit would be granted to the current thread's lane.
+     */
+    public Duration estimateWait(Upstream upstream) {
+        return Duration.ofMillis(buckets.get(upstream).estimateWaitMs(RequestPriority.current(), false));
+    }
+
+    private Timer waitTimer(Upstream upstream, RequestPriority lane) {
+        return Timer.builder("upstream.quota.wait")
+                .tag("upstream", upstream.getKey())
+                .tag("lane", lane.name().toLowerCase())
+                .description("Time spent waiting for an upstream quota permit")
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(Upstream upstream, RequestPriority lane) {
+        return Counter.builder("upstream.quota.rejected")
+                .tag("upstream", upstream.getKey())
+                .tag("lane", lane.name().toLowerCase())
+                .description("Calls rejected because the upstream quota was exhausted")
+                .register(meterRegistry);
+    }
+
+    static final class QuotaBucket {
+
+        private final Upstream upstream;
+        private final double capacity;
+        private final double refillPerMs;
+        private final int dailyLimit;
+        private final int batchDailyLimit;
+        private final double batchReserve;
+
+        private double tokens;
+        private long lastRefill = System.currentTimeMillis();
+        private LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        private int usedToday;
+        private final int[] waiting = new int[RequestPriority.values().length];
+
+        QuotaBucket(Upstream upstream, int perMinute, int perDay, double batchReserveFraction,
+                    double batchDailyReserveFraction) {
+            this.upstream = upstream;
+            this.capacity = Math.max(1, perMinute);
+            this.refillPerMs = capacity / 60_000.0;
+            this.dailyLimit = perDay;
+            this.batchDailyLimit = (int) Math.floor(perDay * (1 - batchDailyReserveFraction));
+            // Never reserve the last whole token, or batch could not run at all
+            this.batchReserve = Math.min(capacity * batchReserveFraction, capacity - 1);
+            this.tokens = capacity;
+        }
+
+        synchronized void acquire(RequestPriority lane, long maxWaitMs) {
+            long deadline = System.currentTimeMillis() + maxWaitMs;
+            waiting[lane.ordinal()]++;
+            try {
+                while (true) {
+                    refill();
+                    if (dailyExhausted(lane)) {
+                        throw new QuotaExceededException(upstream + " daily " + lane.name().toLowerCase()
+                                + " quota of " + dailyLimit(lane) + " exhausted", Duration.ofMillis(millisUntilUtcMidnight()));
+                    }
+                    if (mayTake(lane)) {
+                        tokens -= 1;
+                        usedToday++;
+                        return;
+                    }
+
+                    long estimate = estimateWaitMs(lane, true);
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (estimate > remaining) {
+                        throw new QuotaExceededException(upstream + " quota busy, estimated wait " + estimate + " ms",
+                                Duration.ofMillis(estimate));
+                    }
+                    wait(Math.max(1, Math.min(remaining, millisUntilTokens(1))));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QuotaExceededException("Interrupted waiting for " + upstream + " quota", Duration.ZERO);
+            } finally {
+                waiting[lane.ordinal()]--;
+                // Let the other lane re-check now that the queue changed
+                notifyAll();
+            }
+        }
+
+        synchronized boolean tryAcquire(RequestPriority lane) {
+            refill();
+            if (dailyExhausted(lane) || !mayTake(lane)) {
+                return false;
+            }
+            tokens -= 1;
+            usedToday++;
+            return true;
+        }
+
+        synchronized long estimateWaitMs(RequestPriority lane, boolean queued) {
+            refill();
+            if (dailyExhausted(lane)) {
+                return millisUntilUtcMidnight();
+            }
+            // Everyone ahead in the lane (and, for batch, every interactive waiter) needs a token first
+            double ahead = waiting[RequestPriority.INTERACTIVE.ordinal()];
+            if (lane == RequestPriority.BATCH) {
+                ahead += waiting[RequestPriority.BATCH.ordinal()] + batchReserve;
+            }
+            if (queued) {
+                ahead -= 1;
+            }
+            return millisUntilTokens(ahead + 1);
+        }
+
+        synchronized int waiting(RequestPriority lane) {
+            return waiting[lane.ordinal()];
+        }
+
+        synchronized double availableTokens() {
+            refill();
+            return tokens;
+        }
+
+        private int dailyLimit(RequestPriority lane) {
+            return lane == RequestPriority.BATCH ? batchDailyLimit : dailyLimit;
+        }
+
+        private boolean dailyExhausted(RequestPriority lane) {
+            return dailyLimit > 0 && usedToday >= dailyLimit(lane);
+        }
+
+        private boolean mayTake(RequestPriority lane) {
+            if (lane == RequestPriority.INTERACTIVE) {
+                return tokens >= 1;
+            }
+            return waiting[RequestPriority.INTERACTIVE.ordinal()] == 0 && tokens - 1 >= batchReserve;
+        }
+
+        private long millisUntilTokens(double needed) {
+            double missing = needed - tokens;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerMs);
+        }
+
+        private void refill() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMs);
+            lastRefill = now;
+
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            if (!today.equals(day)) {
+                day = today;
+                usedToday = 0;
+            }
+        }
+
+        private static long millisUntilUtcMidnight() {
+            LocalTime now = LocalTime.now(ZoneOffset.UTC);
+            return Duration.between(now, LocalTime.MAX).toMillis() + 1;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive multi-pattern substring matcher (Aho–Corasick) compiled into a dense
+ * transition table, so matching is one array lookup per input character.
+ *
+ * <p>Each pattern carries a bit mask of up to 64 labels; {@link #match} returns the union of
+ * the masks of every pattern found anywhere in the text, with the same substring semantics
+ * as {@code text.toLowerCase().contains(pattern)}.
+ */
+public final class AhoCorasickMatcher {
+
+    private final int[] charClass;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final long[] outputs;
+
+    private AhoCorasickMatcher(int[] charClass, int alphabetSize, int[] transitions, long[] outputs) {
+        this.charClass = charClass;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Union of the label masks of all patterns occurring in the text.
+     */
+    public long match(CharSequence text) {
+        if (text == null) {
+            return 0L;
+        }
+        long found = 0L;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int symbol = c < charClass.length ? charClass[c] : 0;
+            state = transitions[state * alphabetSize + symbol];
+            found |= outputs[state];
+        }
+        return found;
+    }
+
+    public static final class Builder {
+
+        private final List<String> patterns = new ArrayList<>();
+        private final List<Long> masks = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String pattern, long labels) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern must not be empty");
+            }
+            patterns.add(pattern.toLowerCase(Locale.ROOT));
+            masks.add(labels);
+            return this;
+        }
+
+        public AhoCorasickMatcher build() {
+            // Symbol 0 stands for every character that appears in no pattern
+            int maxChar = patterns.stream().flatMapToInt(String::chars).max().orElse(0);
+            int[] charClass = new int[maxChar + 1];
+            int alphabetSize = 1;
+            for (String pattern : patterns) {
+                for (char c : pattern.toCharArray()) {
+                    if (charClass[c] == 0) {
+                        charClass[c] = alphabetSize++;
+                    }
+                }
+            }
+
+            // Trie; -1 marks a missing edge until failure links fill it in
+            List<int[]> edges = new ArrayList<>();
+            List<Long> output = new ArrayList<>();
+            edges.add(newRow(alphabetSize));
+            output.add(0L);
+            for (int p = 0; p < patterns.size(); p++) {
+                int state = 0;
+                for (char c : patterns.get(p).toCharArray()) {
+                    int symbol = charClass[c];
+                    if (edges.get(state)[symbol] < 0) {
+                        edges.get(state)[symbol] = edges.size();
+                        edges.add(newRow(alphabetSize));
+                        output.add(0L);
+                    }
+                    state = edges.get(state)[symbol];
+                }
+                output.set(state, output.get(state) | masks.get(p));
+            }
+
+            int states = edges.size();
+            int[] transitions = new int[states * alphabetSize];
+            long[] outputs = new long[states];
+            int[] failure = new int[states];
+            for (int s = 0; s < states; s++) {
+                outputs[s] = output.get(s);
+            }
+
+            // Breadth-first: complete the goto function into a DFA and inherit outputs
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = edges.get(0)[symbol];
+                if (next < 0) {
+                    transitions[symbol] = 0;
+                } else {
+                    transitions[symbol] = next;
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] |= outputs[failure[state]];
+                for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                    int next = edges.get(state)[symbol];
+                    int fallback = transitions[failure[state] * alphabetSize + symbol];
+                    if (next < 0) {
+                        transitions[state * alphabetSize + symbol] = fallback;
+                    } else {
+                        transitions[state * alphabetSize + symbol] = next;
+                        failure[next] = fallback;
+                        queue.add(next);
+                    }
+                }
+            }
+            return new AhoCorasickMatcher(charClass, alphabetSize, transitions, outputs);
+        }
+
+        private static int[] newRow(int size) {
+            int[] row = new int[size];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hackathon.agriculture_backend.util;
+
+/**
+ * Okapi BM25 term weighting shared by every ranked search in the application, so that
+ * the knowledge base and chat history rank by the same formula and constants.
+ */
+public final class Bm25 {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private Bm25() {
+    }
+
+    /**
+     * Inverse document frequency of a term found in {@code matchingDocuments} of
+     * {@code documents}; never negative.
+     */
+    public static double idf(int documents, int matchingDocuments) {
+        return Math.log(1 + (documents - matchingDocuments + 0.5) / (matchingDocuments + 0.5));
+    }
+
+    /**
+     * Score contribution of a term with the given (weighted) frequency in a document,
+     * normalised by the document's length relative to the average.
+     */
+    public static double score(double idf, double frequency, double length, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+}
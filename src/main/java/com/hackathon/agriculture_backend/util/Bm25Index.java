@@ -0,0 +1,158 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable in-memory {@link Bm25} index over short documents. A document matches when it contains
+ * any query term; title terms count twice. Terms are lower-cased, stop words dropped and
+ * common English suffixes stripped, so "watering" and "waters" both find "water".
+ */
+public final class Bm25Index<T> {
+
+    private static final Pattern WORD_BREAKS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "about", "am", "an", "and", "any", "are", "as", "at", "be", "by", "can", "could", "do", "does",
+            "for", "from", "get", "has", "have", "how", "i", "if", "in", "into", "is", "it", "its", "me", "much",
+            "my", "of", "on", "or", "our", "should", "so", "some", "than", "that", "the", "their", "then", "there",
+            "this", "to", "was", "we", "what", "when", "which", "why", "will", "with", "would", "you", "your");
+    private static final double TITLE_WEIGHT = 2.0;
+
+    private final List<T> documents;
+    private final double[] lengths;
+    private final double averageLength;
+    private final Map<String, Posting[]> postings;
+
+    private Bm25Index(List<T> documents, double[] lengths, Map<String, Posting[]> postings) {
+        this.documents = documents;
+        this.lengths = lengths;
+        this.averageLength = Math.max(1, Arrays.stream(lengths).average().orElse(1));
+        this.postings = postings;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * The best {@code limit} documents for the query, highest score first.
+     */
+    public List<Hit<T>> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(terms(query));
+        if (terms.isEmpty() || documents.isEmpty()) {
+            return List.of();
+        }
+        double[] scores = new double[documents.size()];
+        int[] matchedTerms = new int[documents.size()];
+        for (String term : terms) {
+            Posting[] list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = Bm25.idf(documents.size(), list.length);
+            for (Posting posting : list) {
+                scores[posting.document()] += Bm25.score(idf, posting.frequency(), lengths[posting.document()], averageLength);
+                matchedTerms[posting.document()]++;
+            }
+        }
+        List<Hit<T>> hits = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                hits.add(new Hit<>(documents.get(i), scores[i], (double) matchedTerms[i] / terms.size()));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit<T>::score).reversed());
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * The indexed form of the words of {@code text}, in order.
+     */
+    public static List<String> terms(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word : WORD_BREAKS.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() > 1 && !STOP_WORDS.contains(word)) {
+                terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    private static String stem(String word) {
+        int length = word.length();
+        if (length > 4 && word.endsWith("ies")) {
+            return word.substring(0, length - 3) + "y";
+        }
+        if (length > 5 && word.endsWith("ation")) {
+            word = word.substring(0, length - 5) + "ate";
+        } else if (length > 5 && word.endsWith("ing")) {
+            word = word.substring(0, length - 3);
+        } else if (length > 4 && word.endsWith("ed")) {
+            word = word.substring(0, length - 2);
+        } else if (length > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            word = word.substring(0, length - 1);
+        }
+        return word.length() > 3 && word.endsWith("e") ? word.substring(0, word.length() - 1) : word;
+    }
+
+    public record Hit<T>(T document, double score, double coverage) {
+    }
+
+    private record Posting(int document, double frequency) {
+    }
+
+    public static final class Builder<T> {
+
+        private final List<T> documents = new ArrayList<>();
+        private final List<Map<String, Double>> frequencies = new ArrayList<>();
+        private final List<Double> lengths = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<T> add(T document, String title, String body) {
+            Map<String, Double> counts = new HashMap<>();
+            double length = 0;
+            for (String term : terms(title)) {
+                counts.merge(term, TITLE_WEIGHT, Double::sum);
+                length += TITLE_WEIGHT;
+            }
+            for (String term : terms(body)) {
+                counts.merge(term, 1.0, Double::sum);
+                length++;
+            }
+            documents.add(document);
+            frequencies.add(counts);
+            lengths.add(length);
+            return this;
+        }
+
+        public Bm25Index<T> build() {
+            Map<String, List<Posting>> lists = new HashMap<>();
+            for (int i = 0; i < frequencies.size(); i++) {
+                int document = i;
+                frequencies.get(i).forEach((term, frequency) ->
+                        lists.computeIfAbsent(term, t -> new ArrayList<>()).add(new Posting(document, frequency)));
+            }
+            Map<String, Posting[]> postings = new HashMap<>(lists.size() * 2);
+            lists.forEach((term, list) -> postings.put(term, list.toArray(Posting[]::new)));
+            return new Bm25Index<>(List.copyOf(documents),
+                    lengths.stream().mapToDouble(Double::doubleValue).toArray(), postings);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.util.Locale;
+
+/**
+ * Snaps coordinates onto a fixed lat/lng grid so that nearby locations can share
+ * a single upstream weather lookup.
+ */
+public final class GeoGrid {
+
+    private GeoGrid() {
+    }
+
+    /**
+     * Stable key of the grid cell containing the given point, e.g. "25.30:51.50".
+     */
+    public static String cellKey(double latitude, double longitude, double cellSizeDegrees) {
+        long row = (long) Math.floor(latitude / cellSizeDegrees);
+        long col = (long) Math.floor(longitude / cellSizeDegrees);
+        return String.format(Locale.ROOT, "%.2f:%.2f", row * cellSizeDegrees, col * cellSizeDegrees);
+    }
+
+    /**
+     * Center of the grid cell containing the given point as {latitude, longitude}.
+     */
+    public static double[] cellCenter(double latitude, double longitude, double cellSizeDegrees) {
+        double row = Math.floor(latitude / cellSizeDegrees);
+        double col = Math.floor(longitude / cellSizeDegrees);
+        return new double[] {
+                (row + 0.5) * cellSizeDegrees,
+                (col + 0.5) * cellSizeDegrees
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.hackathon.agriculture_backend.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads uploaded images from their multipart temp files in fixed-size chunks, so an upload
+ * costs the same heap whatever its size. Blocking reads run on the given executor, never on
+ * the HTTP client's event loop.
+ */
+public final class ImageUploads {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private ImageUploads() {
+    }
+
+    public static String sha256(MultipartFile image) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try (InputStream in = image.getInputStream()) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The raw image bytes.
+     */
+    public static Flux<DataBuffer> content(MultipartFile image, Executor executor) {
+        return DataBufferUtils.readInputStream(image::getInputStream, DefaultDataBufferFactory.sharedInstance, CHUNK_SIZE)
+                .subscribeOn(Schedulers.fromExecutor(executor));
+    }
+
+    /**
+     * {@code prefix}, the Base64 of the image, then {@code suffix}; the image is encoded
+     * chunk by chunk as the consumer requests more.
+     */
+    public static Flux<DataBuffer> base64(byte[] prefix, MultipartFile image, byte[] suffix, Executor executor) {
+        return Flux.from(DataBufferUtils.outputStreamPublisher(out -> {
+            try (InputStream in = image.getInputStream()) {
+                out.write(prefix);
+                // Closing the encoder writes the final padding; the stream itself stays open
+                try (OutputStream encoder = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+                    in.transferTo(encoder);
+                }
+                out.write(suffix);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read uploaded image", e);
+            }
+        }, DefaultDataBufferFactory.sharedInstance, executor, CHUNK_SIZE));
+    }
+
+    /**
+     * Length of {@link #base64} for an image of {@code size} bytes.
+     */
+    public static long base64Length(byte[] prefix, long size, byte[] suffix) {
+        return prefix.length + 4 * ((size + 2) / 3) + suffix.length;
+    }
+}
@@ -0,0 +1,116 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Static 2-d tree over planar points for k-nearest-neighbour lookups in O(log n).
+ * The tree is built once and is immutable afterwards.
+ */
+public final class KdTree2D<T> {
+
+    public record Neighbor<T>(T value, double distance) {
+    }
+
+    private record Point<T>(double x, double y, T value) {
+    }
+
+    private final Object[] nodes;
+    private final int size;
+
+    private KdTree2D(List<Point<T>> points) {
+        this.size = points.size();
+        this.nodes = new Object[size];
+        build(new ArrayList<>(points), 0, size, 0);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Up to {@code k} nearest points to (x, y), closest first.
+     */
+    public List<Neighbor<T>> nearest(double x, double y, int k) {
+        if (size == 0 || k <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Neighbor<T>> best = new PriorityQueue<>(
+                Comparator.comparingDouble((Neighbor<T> n) -> n.distance()).reversed());
+        search(0, size, 0, x, y, k, best);
+
+        List<Neighbor<T>> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::distance));
+        return result;
+    }
+
+    // Points are laid out as an implicit tree: the median of [from, to) is the node,
+    // the left half its lower subtree and the right half its upper subtree.
+    private void build(List<Point<T>> points, int from, int to, int depth) {
+        if (from >= to) {
+            return;
+        }
+        Comparator<Point<T>> axis = depth % 2 == 0
+                ? Comparator.comparingDouble(Point::x)
+                : Comparator.comparingDouble(Point::y);
+        points.subList(from, to).sort(axis);
+        int mid = (from + to) >>> 1;
+        nodes[mid] = points.get(mid);
+        build(points, from, mid, depth + 1);
+        build(points, mid + 1, to, depth + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void search(int from, int to, int depth, double x, double y, int k,
+                        PriorityQueue<Neighbor<T>> best) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        Point<T> node = (Point<T>) nodes[mid];
+
+        double distance = Math.hypot(node.x() - x, node.y() - y);
+        if (best.size() < k) {
+            best.add(new Neighbor<>(node.value(), distance));
+        } else if (distance < best.peek().distance()) {
+            best.poll();
+            best.add(new Neighbor<>(node.value(), distance));
+        }
+
+        double delta = depth % 2 == 0 ? x - node.x() : y - node.y();
+        boolean goLeft = delta < 0;
+        if (goLeft) {
+            search(from, mid, depth + 1, x, y, k, best);
+        } else {
+            search(mid + 1, to, depth + 1, x, y, k, best);
+        }
+        // Only cross the splitting plane if it is closer than the current k-th best
+        if (best.size() < k || Math.abs(delta) < best.peek().distance()) {
+            if (goLeft) {
+                search(mid + 1, to, depth + 1, x, y, k, best);
+            } else {
+                search(from, mid, depth + 1, x, y, k, best);
+            }
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final List<Point<T>> points = new ArrayList<>();
+
+        public Builder<T> add(double x, double y, T value) {
+            points.add(new Point<>(x, y, value));
+            return this;
+        }
+
+        public KdTree2D<T> build() {
+            return new KdTree2D<>(points);
+        }
+    }
+}
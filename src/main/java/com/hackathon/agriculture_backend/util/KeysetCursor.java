@@ -0,0 +1,66 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in a history ordered by {@code (timestamp DESC, id DESC)}: the key of the last
+ * row returned. The next page is every row strictly after it in that order, which the
+ * composite {@code (owner, timestamp, id)} indexes answer with a range scan however deep
+ * the page is.
+ *
+ * <p>Clients see it only as an opaque URL-safe token. Dates and local date-times are
+ * carried as UTC instants, which round-trips them exactly.
+ */
+public record KeysetCursor(Instant at, long id) {
+
+    public static KeysetCursor of(Instant at, Long id) {
+        return new KeysetCursor(at, id);
+    }
+
+    public static KeysetCursor of(LocalDateTime at, Long id) {
+        return new KeysetCursor(at.toInstant(ZoneOffset.UTC), id);
+    }
+
+    public static KeysetCursor of(LocalDate at, Long id) {
+        return new KeysetCursor(at.atStartOfDay(ZoneOffset.UTC).toInstant(), id);
+    }
+
+    public LocalDateTime localDateTime() {
+        return LocalDateTime.ofInstant(at, ZoneOffset.UTC);
+    }
+
+    public LocalDate localDate() {
+        return LocalDate.ofInstant(at, ZoneOffset.UTC);
+    }
+
+    public String encode() {
+        String raw = at.getEpochSecond() + ":" + at.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the decoded cursor, or {@code null} for a missing one (first page)
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode}
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.hackathon.agriculture_backend.util;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 64-bit difference hash (dHash) of an image: the image is reduced to 9x8 cells of average
+ * luminance and each bit records whether a cell is brighter than its right neighbour. Photos
+ * that differ only by re-encoding, resizing or small exposure changes end up a few bits
+ * apart, so {@link #distance} measures how alike two images look.
+ */
+public final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[COLUMNS * ROWS];
+        int[] counts = new int[COLUMNS * ROWS];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = Math.min(ROWS - 1, y * ROWS / height);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int cell = cellRow * COLUMNS + Math.min(COLUMNS - 1, x * COLUMNS / width);
+                sums[cell] += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS - 1; c++) {
+                int left = r * COLUMNS + c;
+                hash <<= 1;
+                if (average(sums, counts, left) > average(sums, counts, left + 1)) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits, from 0 (same picture) to 64.
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private static double average(double[] sums, int[] counts, int cell) {
+        return counts[cell] > 0 ? sums[cell] / counts[cell] : 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hackathon.agriculture_backend.benchmark;
+
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Classification;
+import com.hackathon.agriculture_backend.service.ChatTopicClassifier.Topic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass topic classifier against the per-keyword {@code contains} checks it
+ * replaced (agriculture filter followed by the mock responder's keyword chain).
+ *
+ * <p>Not part of the test suite; after {@code mvn test-compile} run {@link #main} (or
+ * {@code org.openjdk.jmh.Main ChatTopicClassifierBenchmark}) with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatTopicClassifierBenchmark {
+
+    private static final List<String> LEGACY_KEYWORDS = List.of(
+            "plant", "crop", "farm", "agriculture", "irrigation", "water", "soil", "fertilizer",
+            "harvest", "seed", "grow", "cultivate", "yield", "pest", "disease", "weather",
+            "temperature", "humidity", "rain", "drought", "flood", "pest", "disease", "insect",
+            "weed", "nutrient", "nitrogen", "phosphorus", "potassium", "organic", "sustainable",
+            "greenhouse", "field", "land", "tractor", "equipment", "machinery", "livestock",
+            "cattle", "sheep", "goat", "chicken", "poultry", "dairy", "milk", "egg",
+            "vegetable", "fruit", "grain", "wheat", "rice", "corn", "tomato", "potato",
+            "onion", "carrot", "lettuce", "cabbage", "spinach", "broccoli", "cauliflower",
+            "pepper", "cucumber", "squash", "pumpkin", "bean", "pea", "lentil", "soybean",
+            "cotton", "sugarcane", "coffee", "tea", "spice", "herb", "flower", "tree",
+            "orchard", "vineyard", "garden", "plot", "acre", "hectare", "yield", "production",
+            "market", "price", "profit", "loss", "cost", "investment", "loan", "credit",
+            "insurance", "government", "subsidy", "policy", "regulation", "certification",
+            "gmo", "hybrid", "variety", "breed", "strain", "genetics", "breeding",
+            "research", "development", "innovation", "technology", "precision", "automation",
+            "sensor", "drone", "satellite", "gps", "mapping", "monitoring", "tracking",
+            "data", "analytics", "prediction", "forecast", "model", "algorithm", "ai",
+            "machine learning", "iot", "smart farming", "digital agriculture", "agtech");
+
+    @Param({
+            "How often should I water my tomatoes during this heat wave?",
+            "What is the capital of France?",
+            "My wheat field has yellow leaves and some small insects on the underside, the soil "
+                    + "is clay and we had almost no rain for three weeks. What fertilizer or pest "
+                    + "treatment would you recommend before the harvest next month?"
+    })
+    private String message;
+
+    private ChatTopicClassifier classifier;
+
+    @Setup
+    public void setUp() {
+        classifier = new ChatTopicClassifier();
+    }
+
+    @Benchmark
+    public int legacyContains() {
+        String lower = message.toLowerCase();
+        boolean related = false;
+        for (String keyword : LEGACY_KEYWORDS) {
+            if (lower.contains(keyword)) {
+                related = true;
+                break;
+            }
+        }
+        if (!related) {
+            return -1;
+        }
+        if (lower.contains("irrigation") || lower.contains("water") || lower.contains("schedule")) {
+            return 0;
+        } else if (lower.contains("weather") || lower.contains("temperature") || lower.contains("heat")) {
+            return 1;
+        } else if (lower.contains("crop") || lower.contains("plant") || lower.contains("harvest")) {
+            return 2;
+        } else if (lower.contains("pest") || lower.contains("disease") || lower.contains("insect")) {
+            return 3;
+        } else if (lower.contains("soil") || lower.contains("health")) {
+            return 4;
+        } else if (lower.contains("fertilizer") || lower.contains("nutrient")) {
+            return 5;
+        }
+        return 6;
+    }
+
+    @Benchmark
+    public int classifier() {
+        Classification topics = classifier.classify(message);
+        if (!topics.isAgricultureRelated()) {
+            return -1;
+        }
+        if (topics.any(Topic.IRRIGATION, Topic.SCHEDULE)) {
+            return 0;
+        } else if (topics.any(Topic.WEATHER, Topic.HEAT)) {
+            return 1;
+        } else if (topics.any(Topic.CROP, Topic.PLANT, Topic.HARVEST)) {
+            return 2;
+        } else if (topics.any(Topic.PEST, Topic.INSECT)) {
+            return 3;
+        } else if (topics.any(Topic.SOIL, Topic.HEALTH)) {
+            return 4;
+        } else if (topics.has(Topic.FERTILIZER)) {
+            return 5;
+        }
+        return 6;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChatTopicClassifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
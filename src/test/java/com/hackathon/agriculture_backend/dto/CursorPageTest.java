@@ -0,0 +1,49 @@
+package com.hackathon.agriculture_backend.dto;
+
+import com.hackathon.agriculture_backend.util.KeysetCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTest {
+
+    private static final Function<Long, KeysetCursor> KEY = id -> KeysetCursor.of(Instant.ofEpochSecond(id), id);
+
+    @Test
+    void extraRowMeansAnotherPageAfterTheLastReturnedRow() {
+        CursorPage<Long> page = CursorPage.of(List.of(9L, 8L, 7L), 2, KEY);
+
+        assertThat(page.getItems()).containsExactly(9L, 8L);
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(KeysetCursor.decode(page.getNextCursor())).isEqualTo(KEY.apply(8L));
+    }
+
+    @Test
+    void exactlyFullPageIsTheLast() {
+        CursorPage<Long> page = CursorPage.of(List.of(9L, 8L), 2, KEY);
+
+        assertThat(page.getItems()).containsExactly(9L, 8L);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void emptyPageHasNoCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(), 2, KEY);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void clampsRequestedSize() {
+        assertThat(CursorPage.clampSize(0)).isEqualTo(1);
+        assertThat(CursorPage.clampSize(-5)).isEqualTo(1);
+        assertThat(CursorPage.clampSize(20)).isEqualTo(20);
+        assertThat(CursorPage.clampSize(10_000)).isEqualTo(CursorPage.MAX_SIZE);
+    }
+}
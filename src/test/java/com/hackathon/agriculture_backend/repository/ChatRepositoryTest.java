@@ -0,0 +1,76 @@
+package com.hackathon.agriculture_backend.repository;
+
+import com.hackathon.agriculture_backend.model.Chat;
+import com.hackathon.agriculture_backend.model.Farmer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ChatRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2024-05-01T06:00:00Z");
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private FarmerRepository farmerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Farmer farmer;
+
+    @BeforeEach
+    void setUp() {
+        farmer = new Farmer();
+        farmer.setName("Test Farmer");
+        farmer.setPhone("+97400000000");
+        farmer.setEmail("farmer@example.com");
+        farmer.setLocationName("Doha");
+        farmer.setLatitude(25.3);
+        farmer.setLongitude(51.5);
+        farmer.setPreferredCrop("Tomato");
+        farmer = farmerRepository.save(farmer);
+    }
+
+    // Inserted like ChatWriteBehindQueue does, with the given timestamp (JPA would stamp now)
+    private long chat(long id, Instant createdAt) {
+        jdbcTemplate.update("insert into chats (id, farmer_id, user_message, ai_response, message_type, created_at, updated_at) "
+                + "values (?, ?, 'question', 'answer', 'GENERAL', ?, ?)",
+                id, farmer.getId(), createdAt.atOffset(ZoneOffset.UTC), createdAt.atOffset(ZoneOffset.UTC));
+        return id;
+    }
+
+    @Test
+    void pagesThroughRowsSharingATimestampWithoutSkipsOrRepeats() {
+        // Two rows per timestamp, so page boundaries fall between equal timestamps
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.add(chat(100 + 2 * i, T0.plusSeconds(i)));
+            expected.add(chat(101 + 2 * i, T0.plusSeconds(i)));
+        }
+        expected.sort((a, b) -> Long.compare(b, a));
+
+        List<Long> seen = new ArrayList<>();
+        List<Chat> page = chatRepository.findRecentChatsByFarmerId(farmer.getId(), Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(chat -> seen.add(chat.getId()));
+            Chat last = page.get(page.size() - 1);
+            page = chatRepository.findPageAfter(farmer.getId(), last.getCreatedAt(), last.getId(), Limit.of(3));
+        }
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+}
@@ -0,0 +1,179 @@
+package com.hackathon.agriculture_backend.service;
+
+import com.hackathon.agriculture_backend.model.Chat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatWriteBehindQueueTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatStatsService chatStatsService;
+    private long insertDelayMs;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("chat-writer-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                create table chats (
+                    id bigint primary key,
+                    farmer_id bigint not null,
+                    user_message text not null,
+                    ai_response text not null,
+                    context_hash varchar(64),
+                    message_type varchar(32),
+                    is_helpful boolean,
+                    user_feedback varchar(255),
+                    created_at timestamp with time zone,
+                    updated_at timestamp with time zone)""");
+        meterRegistry = new SimpleMeterRegistry();
+
+        // Runs the insert it is handed, optionally slowed down to keep the writer busy
+        chatStatsService = mock(ChatStatsService.class);
+        doAnswer(invocation -> {
+            Thread.sleep(insertDelayMs);
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(chatStatsService).recording(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private ChatWriteBehindQueue queue(int bufferSize) {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices().getDialect()).thenReturn(new H2Dialect());
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.chat-writer.buffer", String.valueOf(bufferSize))
+                .withProperty("app.chat-writer.batch-size", "100")
+                .withProperty("app.chat-writer.max-wait-ms", "20")
+                .withProperty("app.chat-writer.shutdown-timeout-ms", "5000");
+        return new ChatWriteBehindQueue(jdbcTemplate, entityManagerFactory, mock(ChatSearchService.class),
+                mock(ChatContextStore.class), chatStatsService, environment, meterRegistry);
+    }
+
+    // The sequence start() would create, for queues whose writer is not started
+    private void createSequence() {
+        jdbcTemplate.execute("create sequence chat_id_seq start with 1 increment by 50");
+    }
+
+    private static Chat chat(String userMessage) {
+        Chat chat = new Chat();
+        chat.setFarmerId(1L);
+        chat.setUserMessage(userMessage);
+        chat.setAiResponse("answer to " + userMessage);
+        return chat;
+    }
+
+    private List<Long> writtenIds() {
+        return jdbcTemplate.queryForList("select id from chats order by id", Long.class);
+    }
+
+    private double rows(String result) {
+        return meterRegistry.get("chat.writer.rows").tag("result", result).counter().count();
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() {
+        ChatWriteBehindQueue queue = queue(100);
+        createSequence();
+        // Queued before the writer starts, so all three go out as one batch
+        Chat first = queue.enqueue(chat("first"));
+        queue.enqueue(chat(null));
+        Chat third = queue.enqueue(chat("third"));
+
+        queue.start();
+        queue.flush();
+
+        assertThat(writtenIds()).containsExactly(first.getId(), third.getId());
+        assertThat(rows("written")).isEqualTo(2);
+        assertThat(rows("failed")).isEqualTo(1);
+        queue.shutdown();
+    }
+
+    @Test
+    void flushReturnsOnceEarlierChatsAreWritten() {
+        ChatWriteBehindQueue queue = queue(100);
+        queue.start();
+        insertDelayMs = 50;
+        List<Long> ids = List.of(
+                queue.enqueue(chat("one")).getId(),
+                queue.enqueue(chat("two")).getId(),
+                queue.enqueue(chat("three")).getId());
+
+        queue.flush();
+
+        assertThat(writtenIds()).containsExactlyElementsOf(ids);
+        queue.shutdown();
+    }
+
+    @Test
+    void shutdownWritesPendingChats() {
+        ChatWriteBehindQueue queue = queue(100);
+        queue.start();
+        insertDelayMs = 50;
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue(chat("question " + i));
+        }
+
+        queue.shutdown();
+
+        assertThat(writtenIds()).hasSize(5);
+    }
+
+    @Test
+    void chatsEnqueuedAfterShutdownAreWrittenDirectly() {
+        ChatWriteBehindQueue queue = queue(100);
+        queue.start();
+        queue.shutdown();
+
+        Chat late = queue.enqueue(chat("late"));
+
+        assertThat(writtenIds()).containsExactly(late.getId());
+    }
+
+    @Test
+    void fullBufferFallsBackToDirectWrite() {
+        ChatWriteBehindQueue queue = queue(1);
+        createSequence();
+        // No writer is running, so the first chat fills the buffer
+        Chat queued = queue.enqueue(chat("queued"));
+        Chat overflowed = queue.enqueue(chat("overflowed"));
+
+        assertThat(writtenIds()).containsExactly(overflowed.getId());
+        assertThat(meterRegistry.get("chat.writer.overflow").counter().count()).isEqualTo(1);
+
+        queue.shutdown();
+        assertThat(writtenIds()).containsExactly(queued.getId(), overflowed.getId());
+    }
+}
@@ -0,0 +1,82 @@
+package com.hackathon.agriculture_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void findsOverlappingAndNestedPatterns() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.builder()
+                .add("he", 1L)
+                .add("she", 2L)
+                .add("his", 4L)
+                .add("hers", 8L)
+                .build();
+
+        assertThat(matcher.match("ushers")).isEqualTo(1L | 2L | 8L);
+        assertThat(matcher.match("this")).isEqualTo(4L);
+        assertThat(matcher.match("nothing here")).isEqualTo(1L);
+        assertThat(matcher.match("xyz")).isZero();
+    }
+
+    @Test
+    void ignoresCaseAndCharactersOutsideThePatterns() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.builder()
+                .add("Irrigation", 1L)
+                .add("what should i do", 2L)
+                .build();
+
+        assertThat(matcher.match("IRRIGATION schedule?")).isEqualTo(1L);
+        assertThat(matcher.match("Today, what should I do? 🌱 irrigation")).isEqualTo(3L);
+        assertThat(matcher.match(null)).isZero();
+        assertThat(matcher.match("")).isZero();
+    }
+
+    @Test
+    void patternsSharingALabelCombine() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.builder()
+                .add("pest", 1L)
+                .add("disease", 1L)
+                .add("rain", 2L)
+                .build();
+
+        assertThat(matcher.match("disease after rain")).isEqualTo(3L);
+    }
+
+    @Test
+    void agreesWithContainsOnRandomText() {
+        List<String> patterns = List.of("ab", "bab", "abc", "c", "cab", "bca", "aaaa");
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        for (int i = 0; i < patterns.size(); i++) {
+            builder.add(patterns.get(i), 1L << i);
+        }
+        AhoCorasickMatcher matcher = builder.build();
+
+        Random random = new Random(42);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                text.append("abcABd".charAt(random.nextInt(6)));
+            }
+            long expected = 0L;
+            for (int i = 0; i < patterns.size(); i++) {
+                if (text.toString().toLowerCase(Locale.ROOT).contains(patterns.get(i))) {
+                    expected |= 1L << i;
+                }
+            }
+            assertThat(matcher.match(text)).as(text.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rejectsEmptyPatterns() {
+        assertThatThrownBy(() -> AhoCorasickMatcher.builder().add("", 1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hackathon.agriculture_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsInstantsToTheNanosecond() {
+        KeysetCursor cursor = KeysetCursor.of(Instant.parse("2024-05-01T06:30:15.123456789Z"), 42L);
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsLocalDateTimesAndDates() {
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 6, 30, 15, 500);
+        LocalDate day = LocalDate.of(2024, 5, 1);
+
+        assertThat(KeysetCursor.decode(KeysetCursor.of(at, 7L).encode()).localDateTime()).isEqualTo(at);
+        assertThat(KeysetCursor.decode(KeysetCursor.of(day, 7L).encode()).localDate()).isEqualTo(day);
+    }
+
+    @Test
+    void encodesAsUrlSafeToken() {
+        String token = KeysetCursor.of(Instant.ofEpochSecond(-1, 999_999_999), Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsTokensItDidNotProduce() {
+        String wrongParts = Base64.getUrlEncoder().encodeToString("1:2".getBytes(StandardCharsets.US_ASCII));
+        String notNumbers = Base64.getUrlEncoder().encodeToString("a:b:c".getBytes(StandardCharsets.US_ASCII));
+
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(wrongParts)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(notNumbers)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
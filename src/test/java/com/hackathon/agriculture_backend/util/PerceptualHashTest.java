@@ -0,0 +1,70 @@
+package com.hackathon.agriculture_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.RescaleOp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerceptualHashTest {
+
+    // A leaf-like scene: gradient background with a few shapes
+    private static BufferedImage scene(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 30), width, height, new Color(200, 220, 120)));
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(90, 60, 20));
+        g.fillOval(width / 5, height / 4, width / 3, height / 3);
+        g.setColor(new Color(240, 240, 200));
+        g.fillRect(width * 3 / 5, height / 2, width / 4, height / 3);
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage resized(BufferedImage source, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void distanceCountsDifferingBits() {
+        assertThat(PerceptualHash.distance(0L, 0L)).isZero();
+        assertThat(PerceptualHash.distance(0b1011L, 0b0001L)).isEqualTo(2);
+        assertThat(PerceptualHash.distance(0L, -1L)).isEqualTo(64);
+        assertThat(PerceptualHash.distance(0x0F0FL, 0xF0F0L)).isEqualTo(PerceptualHash.distance(0xF0F0L, 0x0F0FL));
+    }
+
+    @Test
+    void resizedAndReexposedCopiesStayClose() {
+        BufferedImage original = scene(800, 600);
+        long hash = PerceptualHash.dHash(original);
+        BufferedImage brighter = new RescaleOp(1.1f, 10f, null).filter(original, null);
+
+        assertThat(PerceptualHash.dHash(original)).isEqualTo(hash);
+        assertThat(PerceptualHash.distance(hash, PerceptualHash.dHash(resized(original, 320, 240)))).isLessThanOrEqualTo(2);
+        assertThat(PerceptualHash.distance(hash, PerceptualHash.dHash(brighter))).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void differentPicturesAreFarApart() {
+        BufferedImage original = scene(800, 600);
+        BufferedImage mirrored = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = mirrored.createGraphics();
+        g.drawImage(original, 800, 0, -800, 600, null);
+        g.dispose();
+
+        assertThat(PerceptualHash.distance(PerceptualHash.dHash(original), PerceptualHash.dHash(mirrored)))
+                .isGreaterThan(10);
+    }
+}